@@ -1,6 +1,7 @@
 package com.intermediation.acceuil;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.HttpClientErrorException;
 
 import com.intermediation.acceuil.client.ExpertiseClient;
 import com.intermediation.acceuil.model.Expert;
@@ -44,10 +46,13 @@ public class FeedController {
 
   /**
    * Génère un nouveau lot d'experts pour le défilement (scroll).
-   * Récupère les experts publiés depuis le service expertise.
+   * Seul le lot demandé est lu depuis le service expertise, via un curseur opaque
+   * lié à une version du catalogue : les experts publiés en cours de session ne
+   * décalent ni ne dupliquent les éléments déjà affichés.
    *
    * @param body JSON d'entrée: {"visiteurId", "afterCursor"?, "batchSize"?}
-   * @return JSON: {"pileContenu":[], "nextCursor":"...", "contexteDerniereMAJ":"..."}
+   * @return JSON: {"pileContenu":[], "nextCursor":"..." (null en fin de catalogue),
+   *         "versionCatalogue":"...", "contexteDerniereMAJ":"..."}
    */
   @PostMapping(path = "/scroll-next", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
   public Map<String, Object> scrollNext(@RequestBody Map<String, Object> body) {
@@ -55,21 +60,28 @@ public class FeedController {
     String afterCursor = asString(body.get("afterCursor"));
     Integer batchSize = toInt(body.get("batchSize"), 5);
 
-    // Récupérer tous les experts publiés depuis le service expertise
-    List<Expert> allExperts = expertiseClient.getExpertsPublies();
-
-    // Pagination manuelle
-    int start = toInt(afterCursor, 0);
-    int end = Math.min(start + batchSize, allExperts.size());
-    List<Expert> pileContenu = allExperts.subList(start, end);
+    // Récupérer uniquement le lot suivant depuis le service expertise
+    ExpertiseClient.PageExperts page;
+    try {
+      page = expertiseClient.getExpertsPubliesPage(afterCursor, batchSize);
+    } catch (HttpClientErrorException.BadRequest e) {
+      // Curseur invalide (ancien format numérique, version expirée...) : reprendre au début
+      log.warn("[api/scroll-next] curseur invalide ({}), reprise au début du catalogue", afterCursor);
+      page = expertiseClient.getExpertsPubliesPage(null, batchSize);
+    } catch (Exception e) {
+      log.error("[api/scroll-next] erreur lors de la récupération des experts: {}", e.getMessage());
+      page = new ExpertiseClient.PageExperts(new ArrayList<>(), afterCursor, null);
+    }
+    List<Expert> pileContenu = page.getExperts();
 
     Map<String, Object> resp = new HashMap<>();
     resp.put("pileContenu", pileContenu);
-    resp.put("nextCursor", String.valueOf(end));
+    resp.put("nextCursor", page.getCurseurSuivant());
+    resp.put("versionCatalogue", page.getVersionCatalogue());
     resp.put("contexteDerniereMAJ", OffsetDateTime.now().toString());
 
-    log.info("[api/scroll-next] visiteurId={} cursor={}->{} experts={}/{}",
-             visiteurId, afterCursor, end, pileContenu.size(), allExperts.size());
+    log.info("[api/scroll-next] visiteurId={} experts={} finCatalogue={}",
+             visiteurId, pileContenu.size(), page.getCurseurSuivant() == null);
 
     return resp;
   }
@@ -9,9 +9,11 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -24,15 +26,15 @@ public class ExpertiseClient {
     
     private final RestTemplate restTemplate;
     private final String expertiseServiceUrl;
-    private final String authServiceUrl;
+    private final ProfilPublicCache profilPublicCache;
     
     public ExpertiseClient(
             RestTemplate restTemplate,
             @Value("${expertise.service.url:http://localhost:8086}") String expertiseServiceUrl,
-            @Value("${auth.service.url:http://localhost:8084}") String authServiceUrl) {
+            ProfilPublicCache profilPublicCache) {
         this.restTemplate = restTemplate;
         this.expertiseServiceUrl = expertiseServiceUrl;
-        this.authServiceUrl = authServiceUrl;
+        this.profilPublicCache = profilPublicCache;
     }
     
     /**
@@ -58,10 +60,8 @@ public class ExpertiseClient {
             
             log.info("Récupération de {} experts publiés", expertsDTO.size());
             
-            // Convertir les DTOs en modèle Expert
-            return expertsDTO.stream()
-                    .map(this::convertToExpert)
-                    .collect(Collectors.toList());
+            // Convertir les DTOs en modèle Expert (noms récupérés par lots auprès du service Auth)
+            return convertToExperts(expertsDTO);
                     
         } catch (Exception e) {
             log.error("Erreur lors de la récupération des experts: {}", e.getMessage(), e);
@@ -69,10 +69,50 @@ public class ExpertiseClient {
         }
     }
     
+    /**
+     * Récupère une page d'experts publiés (pagination par curseur côté service Expertise).
+     * Le curseur est opaque et porte la version du catalogue : les experts publiés
+     * après la première page n'apparaissent pas dans la suite du parcours.
+     *
+     * @param curseur curseur renvoyé par la page précédente (null pour la première page)
+     * @param taille nombre d'experts souhaités
+     */
+    public PageExperts getExpertsPubliesPage(String curseur, int taille) {
+        UriComponentsBuilder uri = UriComponentsBuilder
+                .fromUriString(expertiseServiceUrl + "/api/expertise/public/experts/page")
+                .queryParam("taille", taille);
+        if (curseur != null && !curseur.isBlank()) {
+            uri.queryParam("curseur", curseur);
+        }
+        String url = uri.encode().toUriString();
+        log.debug("Appel au service expertise: {}", url);
+
+        ExpertsPublicsPageDTO page = restTemplate.getForObject(url, ExpertsPublicsPageDTO.class);
+        if (page == null || page.getExperts() == null) {
+            return new PageExperts(new ArrayList<>(), null, null);
+        }
+
+        return new PageExperts(convertToExperts(page.getExperts()), page.getCurseurSuivant(), page.getVersionCatalogue());
+    }
+
+    /**
+     * Convertit une liste d'ExpertPublicDTO en Expert.
+     * Les noms/prénoms viennent du cache local des profils (service Auth par lots pour les manquants).
+     */
+    private List<Expert> convertToExperts(List<ExpertPublicDTO> expertsDTO) {
+        Map<String, UtilisateurPublicDTO> utilisateurs = profilPublicCache.getProfils(
+                expertsDTO.stream().map(ExpertPublicDTO::getUtilisateurId).collect(Collectors.toList()));
+        return expertsDTO.stream()
+                .map(dto -> convertToExpert(dto, utilisateurs.get(dto.getUtilisateurId())))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Convertit un ExpertPublicDTO en Expert
+     *
+     * @param utilisateur infos publiques issues du service Auth (null si indisponibles)
      */
-    private Expert convertToExpert(ExpertPublicDTO dto) {
+    private Expert convertToExpert(ExpertPublicDTO dto, UtilisateurPublicDTO utilisateur) {
         Expert expert = new Expert();
         expert.setId(dto.getUtilisateurId());
         expert.setTitre(dto.getTitre());
@@ -80,27 +120,18 @@ public class ExpertiseClient {
         expert.setPhotoUrl(dto.getPhotoUrl());
         expert.setDisponible(dto.getDisponible() != null ? dto.getDisponible() : false);
         
-        // Récupérer nom/prénom depuis le service Auth
-        try {
-            String authUrl = authServiceUrl + "/api/profil/public/" + dto.getUtilisateurId();
-            UtilisateurPublicDTO utilisateur = restTemplate.getForObject(authUrl, UtilisateurPublicDTO.class);
-            
-            if (utilisateur != null) {
-                if ("MORALE".equals(utilisateur.getTypePersonne())) {
-                    // Personne morale : afficher uniquement le nom (nom de l'organisation)
-                    expert.setNom(utilisateur.getNom() != null ? utilisateur.getNom() : "");
-                    expert.setPrenom("");
-                } else {
-                    // Personne physique : afficher nom et prénom
-                    expert.setNom(utilisateur.getNom() != null ? utilisateur.getNom() : "");
-                    expert.setPrenom(utilisateur.getPrenom() != null ? utilisateur.getPrenom() : "");
-                }
-            } else {
-                expert.setNom("");
+        // Nom/prénom issus du service Auth
+        if (utilisateur != null) {
+            if ("MORALE".equals(utilisateur.getTypePersonne())) {
+                // Personne morale : afficher uniquement le nom (nom de l'organisation)
+                expert.setNom(utilisateur.getNom() != null ? utilisateur.getNom() : "");
                 expert.setPrenom("");
+            } else {
+                // Personne physique : afficher nom et prénom
+                expert.setNom(utilisateur.getNom() != null ? utilisateur.getNom() : "");
+                expert.setPrenom(utilisateur.getPrenom() != null ? utilisateur.getPrenom() : "");
             }
-        } catch (Exception e) {
-            log.warn("Impossible de récupérer les infos utilisateur pour {}: {}", dto.getUtilisateurId(), e.getMessage());
+        } else {
             expert.setNom("");
             expert.setPrenom("");
         }
@@ -243,6 +274,44 @@ public class ExpertiseClient {
         public void setCompetences(List<CompetencePublicDTO> competences) { this.competences = competences; }
     }
     
+    /**
+     * DTO pour recevoir une page d'experts du service Expertise
+     */
+    public static class ExpertsPublicsPageDTO {
+        private List<ExpertPublicDTO> experts;
+        private String curseurSuivant;
+        private String versionCatalogue;
+
+        // Getters et Setters
+        public List<ExpertPublicDTO> getExperts() { return experts; }
+        public void setExperts(List<ExpertPublicDTO> experts) { this.experts = experts; }
+
+        public String getCurseurSuivant() { return curseurSuivant; }
+        public void setCurseurSuivant(String curseurSuivant) { this.curseurSuivant = curseurSuivant; }
+
+        public String getVersionCatalogue() { return versionCatalogue; }
+        public void setVersionCatalogue(String versionCatalogue) { this.versionCatalogue = versionCatalogue; }
+    }
+
+    /**
+     * Page d'experts convertis, avec le curseur de la page suivante (null en fin de catalogue)
+     */
+    public static class PageExperts {
+        private final List<Expert> experts;
+        private final String curseurSuivant;
+        private final String versionCatalogue;
+
+        public PageExperts(List<Expert> experts, String curseurSuivant, String versionCatalogue) {
+            this.experts = experts;
+            this.curseurSuivant = curseurSuivant;
+            this.versionCatalogue = versionCatalogue;
+        }
+
+        public List<Expert> getExperts() { return experts; }
+        public String getCurseurSuivant() { return curseurSuivant; }
+        public String getVersionCatalogue() { return versionCatalogue; }
+    }
+
     public static class CompetencePublicDTO {
         private String nom;
         private String description;
@@ -0,0 +1,27 @@
+package com.intermediation.acceuil.client;
+
+import com.intermediation.acceuil.client.ExpertiseClient.UtilisateurPublicDTO;
+import com.intermediation.profils.CacheProfilsPublics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+/**
+ * Cache local des profils publics du service Auth (voir {@link CacheProfilsPublics}).
+ * Un lot en erreur n'est pas mis en cache : les experts concernés sont affichés sans nom.
+ */
+@Component
+public class ProfilPublicCache extends CacheProfilsPublics<UtilisateurPublicDTO> {
+
+    public ProfilPublicCache(RestTemplate restTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${auth.service.url:http://localhost:8084}") String authServiceUrl,
+                             @Value("${profils.cache.taille-max:10000}") long tailleMax,
+                             @Value("${profils.cache.ttl:10m}") Duration ttl,
+                             @Value("${profils.cache.ttl-negatif:1m}") Duration ttlNegatif) {
+        super(restTemplate, authServiceUrl, UtilisateurPublicDTO.class, meterRegistry, tailleMax, ttl, ttlNegatif);
+    }
+}
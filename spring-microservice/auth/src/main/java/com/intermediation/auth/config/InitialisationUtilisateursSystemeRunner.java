@@ -3,6 +3,7 @@ package com.intermediation.auth.config;
 import com.intermediation.auth.model.TypePersonne;
 import com.intermediation.auth.model.Utilisateur;
 import com.intermediation.auth.repository.UtilisateurRepository;
+import com.intermediation.auth.service.KeycloakMiroirService;
 import com.intermediation.auth.service.KeycloakService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,12 +33,15 @@ public class InitialisationUtilisateursSystemeRunner implements CommandLineRunne
 
     private final UtilisateurRepository utilisateurRepository;
     private final KeycloakService keycloakService;
+    private final KeycloakMiroirService keycloakMiroirService;
 
     public InitialisationUtilisateursSystemeRunner(
             UtilisateurRepository utilisateurRepository,
-            KeycloakService keycloakService) {
+            KeycloakService keycloakService,
+            KeycloakMiroirService keycloakMiroirService) {
         this.utilisateurRepository = utilisateurRepository;
         this.keycloakService = keycloakService;
+        this.keycloakMiroirService = keycloakMiroirService;
     }
 
     @Override
@@ -166,6 +170,9 @@ public class InitialisationUtilisateursSystemeRunner implements CommandLineRunne
                     }
                 }
 
+                // Répercuter les rôles et groupes dans le miroir local
+                keycloakMiroirService.rafraichirUtilisateur(keycloakId);
+
                 log.info("✅ Traitement terminé pour: {}", config.email);
                 log.info("---");
 
@@ -3,6 +3,7 @@ package com.intermediation.auth.config;
 import com.intermediation.security.KeycloakJwtRoleConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -110,6 +111,8 @@ public class SecurityConfig {
                 // Endpoints pour appels internes depuis le Gateway (headers X-User-Email)
                 // Note: /api/profil/** est accessible mais le contrôleur vérifie X-User-Email
                 .requestMatchers("/api/auth/oauth2/process", "/api/me", "/api/profil/**", "/api/logout", "/api/user-id-by-email", "/api/keycloak-id-by-email").permitAll()
+                // Rafraîchissement du miroir Keycloak d'un utilisateur (appels Admin API et écritures) : administrateurs
+                .requestMatchers(HttpMethod.POST, "/api/utilisateurs/*/synchroniser").hasRole("ADMIN")
                 // Endpoints pour appels inter-services (expertise -> auth)
                 .requestMatchers("/api/utilisateurs/**").permitAll()
                 // Tout le reste nécessite authentification ET profil complet (sera géré par le handler)
@@ -391,7 +391,7 @@ public class AuthController {
                 utilisateur.getNom(),
                 nouveauToken.get()
             );
-            System.out.println("[RENVOYER] Email de vérification renvoyé à: " + email);
+            System.out.println("[RENVOYER] Email de vérification remis en file pour: " + email);
         }
 
         Map<String, Object> response = new HashMap<>();
@@ -2,6 +2,8 @@ package com.intermediation.auth.controller;
 
 import com.intermediation.auth.model.Utilisateur;
 import com.intermediation.auth.repository.UtilisateurRepository;
+import com.intermediation.auth.service.PhotoService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -10,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 
@@ -21,17 +24,22 @@ import java.util.Optional;
 public class PhotoController {
 
     private final UtilisateurRepository utilisateurRepository;
+    private final PhotoService photoService;
 
     // Taille maximale de l'image: 5 MB
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024;
 
+    // Cache de 1 heure, puis revalidation par ETag
+    private static final CacheControl CACHE_PHOTO = CacheControl.maxAge(Duration.ofHours(1)).cachePublic();
+
     // Types MIME acceptés
     private static final String[] ACCEPTED_CONTENT_TYPES = {
         "image/jpeg", "image/png", "image/gif", "image/webp"
     };
 
-    public PhotoController(UtilisateurRepository utilisateurRepository) {
+    public PhotoController(UtilisateurRepository utilisateurRepository, PhotoService photoService) {
         this.utilisateurRepository = utilisateurRepository;
+        this.photoService = photoService;
     }
 
     /**
@@ -79,18 +87,17 @@ public class PhotoController {
         }
 
         try {
-            Utilisateur utilisateur = utilisateurOpt.get();
-            utilisateur.setPhotoData(file.getBytes());
-            utilisateur.setPhotoContentType(contentType);
             // Effacer l'URL externe si une photo est uploadée
-            utilisateur.setPhotoUrl(null);
-            utilisateurRepository.save(utilisateur);
+            photoService.remplacerPhoto(utilisateurOpt.get(), file.getBytes(), contentType);
 
             System.out.println("✅ [PHOTO] Photo uploadée avec succès pour: " + userEmail);
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Photo uploadée avec succès"
             ));
+        } catch (IllegalArgumentException e) {
+            // Dimensions de l'image au-delà des limites
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (IOException e) {
             System.err.println("❌ [PHOTO] Erreur lors de l'upload: " + e.getMessage());
             return ResponseEntity.status(500).body(Map.of("error", "Erreur lors de l'enregistrement de la photo"));
@@ -99,9 +106,12 @@ public class PhotoController {
 
     /**
      * Récupère la photo de profil de l'utilisateur connecté
+     * @param size taille d'affichage en pixels (variante 64, 200 ou 512 px la plus proche), original si absent
      */
     @GetMapping("/photo")
-    public ResponseEntity<?> getMyPhoto(@RequestHeader(value = "X-User-Email", required = false) String userEmail) {
+    public ResponseEntity<?> getMyPhoto(@RequestHeader(value = "X-User-Email", required = false) String userEmail,
+                                        @RequestParam(value = "size", required = false) Integer size,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         if (userEmail == null || userEmail.isEmpty()) {
             return ResponseEntity.status(401).body(Map.of("error", "Non authentifié"));
         }
@@ -111,15 +121,18 @@ public class PhotoController {
             return ResponseEntity.notFound().build();
         }
 
-        return servirPhoto(utilisateurOpt.get());
+        return servirPhoto(utilisateurOpt.get(), size, ifNoneMatch);
     }
 
     /**
      * Récupère la photo de profil d'un utilisateur par son ID (endpoint public)
      * Cherche d'abord par keycloakId, puis par ID JPA si non trouvé
+     * @param size taille d'affichage en pixels (variante 64, 200 ou 512 px la plus proche), original si absent
      */
     @GetMapping("/public/{utilisateurId}/photo")
-    public ResponseEntity<?> getPhotoPublic(@PathVariable String utilisateurId) {
+    public ResponseEntity<?> getPhotoPublic(@PathVariable String utilisateurId,
+                                            @RequestParam(value = "size", required = false) Integer size,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         // Chercher d'abord par keycloakId (ID propagé par le Gateway)
         Optional<Utilisateur> utilisateurOpt = utilisateurRepository.findByKeycloakId(utilisateurId);
 
@@ -132,7 +145,7 @@ public class PhotoController {
             return ResponseEntity.notFound().build();
         }
 
-        return servirPhoto(utilisateurOpt.get());
+        return servirPhoto(utilisateurOpt.get(), size, ifNoneMatch);
     }
 
     /**
@@ -151,11 +164,7 @@ public class PhotoController {
             return ResponseEntity.status(404).body(Map.of("error", "Utilisateur non trouvé"));
         }
 
-        Utilisateur utilisateur = utilisateurOpt.get();
-        utilisateur.setPhotoData(null);
-        utilisateur.setPhotoContentType(null);
-        utilisateur.setPhotoUrl(null);
-        utilisateurRepository.save(utilisateur);
+        photoService.supprimerPhoto(utilisateurOpt.get());
 
         System.out.println("✅ [PHOTO] Photo supprimée avec succès pour: " + userEmail);
         return ResponseEntity.ok(Map.of(
@@ -166,19 +175,30 @@ public class PhotoController {
 
     /**
      * Méthode utilitaire pour servir une photo
+     * L'ETag (empreinte du contenu et taille servie) est connu sans charger l'image :
+     * une revalidation If-None-Match est répondue en 304 sans lire les octets
      */
-    private ResponseEntity<?> servirPhoto(Utilisateur utilisateur) {
+    private ResponseEntity<?> servirPhoto(Utilisateur utilisateur, Integer size, String ifNoneMatch) {
         // Priorité à la photo uploadée
-        if (utilisateur.getPhotoData() != null && utilisateur.getPhotoData().length > 0) {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(
-                utilisateur.getPhotoContentType() != null ? utilisateur.getPhotoContentType() : "image/jpeg"
-            ));
-            headers.setContentLength(utilisateur.getPhotoData().length);
-            // Cache de 1 heure
-            headers.setCacheControl("public, max-age=3600");
+        Optional<Integer> taille = photoService.choisirTaille(utilisateur.getPhotoHash(), size);
+        if (taille.isPresent()) {
+            String etag = "\"" + utilisateur.getPhotoHash() + "-" + taille.get() + "\"";
+            if (correspondEtag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CACHE_PHOTO)
+                    .build();
+            }
 
-            return new ResponseEntity<>(utilisateur.getPhotoData(), headers, HttpStatus.OK);
+            Optional<PhotoService.ContenuPhoto> contenu = photoService.getContenu(utilisateur.getPhotoHash(), taille.get());
+            if (contenu.isPresent()) {
+                return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(contenu.get().getContentType()))
+                    .contentLength(contenu.get().getDonnees().length)
+                    .eTag(etag)
+                    .cacheControl(CACHE_PHOTO)
+                    .body(contenu.get().getDonnees());
+            }
         }
 
         // Sinon rediriger vers l'URL externe si présente
@@ -191,4 +211,23 @@ public class PhotoController {
         // Pas de photo
         return ResponseEntity.notFound().build();
     }
+
+    /**
+     * Vérifie si l'en-tête If-None-Match contient l'ETag (liste séparée par des virgules, ou *)
+     */
+    private boolean correspondEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidat : ifNoneMatch.split(",")) {
+            String valeur = candidat.trim();
+            if (valeur.startsWith("W/")) {
+                valeur = valeur.substring(2);
+            }
+            if (valeur.equals("*") || valeur.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -13,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -135,13 +136,27 @@ public class ProfilController {
         dto.setTypePersonne(utilisateur.getTypePersonne());
 
         // Vérifier si l'utilisateur a une photo (uploadée ou URL externe)
-        boolean hasPhoto = (utilisateur.getPhotoData() != null && utilisateur.getPhotoData().length > 0)
-                || (utilisateur.getPhotoUrl() != null && !utilisateur.getPhotoUrl().isEmpty());
-        dto.setHasPhoto(hasPhoto);
+        dto.setHasPhoto(utilisateur.hasPhoto());
 
         return ResponseEntity.ok(dto);
     }
 
+    /**
+     * Endpoint public pour récupérer en une seule requête les informations basiques d'un lot d'utilisateurs
+     * Utilisé par les autres services pour éviter un appel par utilisateur
+     * Corps : liste d'IDs (keycloakId ou ID JPA), au plus 500
+     * Réponse : informations indexées par ID demandé (les IDs inconnus sont absents)
+     */
+    @PostMapping("/public/batch")
+    public ResponseEntity<?> getUtilisateursPublics(@RequestBody List<String> utilisateurIds) {
+        try {
+            Map<String, UtilisateurPublicDTO> utilisateurs = profilService.getUtilisateursPublics(utilisateurIds);
+            return ResponseEntity.ok(utilisateurs);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Changer le mot de passe de l'utilisateur connecté
      * Uniquement disponible pour les utilisateurs qui se sont inscrits avec email/mot de passe
@@ -1,6 +1,7 @@
 package com.intermediation.auth.controller;
 
 import com.intermediation.auth.dto.UtilisateurDTO;
+import com.intermediation.auth.service.KeycloakMiroirService;
 import com.intermediation.auth.service.UtilisateurService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +23,9 @@ public class UtilisateurController {
     @Autowired
     private UtilisateurService utilisateurService;
 
+    @Autowired
+    private KeycloakMiroirService keycloakMiroirService;
+
     /**
      * Récupérer les utilisateurs ayant un rôle spécifique
      * 
@@ -71,6 +75,19 @@ public class UtilisateurController {
         }
     }
 
+    /**
+     * Rafraîchir le miroir local d'un utilisateur après un changement de ses rôles dans Keycloak
+     * Réservé au rôle ADMIN (voir SecurityConfig)
+     *
+     * @param userId L'ID de l'utilisateur dans Keycloak
+     */
+    @PostMapping("/{userId}/synchroniser")
+    public ResponseEntity<Void> synchroniserUtilisateur(@PathVariable String userId) {
+        logger.info("📞 Rafraîchissement du miroir Keycloak pour l'utilisateur: {}", userId);
+        keycloakMiroirService.rafraichirUtilisateur(userId);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Récupérer tous les utilisateurs (pour debug/admin)
      */
@@ -35,8 +35,7 @@ public class ProfilCompletDTO {
             || utilisateur.getAppleId() != null;
 
         // Déterminer si l'utilisateur a une photo (uploadée ou URL externe)
-        this.hasPhoto = (utilisateur.getPhotoData() != null && utilisateur.getPhotoData().length > 0)
-            || (utilisateur.getPhotoUrl() != null && !utilisateur.getPhotoUrl().isEmpty());
+        this.hasPhoto = utilisateur.hasPhoto();
 
         // Informations personnelles
         ProfilPersonnelDTO perso = new ProfilPersonnelDTO();
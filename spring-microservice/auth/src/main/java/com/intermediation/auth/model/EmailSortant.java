@@ -0,0 +1,145 @@
+package com.intermediation.auth.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Email en file d'envoi (table emails_sortants)
+ * Enregistré dans la transaction métier, envoyé ensuite par EnvoiEmailsService
+ */
+@Entity
+@Table(name = "emails_sortants")
+public class EmailSortant {
+
+    public enum Statut {
+        EN_ATTENTE,
+        ENVOYE,
+        // Tentatives épuisées ou email impossible à construire : plus de nouvel essai
+        ECHEC_DEFINITIF
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String destinataire;
+
+    @Column(nullable = false, length = 500)
+    private String sujet;
+
+    @Column(name = "contenu_html", nullable = false, columnDefinition = "TEXT")
+    private String contenuHtml;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Statut statut = Statut.EN_ATTENTE;
+
+    @Column(nullable = false)
+    private Integer tentatives = 0;
+
+    @Column(name = "prochaine_tentative", nullable = false)
+    private LocalDateTime prochaineTentative;
+
+    @Column(name = "derniere_erreur", length = 2000)
+    private String derniereErreur;
+
+    @Column(name = "date_creation", nullable = false)
+    private LocalDateTime dateCreation;
+
+    @Column(name = "date_envoi")
+    private LocalDateTime dateEnvoi;
+
+    public EmailSortant() {
+    }
+
+    public EmailSortant(String destinataire, String sujet, String contenuHtml) {
+        this.destinataire = destinataire;
+        this.sujet = sujet;
+        this.contenuHtml = contenuHtml;
+        this.dateCreation = LocalDateTime.now();
+        this.prochaineTentative = this.dateCreation;
+    }
+
+    // Getters et Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getDestinataire() {
+        return destinataire;
+    }
+
+    public void setDestinataire(String destinataire) {
+        this.destinataire = destinataire;
+    }
+
+    public String getSujet() {
+        return sujet;
+    }
+
+    public void setSujet(String sujet) {
+        this.sujet = sujet;
+    }
+
+    public String getContenuHtml() {
+        return contenuHtml;
+    }
+
+    public void setContenuHtml(String contenuHtml) {
+        this.contenuHtml = contenuHtml;
+    }
+
+    public Statut getStatut() {
+        return statut;
+    }
+
+    public void setStatut(Statut statut) {
+        this.statut = statut;
+    }
+
+    public Integer getTentatives() {
+        return tentatives;
+    }
+
+    public void setTentatives(Integer tentatives) {
+        this.tentatives = tentatives;
+    }
+
+    public LocalDateTime getProchaineTentative() {
+        return prochaineTentative;
+    }
+
+    public void setProchaineTentative(LocalDateTime prochaineTentative) {
+        this.prochaineTentative = prochaineTentative;
+    }
+
+    public String getDerniereErreur() {
+        return derniereErreur;
+    }
+
+    public void setDerniereErreur(String derniereErreur) {
+        this.derniereErreur = derniereErreur;
+    }
+
+    public LocalDateTime getDateCreation() {
+        return dateCreation;
+    }
+
+    public void setDateCreation(LocalDateTime dateCreation) {
+        this.dateCreation = dateCreation;
+    }
+
+    public LocalDateTime getDateEnvoi() {
+        return dateEnvoi;
+    }
+
+    public void setDateEnvoi(LocalDateTime dateEnvoi) {
+        this.dateEnvoi = dateEnvoi;
+    }
+}
@@ -0,0 +1,94 @@
+package com.intermediation.auth.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Photo de profil, adressée par l'empreinte SHA-256 de son contenu
+ * Référencée par Utilisateur.photoHash ; un même contenu n'est stocké qu'une fois
+ */
+@Entity
+@Table(name = "photos")
+public class Photo {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] donnees;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(nullable = false)
+    private Integer taille;
+
+    @Column(name = "date_creation", nullable = false)
+    private LocalDateTime dateCreation;
+
+    // Variantes redimensionnées générées (table photo_variantes)
+    @Column(name = "variantes_generees", nullable = false)
+    private Boolean variantesGenerees = false;
+
+    public Photo() {
+    }
+
+    public Photo(String hash, byte[] donnees, String contentType) {
+        this.hash = hash;
+        this.donnees = donnees;
+        this.contentType = contentType;
+        this.taille = donnees.length;
+        this.dateCreation = LocalDateTime.now();
+    }
+
+    // Getters et Setters
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public byte[] getDonnees() {
+        return donnees;
+    }
+
+    public void setDonnees(byte[] donnees) {
+        this.donnees = donnees;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Integer getTaille() {
+        return taille;
+    }
+
+    public void setTaille(Integer taille) {
+        this.taille = taille;
+    }
+
+    public LocalDateTime getDateCreation() {
+        return dateCreation;
+    }
+
+    public void setDateCreation(LocalDateTime dateCreation) {
+        this.dateCreation = dateCreation;
+    }
+
+    public Boolean getVariantesGenerees() {
+        return variantesGenerees;
+    }
+
+    public void setVariantesGenerees(Boolean variantesGenerees) {
+        this.variantesGenerees = variantesGenerees;
+    }
+}
@@ -0,0 +1,99 @@
+package com.intermediation.auth.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Version redimensionnée d'une photo de profil (plus grand côté = taille, en pixels)
+ */
+@Entity
+@Table(name = "photo_variantes")
+@IdClass(PhotoVariante.Cle.class)
+public class PhotoVariante {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Id
+    private Integer taille;
+
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] donnees;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    public PhotoVariante() {
+    }
+
+    public PhotoVariante(String hash, Integer taille, byte[] donnees, String contentType) {
+        this.hash = hash;
+        this.taille = taille;
+        this.donnees = donnees;
+        this.contentType = contentType;
+    }
+
+    // Getters et Setters
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public Integer getTaille() {
+        return taille;
+    }
+
+    public void setTaille(Integer taille) {
+        this.taille = taille;
+    }
+
+    public byte[] getDonnees() {
+        return donnees;
+    }
+
+    public void setDonnees(byte[] donnees) {
+        this.donnees = donnees;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * Clé composite (hash, taille)
+     */
+    public static class Cle implements Serializable {
+        private String hash;
+        private Integer taille;
+
+        public Cle() {
+        }
+
+        public Cle(String hash, Integer taille) {
+            this.hash = hash;
+            this.taille = taille;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Cle cle)) return false;
+            return Objects.equals(hash, cle.hash) && Objects.equals(taille, cle.taille);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hash, taille);
+        }
+    }
+}
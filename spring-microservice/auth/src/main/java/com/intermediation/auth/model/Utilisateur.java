@@ -23,12 +23,9 @@ public class Utilisateur {
     private String prenom; // Null pour les personnes morales
     private String photoUrl;
 
-    // Photo stockée en BLOB (PostgreSQL BYTEA)
-    @Column(name = "photo_data", columnDefinition = "BYTEA")
-    private byte[] photoData;
-
-    @Column(name = "photo_content_type", length = 100)
-    private String photoContentType;
+    // Empreinte SHA-256 de la photo uploadée (octets stockés dans la table photos)
+    @Column(name = "photo_hash", length = 64)
+    private String photoHash;
 
     // Informations personnelles obligatoires
     private String telephone;
@@ -136,20 +133,19 @@ public class Utilisateur {
         this.photoUrl = photoUrl;
     }
 
-    public byte[] getPhotoData() {
-        return photoData;
-    }
-
-    public void setPhotoData(byte[] photoData) {
-        this.photoData = photoData;
+    public String getPhotoHash() {
+        return photoHash;
     }
 
-    public String getPhotoContentType() {
-        return photoContentType;
+    public void setPhotoHash(String photoHash) {
+        this.photoHash = photoHash;
     }
 
-    public void setPhotoContentType(String photoContentType) {
-        this.photoContentType = photoContentType;
+    /**
+     * Photo uploadée ou URL externe
+     */
+    public boolean hasPhoto() {
+        return photoHash != null || (photoUrl != null && !photoUrl.isEmpty());
     }
 
     public String getKeycloakId() {
@@ -0,0 +1,136 @@
+package com.intermediation.auth.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Copie locale d'un utilisateur Keycloak et de ses rôles effectifs
+ * Les groupes sont enregistrés comme des rôles : un groupe portant le nom d'un rôle
+ * donne ce rôle à ses membres (même convention que la recherche par rôle Keycloak)
+ */
+@Entity
+@Table(name = "keycloak_utilisateurs")
+public class UtilisateurKeycloak {
+
+    @Id
+    @Column(name = "keycloak_id")
+    private String keycloakId;
+
+    private String email;
+    private String username;
+    private String nom;
+    private String prenom;
+
+    @Column(nullable = false)
+    private Boolean actif = true;
+
+    // Rôles en minuscules
+    @ElementCollection
+    @CollectionTable(name = "keycloak_utilisateur_roles", joinColumns = @JoinColumn(name = "keycloak_id"))
+    @Column(name = "role", nullable = false)
+    private Set<String> roles = new HashSet<>();
+
+    @Column(name = "date_synchronisation", nullable = false)
+    private LocalDateTime dateSynchronisation;
+
+    public UtilisateurKeycloak() {
+    }
+
+    public UtilisateurKeycloak(String keycloakId) {
+        this.keycloakId = keycloakId;
+    }
+
+    /**
+     * Recopie les informations d'une autre instance
+     * @return true si au moins une valeur a changé
+     */
+    public boolean mettreAJour(UtilisateurKeycloak source) {
+        boolean modifie = !Objects.equals(email, source.email)
+                || !Objects.equals(username, source.username)
+                || !Objects.equals(nom, source.nom)
+                || !Objects.equals(prenom, source.prenom)
+                || !Objects.equals(actif, source.actif)
+                || !roles.equals(source.roles);
+        if (modifie) {
+            email = source.email;
+            username = source.username;
+            nom = source.nom;
+            prenom = source.prenom;
+            actif = source.actif;
+            // Modification en place pour que seules les lignes de rôles changées soient écrites
+            roles.retainAll(source.roles);
+            roles.addAll(source.roles);
+            dateSynchronisation = source.dateSynchronisation;
+        }
+        return modifie;
+    }
+
+    // Getters et Setters
+
+    public String getKeycloakId() {
+        return keycloakId;
+    }
+
+    public void setKeycloakId(String keycloakId) {
+        this.keycloakId = keycloakId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public void setNom(String nom) {
+        this.nom = nom;
+    }
+
+    public String getPrenom() {
+        return prenom;
+    }
+
+    public void setPrenom(String prenom) {
+        this.prenom = prenom;
+    }
+
+    public Boolean getActif() {
+        return actif;
+    }
+
+    public void setActif(Boolean actif) {
+        this.actif = actif;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(Set<String> roles) {
+        this.roles = roles;
+    }
+
+    public LocalDateTime getDateSynchronisation() {
+        return dateSynchronisation;
+    }
+
+    public void setDateSynchronisation(LocalDateTime dateSynchronisation) {
+        this.dateSynchronisation = dateSynchronisation;
+    }
+}
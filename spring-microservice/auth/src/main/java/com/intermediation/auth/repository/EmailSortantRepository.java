@@ -0,0 +1,37 @@
+package com.intermediation.auth.repository;
+
+import com.intermediation.auth.model.EmailSortant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailSortantRepository extends JpaRepository<EmailSortant, Long> {
+
+    /**
+     * Prochain lot d'emails à envoyer, verrouillé pour la transaction courante
+     * (SKIP LOCKED : plusieurs instances peuvent vider la file sans se bloquer ni envoyer en double)
+     */
+    @Query(value = "SELECT * FROM emails_sortants " +
+                   "WHERE statut = 'EN_ATTENTE' AND prochaine_tentative <= CURRENT_TIMESTAMP " +
+                   "ORDER BY prochaine_tentative LIMIT :taille FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<EmailSortant> findLotAEnvoyer(@Param("taille") int taille);
+
+    /**
+     * Supprime un lot d'emails traités (envoyés ou abandonnés) créés avant la date limite
+     * @return le nombre de lignes supprimées (inférieur à la taille du lot quand il n'en reste plus)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM emails_sortants WHERE id IN (" +
+                   "SELECT id FROM emails_sortants " +
+                   "WHERE statut IN ('ENVOYE', 'ECHEC_DEFINITIF') AND date_creation < :limite " +
+                   "LIMIT :taille)",
+           nativeQuery = true)
+    int supprimerTraitesAvant(@Param("limite") LocalDateTime limite, @Param("taille") int taille);
+}
@@ -0,0 +1,32 @@
+package com.intermediation.auth.repository;
+
+import com.intermediation.auth.model.Photo;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PhotoRepository extends JpaRepository<Photo, String> {
+
+    /**
+     * Indique si les variantes de la photo ont été générées (vide si la photo n'existe pas)
+     */
+    @Query("SELECT p.variantesGenerees FROM Photo p WHERE p.hash = :hash")
+    Optional<Boolean> findVariantesGenereesByHash(@Param("hash") String hash);
+
+    /**
+     * Photos dont les variantes n'ont pas encore été générées
+     */
+    @Query("SELECT p.hash FROM Photo p WHERE p.variantesGenerees = false ORDER BY p.dateCreation")
+    List<String> findHashesSansVariantes(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Photo p SET p.variantesGenerees = true WHERE p.hash = :hash")
+    int marquerVariantesGenerees(@Param("hash") String hash);
+}
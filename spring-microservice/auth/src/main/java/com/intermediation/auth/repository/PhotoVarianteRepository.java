@@ -0,0 +1,30 @@
+package com.intermediation.auth.repository;
+
+import com.intermediation.auth.model.PhotoVariante;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PhotoVarianteRepository extends JpaRepository<PhotoVariante, PhotoVariante.Cle> {
+
+    /**
+     * Tailles disponibles pour une photo, par ordre croissant (sans charger les images)
+     */
+    @Query("SELECT v.taille FROM PhotoVariante v WHERE v.hash = :hash ORDER BY v.taille")
+    List<Integer> findTaillesByHash(@Param("hash") String hash);
+
+    /**
+     * Ajoute une variante, sans erreur si elle existe déjà (générations concurrentes)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO photo_variantes (hash, taille, donnees, content_type) " +
+                   "VALUES (:hash, :taille, :donnees, :contentType) ON CONFLICT (hash, taille) DO NOTHING",
+           nativeQuery = true)
+    int insererSiAbsente(@Param("hash") String hash, @Param("taille") int taille,
+                         @Param("donnees") byte[] donnees, @Param("contentType") String contentType);
+}
@@ -0,0 +1,28 @@
+package com.intermediation.auth.repository;
+
+import com.intermediation.auth.model.UtilisateurKeycloak;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UtilisateurKeycloakRepository extends JpaRepository<UtilisateurKeycloak, String> {
+
+    /**
+     * Utilisateurs ayant un rôle (ou appartenant au groupe du même nom), via l'index sur les rôles
+     * @param role nom du rôle en minuscules
+     */
+    @Query("SELECT u FROM UtilisateurKeycloak u WHERE u.keycloakId IN " +
+           "(SELECT uk.keycloakId FROM UtilisateurKeycloak uk JOIN uk.roles r WHERE r = :role) " +
+           "ORDER BY u.nom, u.prenom")
+    List<UtilisateurKeycloak> findByRole(@Param("role") String role);
+
+    /**
+     * Tout le miroir avec les rôles, en une requête (comparaison lors de la synchronisation)
+     */
+    @Query("SELECT DISTINCT u FROM UtilisateurKeycloak u LEFT JOIN FETCH u.roles")
+    List<UtilisateurKeycloak> findAllAvecRoles();
+}
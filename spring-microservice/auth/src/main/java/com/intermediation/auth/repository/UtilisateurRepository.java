@@ -2,8 +2,11 @@ package com.intermediation.auth.repository;
 
 import com.intermediation.auth.model.Utilisateur;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,10 +27,22 @@ public interface UtilisateurRepository extends JpaRepository<Utilisateur, String
 
     Optional<Utilisateur> findByTokenVerificationEmail(String token);
 
+    boolean existsByPhotoHash(String photoHash);
+
     /**
      * Récupère tous les utilisateurs système
      * @param estUtilisateurSysteme true pour les utilisateurs système, false pour les utilisateurs normaux
      * @return liste des utilisateurs correspondants
      */
     List<Utilisateur> findAllByEstUtilisateurSysteme(Boolean estUtilisateurSysteme);
+
+    /**
+     * Informations publiques d'un lot d'utilisateurs, recherchés par keycloakId ou par ID JPA
+     * (deux colonnes indexées)
+     * @return lignes [id, keycloakId, nom, prenom, photoUrl, typePersonne, hasPhoto]
+     */
+    @Query("SELECT u.id, u.keycloakId, u.nom, u.prenom, u.photoUrl, u.typePersonne, " +
+           "CASE WHEN u.photoHash IS NOT NULL OR (u.photoUrl IS NOT NULL AND u.photoUrl <> '') THEN true ELSE false END " +
+           "FROM Utilisateur u WHERE u.keycloakId IN :ids OR u.id IN :ids")
+    List<Object[]> findInfosPubliquesByKeycloakIdOrIdIn(@Param("ids") Collection<String> ids);
 }
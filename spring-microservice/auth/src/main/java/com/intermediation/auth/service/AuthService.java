@@ -276,7 +276,7 @@ public class AuthService {
         // Générer le token de vérification et envoyer l'email
         String token = tokenVerificationService.creerTokenPourUtilisateur(utilisateur);
         emailService.envoyerEmailVerification(email, prenom, nom, token);
-        System.out.println("[AUTH SERVICE] Email de vérification envoyé à: " + email);
+        System.out.println("[AUTH SERVICE] Email de vérification mis en file pour: " + email);
 
         return utilisateur;
     }
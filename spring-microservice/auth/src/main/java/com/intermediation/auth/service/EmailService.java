@@ -1,76 +1,69 @@
 package com.intermediation.auth.service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import com.intermediation.auth.model.EmailSortant;
+import com.intermediation.auth.repository.EmailSortantRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
 /**
  * Service d'envoi d'emails pour la vérification des comptes utilisateurs.
+ * Les emails sont rendus puis placés dans la file emails_sortants, dans la transaction
+ * de l'appelant ; l'envoi SMTP est fait en arrière-plan par {@link EnvoiEmailsService}.
  */
 @Service
 public class EmailService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 
-    private final JavaMailSender mailSender;
     private final TemplateEngine templateEngine;
-
-    @Value("${app.mail.from:noreply@intermediation.com}")
-    private String emailFrom;
-
-    @Value("${app.mail.from-name:Plateforme Intermediation}")
-    private String emailFromName;
+    private final EmailSortantRepository emailSortantRepository;
 
     @Value("${app.verification.base-url:http://localhost:8090}")
     private String baseUrl;
 
-    public EmailService(JavaMailSender mailSender, TemplateEngine templateEngine) {
-        this.mailSender = mailSender;
+    public EmailService(TemplateEngine templateEngine, EmailSortantRepository emailSortantRepository) {
         this.templateEngine = templateEngine;
+        this.emailSortantRepository = emailSortantRepository;
     }
 
     /**
-     * Envoie un email de vérification à l'utilisateur nouvellement inscrit.
+     * Place en file d'envoi l'email de vérification de l'utilisateur nouvellement inscrit.
+     * L'email n'est envoyé que si la transaction appelante (inscription) est validée.
      *
      * @param destinataire Email du destinataire
      * @param prenom       Prénom de l'utilisateur
      * @param nom          Nom de l'utilisateur
      * @param token        Token de vérification unique
      */
+    @Transactional
     public void envoyerEmailVerification(String destinataire, String prenom, String nom, String token) {
-        try {
-            String lienVerification = baseUrl + "/verifier-email?token=" + token;
+        String lienVerification = baseUrl + "/verifier-email?token=" + token;
 
-            Context context = new Context();
-            context.setVariable("prenom", prenom);
-            context.setVariable("nom", nom);
-            context.setVariable("lienVerification", lienVerification);
-            context.setVariable("dureeValidite", "72 heures");
+        Context context = new Context();
+        context.setVariable("prenom", prenom);
+        context.setVariable("nom", nom);
+        context.setVariable("lienVerification", lienVerification);
+        context.setVariable("dureeValidite", "72 heures");
 
-            String contenuHtml = templateEngine.process("email-verification", context);
+        String contenuHtml = templateEngine.process("email-verification", context);
 
-            envoyerEmail(destinataire, "Vérifiez votre adresse email", contenuHtml);
+        emailSortantRepository.save(new EmailSortant(destinataire, "Vérifiez votre adresse email", contenuHtml));
 
-            logger.info("Email de vérification envoyé à: {}", destinataire);
-        } catch (Exception e) {
-            logger.error("Erreur lors de l'envoi de l'email de vérification à {}: {}", destinataire, e.getMessage());
-            throw new RuntimeException("Impossible d'envoyer l'email de vérification", e);
-        }
+        logger.info("Email de vérification mis en file pour: {}", destinataire);
     }
 
     /**
-     * Envoie un email de confirmation après validation réussie.
+     * Place en file d'envoi l'email de confirmation après validation réussie.
      *
      * @param destinataire Email du destinataire
      * @param prenom       Prénom de l'utilisateur
      */
+    @Transactional
     public void envoyerEmailConfirmation(String destinataire, String prenom) {
         try {
             Context context = new Context();
@@ -79,27 +72,12 @@ public class EmailService {
 
             String contenuHtml = templateEngine.process("email-confirmation", context);
 
-            envoyerEmail(destinataire, "Votre email a été vérifié avec succès", contenuHtml);
+            emailSortantRepository.save(new EmailSortant(destinataire, "Votre email a été vérifié avec succès", contenuHtml));
 
-            logger.info("Email de confirmation envoyé à: {}", destinataire);
+            logger.info("Email de confirmation mis en file pour: {}", destinataire);
         } catch (Exception e) {
-            logger.error("Erreur lors de l'envoi de l'email de confirmation à {}: {}", destinataire, e.getMessage());
+            logger.error("Erreur lors de la préparation de l'email de confirmation pour {}: {}", destinataire, e.getMessage());
             // Ne pas lever d'exception pour la confirmation, ce n'est pas bloquant
         }
     }
-
-    /**
-     * Méthode générique pour envoyer un email HTML.
-     */
-    private void envoyerEmail(String destinataire, String sujet, String contenuHtml) throws MessagingException, java.io.UnsupportedEncodingException {
-        MimeMessage message = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-        helper.setFrom(emailFrom, emailFromName);
-        helper.setTo(destinataire);
-        helper.setSubject(sujet);
-        helper.setText(contenuHtml, true);
-
-        mailSender.send(message);
-    }
 }
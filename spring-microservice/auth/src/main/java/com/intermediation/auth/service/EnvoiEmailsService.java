@@ -0,0 +1,243 @@
+package com.intermediation.auth.service;
+
+import com.intermediation.auth.model.EmailSortant;
+import com.intermediation.auth.repository.EmailSortantRepository;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Envoi en arrière-plan des emails de la file emails_sortants
+ * - les emails dus sont réservés par lots (FOR UPDATE SKIP LOCKED) dans une transaction courte,
+ *   puis envoyés hors transaction sur une seule connexion SMTP par lot
+ * - en cas d'échec, nouvelle tentative avec un délai exponentiel plafonné
+ * - après le nombre maximal de tentatives, ou si l'email est invalide, il passe en ECHEC_DEFINITIF
+ * - les emails envoyés ou abandonnés sont supprimés après la durée de rétention
+ *   (le contenu HTML contient notamment les jetons de vérification d'email)
+ */
+@Service
+public class EnvoiEmailsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvoiEmailsService.class);
+
+    // Nombre maximal de lots traités par passage, pour ne pas monopoliser le thread de planification
+    private static final int LOTS_MAX_PAR_PASSAGE = 10;
+
+    private final JavaMailSender mailSender;
+    private final EmailSortantRepository emailSortantRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.mail.from:noreply@intermediation.com}")
+    private String emailFrom;
+
+    @Value("${app.mail.from-name:Plateforme Intermediation}")
+    private String emailFromName;
+
+    @Value("${app.mail.outbox.taille-lot:50}")
+    private int tailleLot;
+
+    @Value("${app.mail.outbox.tentatives-max:8}")
+    private int tentativesMax;
+
+    @Value("${app.mail.outbox.delai-initial-secondes:30}")
+    private long delaiInitialSecondes;
+
+    @Value("${app.mail.outbox.delai-max-secondes:3600}")
+    private long delaiMaxSecondes;
+
+    // Durée de réservation d'un lot : si l'instance s'arrête pendant l'envoi, le lot redevient dû ensuite
+    @Value("${app.mail.outbox.bail-secondes:300}")
+    private long bailSecondes;
+
+    // Durée de conservation des emails envoyés ou abandonnés
+    @Value("${app.mail.outbox.retention-jours:7}")
+    private int retentionJours;
+
+    @Value("${app.mail.outbox.taille-lot-purge:1000}")
+    private int tailleLotPurge;
+
+    public EnvoiEmailsService(JavaMailSender mailSender, EmailSortantRepository emailSortantRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.mailSender = mailSender;
+        this.emailSortantRepository = emailSortantRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.intervalle-ms:5000}",
+               initialDelayString = "${app.mail.outbox.delai-initial-ms:10000}")
+    public void envoyerEmailsEnAttente() {
+        for (int i = 0; i < LOTS_MAX_PAR_PASSAGE; i++) {
+            List<EmailSortant> lot = reserverLot();
+            if (lot.isEmpty()) {
+                return;
+            }
+            Map<Long, Exception> echecs = envoyerLot(lot);
+            enregistrerResultats(lot, echecs);
+            if (lot.size() < tailleLot) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Purge les emails traités plus anciens que la rétention, par lots courts
+     * pour ne pas bloquer la file pendant la suppression
+     */
+    @Scheduled(cron = "${app.mail.outbox.purge-cron:0 30 3 * * *}")
+    public void purgerEmailsTraites() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(retentionJours);
+        int total = 0;
+        Integer supprimes;
+        do {
+            supprimes = transactionTemplate.execute(status ->
+                    emailSortantRepository.supprimerTraitesAvant(limite, tailleLotPurge));
+            total += supprimes != null ? supprimes : 0;
+        } while (supprimes != null && supprimes >= tailleLotPurge);
+
+        if (total > 0) {
+            logger.info("{} email(s) traité(s) de plus de {} jour(s) supprimé(s)", total, retentionJours);
+        }
+    }
+
+    /**
+     * Réserve les prochains emails dus : la tentative est comptée et l'échéance repoussée
+     * de la durée du bail, ce qui les retire de la file pendant l'envoi
+     */
+    private List<EmailSortant> reserverLot() {
+        List<EmailSortant> lot = transactionTemplate.execute(status -> {
+            List<EmailSortant> emails = emailSortantRepository.findLotAEnvoyer(tailleLot);
+            LocalDateTime finBail = LocalDateTime.now().plusSeconds(bailSecondes);
+            for (EmailSortant email : emails) {
+                email.setTentatives(email.getTentatives() + 1);
+                email.setProchaineTentative(finBail);
+            }
+            return emails;
+        });
+        return lot != null ? lot : List.of();
+    }
+
+    /**
+     * Envoie le lot en un seul appel au serveur SMTP
+     * @return les erreurs par identifiant d'email (vide si tout a été envoyé)
+     */
+    private Map<Long, Exception> envoyerLot(List<EmailSortant> lot) {
+        Map<Long, Exception> echecs = new HashMap<>();
+        Map<MimeMessage, Long> idsParMessage = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>();
+
+        for (EmailSortant email : lot) {
+            try {
+                MimeMessage message = creerMessage(email);
+                messages.add(message);
+                idsParMessage.put(message, email.getId());
+            } catch (Exception e) {
+                echecs.put(email.getId(), new MailPreparationException(e.getMessage(), e));
+            }
+        }
+        if (messages.isEmpty()) {
+            return echecs;
+        }
+
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            // Échecs message par message : les autres emails du lot sont bien partis
+            Map<Object, Exception> echecsParMessage = e.getFailedMessages();
+            if (echecsParMessage.isEmpty()) {
+                messages.forEach(message -> echecs.put(idsParMessage.get(message), e));
+            } else {
+                echecsParMessage.forEach((message, erreur) -> {
+                    Long id = idsParMessage.get(message);
+                    if (id != null) {
+                        echecs.put(id, erreur);
+                    }
+                });
+            }
+        } catch (MailException e) {
+            // Connexion ou authentification SMTP impossible : tout le lot sera retenté
+            messages.forEach(message -> echecs.put(idsParMessage.get(message), e));
+        }
+        return echecs;
+    }
+
+    private MimeMessage creerMessage(EmailSortant email) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setFrom(emailFrom, emailFromName);
+        helper.setTo(email.getDestinataire());
+        helper.setSubject(email.getSujet());
+        helper.setText(email.getContenuHtml(), true);
+        return message;
+    }
+
+    private void enregistrerResultats(List<EmailSortant> lot, Map<Long, Exception> echecs) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime maintenant = LocalDateTime.now();
+            for (EmailSortant email : lot) {
+                Exception erreur = echecs.get(email.getId());
+                if (erreur == null) {
+                    email.setStatut(EmailSortant.Statut.ENVOYE);
+                    email.setDateEnvoi(maintenant);
+                    email.setDerniereErreur(null);
+                } else if (estDefinitif(erreur) || email.getTentatives() >= tentativesMax) {
+                    email.setStatut(EmailSortant.Statut.ECHEC_DEFINITIF);
+                    email.setDerniereErreur(tronquer(erreur.getMessage()));
+                    logger.error("Email {} pour {} abandonné après {} tentative(s): {}",
+                            email.getId(), email.getDestinataire(), email.getTentatives(), erreur.getMessage());
+                } else {
+                    email.setProchaineTentative(maintenant.plusSeconds(delaiAvantNouvelleTentative(email.getTentatives())));
+                    email.setDerniereErreur(tronquer(erreur.getMessage()));
+                    logger.warn("Échec d'envoi de l'email {} pour {} (tentative {}): {}",
+                            email.getId(), email.getDestinataire(), email.getTentatives(), erreur.getMessage());
+                }
+            }
+            emailSortantRepository.saveAll(lot);
+        });
+
+        int envoyes = lot.size() - echecs.size();
+        if (envoyes > 0) {
+            logger.info("{} email(s) envoyé(s)", envoyes);
+        }
+    }
+
+    /**
+     * Délai exponentiel : délai initial x 2^(tentatives - 1), plafonné
+     */
+    private long delaiAvantNouvelleTentative(int tentatives) {
+        int exposant = Math.min(Math.max(tentatives - 1, 0), 30);
+        return Math.min(delaiInitialSecondes << exposant, delaiMaxSecondes);
+    }
+
+    /**
+     * Erreurs qu'une nouvelle tentative ne corrigera pas (adresse ou contenu invalide)
+     */
+    private boolean estDefinitif(Exception erreur) {
+        return erreur instanceof MailPreparationException || erreur instanceof MailParseException;
+    }
+
+    private String tronquer(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 2000 ? message.substring(0, 2000) : message;
+    }
+}
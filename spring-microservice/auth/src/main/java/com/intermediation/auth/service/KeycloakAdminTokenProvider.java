@@ -0,0 +1,148 @@
+package com.intermediation.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Fournisseur partagé du token admin Keycloak (realm master, client admin-cli).
+ * Le token est conservé jusqu'à peu avant son expiration puis renouvelé, via le refresh token
+ * lorsqu'il est encore valide, sinon par un nouveau password grant.
+ * Les renouvellements concurrents sont regroupés : un seul appel à Keycloak par expiration.
+ */
+@Service
+public class KeycloakAdminTokenProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakAdminTokenProvider.class);
+
+    @Value("${keycloak.admin.url:http://localhost:8098}")
+    private String keycloakServerUrl;
+
+    @Value("${keycloak.admin.client-id:admin-cli}")
+    private String adminClientId;
+
+    @Value("${keycloak.admin.username:admin}")
+    private String adminUsername;
+
+    @Value("${keycloak.admin.password:admin}")
+    private String adminPassword;
+
+    // Marge avant expiration à partir de laquelle le token est renouvelé
+    @Value("${keycloak.admin.token.marge-rafraichissement-secondes:30}")
+    private long margeRafraichissementSecondes;
+
+    private final RestTemplate restTemplate;
+    private final KeycloakHttpClient keycloakHttpClient;
+    private final Object verrou = new Object();
+
+    private volatile JetonAdmin jeton;
+
+    public KeycloakAdminTokenProvider(KeycloakHttpClient keycloakHttpClient) {
+        this.restTemplate = keycloakHttpClient.restTemplate();
+        this.keycloakHttpClient = keycloakHttpClient;
+    }
+
+    /**
+     * Retourne un token d'accès admin valide, ou null si Keycloak ne peut pas en délivrer
+     */
+    public String getAccessToken() {
+        JetonAdmin courant = jeton;
+        if (courant != null && courant.estValide(Instant.now())) {
+            return courant.accessToken;
+        }
+
+        synchronized (verrou) {
+            // Un autre thread a pu renouveler le token pendant l'attente du verrou
+            courant = jeton;
+            Instant maintenant = Instant.now();
+            if (courant != null && courant.estValide(maintenant)) {
+                return courant.accessToken;
+            }
+
+            JetonAdmin nouveau = null;
+            if (courant != null && courant.refreshTokenValide(maintenant)) {
+                nouveau = demanderJeton(String.format(
+                    "grant_type=refresh_token&client_id=%s&refresh_token=%s",
+                    adminClientId, courant.refreshToken
+                ));
+            }
+            if (nouveau == null) {
+                nouveau = demanderJeton(String.format(
+                    "grant_type=password&client_id=%s&username=%s&password=%s",
+                    adminClientId, adminUsername, adminPassword
+                ));
+            }
+
+            jeton = nouveau;
+            return nouveau != null ? nouveau.accessToken : null;
+        }
+    }
+
+    private JetonAdmin demanderJeton(String body) {
+        String tokenUrl = keycloakServerUrl + "/realms/master/protocol/openid-connect/token";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+
+        HttpEntity<String> request = new HttpEntity<>(body, headers);
+
+        try {
+            Instant emission = Instant.now();
+            ResponseEntity<Map> response = keycloakHttpClient.executer("admin_token", () -> restTemplate.postForEntity(tokenUrl, request, Map.class));
+            Map<?, ?> reponse = response.getBody();
+            if (reponse != null && reponse.containsKey("access_token")) {
+                return new JetonAdmin(
+                    (String) reponse.get("access_token"),
+                    renouvellement(emission, reponse.get("expires_in")),
+                    (String) reponse.get("refresh_token"),
+                    renouvellement(emission, reponse.get("refresh_expires_in"))
+                );
+            }
+        } catch (Exception e) {
+            logger.error("Erreur lors de l'obtention du token admin Keycloak: {}", e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Instant de renouvellement : la marge est retranchée de la durée de vie annoncée,
+     * sans jamais descendre sous la moitié de celle-ci (tokens à durée de vie courte)
+     */
+    private Instant renouvellement(Instant emission, Object dureeVie) {
+        long dureeSecondes = dureeVie instanceof Number ? ((Number) dureeVie).longValue() : 0L;
+        long avantRenouvellement = Math.max(dureeSecondes - margeRafraichissementSecondes, dureeSecondes / 2);
+        return emission.plusSeconds(avantRenouvellement);
+    }
+
+    /**
+     * Token admin et les instants à partir desquels il doit être renouvelé
+     */
+    private static final class JetonAdmin {
+        private final String accessToken;
+        private final Instant renouvellement;
+        private final String refreshToken;
+        private final Instant renouvellementRefresh;
+
+        private JetonAdmin(String accessToken, Instant renouvellement, String refreshToken, Instant renouvellementRefresh) {
+            this.accessToken = accessToken;
+            this.renouvellement = renouvellement;
+            this.refreshToken = refreshToken;
+            this.renouvellementRefresh = renouvellementRefresh;
+        }
+
+        private boolean estValide(Instant maintenant) {
+            return maintenant.isBefore(renouvellement);
+        }
+
+        private boolean refreshTokenValide(Instant maintenant) {
+            return refreshToken != null && maintenant.isBefore(renouvellementRefresh);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.intermediation.auth.service;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Client HTTP dédié aux appels Keycloak (API Admin et endpoints token)
+ * - connexions poolées et réutilisées (keep-alive), avec timeouts de connexion, d'obtention et de lecture
+ * - histogramme de latence par opération (keycloak.client.requetes)
+ * - circuit breaker : lorsque Keycloak est dégradé, les appels échouent immédiatement
+ *   au lieu de bloquer les threads Tomcat
+ */
+@Component
+public class KeycloakHttpClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakHttpClient.class);
+
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+
+    public KeycloakHttpClient(
+            MeterRegistry meterRegistry,
+            @Value("${keycloak.client.pool.max-total:50}") int maxTotal,
+            @Value("${keycloak.client.pool.max-par-route:20}") int maxParRoute,
+            @Value("${keycloak.client.timeout.connexion-ms:2000}") long timeoutConnexionMs,
+            @Value("${keycloak.client.timeout.obtention-connexion-ms:1000}") long timeoutObtentionMs,
+            @Value("${keycloak.client.timeout.lecture-ms:5000}") long timeoutLectureMs,
+            @Value("${keycloak.client.circuit-breaker.seuil-echec-pourcent:50}") float seuilEchec,
+            @Value("${keycloak.client.circuit-breaker.fenetre:20}") int fenetre,
+            @Value("${keycloak.client.circuit-breaker.ouverture-secondes:30}") long ouvertureSecondes) {
+        this.meterRegistry = meterRegistry;
+
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxParRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.ofMilliseconds(timeoutConnexionMs))
+                    .setSocketTimeout(Timeout.ofMilliseconds(timeoutLectureMs))
+                    .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                    .build())
+                .build())
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(timeoutObtentionMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(timeoutLectureMs))
+                .build())
+            .evictIdleConnections(TimeValue.ofSeconds(30))
+            .build();
+        this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+
+        // Les erreurs 4xx (identifiants invalides, utilisateur existant...) ne traduisent pas
+        // une indisponibilité de Keycloak et ne doivent pas ouvrir le circuit
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+            .failureRateThreshold(seuilEchec)
+            .slidingWindowSize(fenetre)
+            .minimumNumberOfCalls(Math.max(1, fenetre / 2))
+            .slowCallDurationThreshold(Duration.ofMillis(timeoutLectureMs))
+            .waitDurationInOpenState(Duration.ofSeconds(ouvertureSecondes))
+            .permittedNumberOfCallsInHalfOpenState(3)
+            .ignoreExceptions(HttpClientErrorException.class)
+            .build());
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("keycloak");
+        this.circuitBreaker.getEventPublisher().onStateTransition(event ->
+            logger.warn("Circuit breaker Keycloak: {}", event.getStateTransition()));
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+    }
+
+    /**
+     * RestTemplate poolé à utiliser dans un appel passé à {@link #executer(String, Supplier)}
+     */
+    public RestTemplate restTemplate() {
+        return restTemplate;
+    }
+
+    /**
+     * Exécute un appel Keycloak sous le circuit breaker et mesure sa latence.
+     * Lève CallNotPermittedException sans appel réseau tant que le circuit est ouvert.
+     */
+    public <T> T executer(String operation, Supplier<T> appel) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String resultat = "succes";
+        try {
+            return circuitBreaker.executeSupplier(appel);
+        } catch (CallNotPermittedException e) {
+            resultat = "circuit_ouvert";
+            throw e;
+        } catch (HttpClientErrorException e) {
+            resultat = "erreur_client";
+            throw e;
+        } catch (RuntimeException e) {
+            resultat = "erreur";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("keycloak.client.requetes")
+                .description("Latence des appels HTTP vers Keycloak")
+                .tag("operation", operation)
+                .tag("resultat", resultat)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
+    }
+
+    @PreDestroy
+    void fermer() throws IOException {
+        httpClient.close();
+    }
+}
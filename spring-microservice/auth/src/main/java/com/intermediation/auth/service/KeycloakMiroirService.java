@@ -0,0 +1,303 @@
+package com.intermediation.auth.service;
+
+import com.intermediation.auth.model.UtilisateurKeycloak;
+import com.intermediation.auth.repository.UtilisateurKeycloakRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Miroir local des utilisateurs Keycloak et de leurs rôles (table keycloak_utilisateurs)
+ *
+ * - Synchronisation périodique : les membres sont lus par rôle realm et par groupe
+ *   (nombre d'appels proportionnel au nombre de rôles et de groupes, pas d'utilisateurs),
+ *   puis seules les différences avec le miroir sont écrites
+ * - Rafraîchissement à la demande d'un utilisateur après un changement de ses rôles ou groupes
+ *
+ * Les listes d'utilisateurs par rôle sont ensuite servies par une requête locale indexée.
+ */
+@Service
+public class KeycloakMiroirService {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakMiroirService.class);
+
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> LISTE =
+            new ParameterizedTypeReference<List<Map<String, Object>>>() {};
+    private static final ParameterizedTypeReference<Map<String, Object>> OBJET =
+            new ParameterizedTypeReference<Map<String, Object>>() {};
+
+    @Value("${keycloak.admin.url:http://localhost:8098}")
+    private String keycloakServerUrl;
+
+    @Value("${keycloak.realm:realm_picp}")
+    private String realm;
+
+    @Value("${keycloak.miroir.taille-page:500}")
+    private int taillePage;
+
+    private final RestTemplate restTemplate;
+    private final KeycloakHttpClient keycloakHttpClient;
+    private final KeycloakAdminTokenProvider adminTokenProvider;
+    private final UtilisateurKeycloakRepository utilisateurKeycloakRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Object verrouSynchronisation = new Object();
+    private volatile boolean alimente;
+
+    public KeycloakMiroirService(KeycloakHttpClient keycloakHttpClient,
+                                 KeycloakAdminTokenProvider adminTokenProvider,
+                                 UtilisateurKeycloakRepository utilisateurKeycloakRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.restTemplate = keycloakHttpClient.restTemplate();
+        this.keycloakHttpClient = keycloakHttpClient;
+        this.adminTokenProvider = adminTokenProvider;
+        this.utilisateurKeycloakRepository = utilisateurKeycloakRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Utilisateurs ayant le rôle (ou membres du groupe du même nom), depuis le miroir local
+     */
+    public List<UtilisateurKeycloak> getUtilisateursParRole(String role) {
+        return utilisateurKeycloakRepository.findByRole(role.toLowerCase());
+    }
+
+    public Optional<UtilisateurKeycloak> getUtilisateur(String keycloakId) {
+        return utilisateurKeycloakRepository.findById(keycloakId);
+    }
+
+    /**
+     * Indique si le miroir a déjà été alimenté (sinon les appelants interrogent Keycloak directement)
+     */
+    public boolean estAlimente() {
+        if (!alimente) {
+            alimente = utilisateurKeycloakRepository.count() > 0;
+        }
+        return alimente;
+    }
+
+    /**
+     * Synchronisation complète du miroir avec Keycloak
+     * En cas d'erreur de lecture, rien n'est écrit : le miroir reste dans son état précédent.
+     */
+    @Scheduled(initialDelayString = "${keycloak.miroir.delai-initial-ms:30000}",
+               fixedDelayString = "${keycloak.miroir.intervalle-ms:300000}")
+    public void synchroniser() {
+        synchronized (verrouSynchronisation) {
+            long debut = System.currentTimeMillis();
+            try {
+                LocalDateTime maintenant = LocalDateTime.now();
+                Map<String, UtilisateurKeycloak> lus = new HashMap<>();
+
+                // 1. Membres directs de chaque rôle realm
+                for (Map<String, Object> role : lister("role_lookup", "/roles?first={first}&max={max}")) {
+                    String nomRole = (String) role.get("name");
+                    if (!estRoleMetier(nomRole)) {
+                        continue;
+                    }
+                    for (Map<String, Object> membre : lister("role_members", "/roles/{role}/users?first={first}&max={max}", nomRole)) {
+                        lire(lus, membre, maintenant).getRoles().add(nomRole.toLowerCase());
+                    }
+                }
+
+                // 2. Membres de chaque groupe : nom du groupe et rôles realm du groupe
+                for (Map<String, Object> groupe : aplatir(lister("group_lookup", "/groups?briefRepresentation=false&first={first}&max={max}"))) {
+                    Set<String> rolesGroupe = rolesDuGroupe(groupe);
+                    for (Map<String, Object> membre : lister("group_members", "/groups/{id}/members?first={first}&max={max}", groupe.get("id"))) {
+                        lire(lus, membre, maintenant).getRoles().addAll(rolesGroupe);
+                    }
+                }
+
+                int[] difference = transactionTemplate.execute(status -> appliquer(lus));
+                alimente = true;
+                logger.info("Miroir Keycloak synchronisé en {} ms: {} utilisateurs, {} ajoutés, {} modifiés, {} supprimés",
+                        System.currentTimeMillis() - debut, lus.size(), difference[0], difference[1], difference[2]);
+            } catch (Exception e) {
+                logger.warn("Synchronisation du miroir Keycloak interrompue: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rafraîchit un utilisateur après une modification de ses rôles ou groupes
+     * (mêmes règles que la synchronisation : rôles realm directs, groupes et rôles de ces groupes)
+     */
+    public void rafraichirUtilisateur(String keycloakId) {
+        if (keycloakId == null) {
+            return;
+        }
+        // Même verrou que la synchronisation complète : une synchronisation en cours n'écrase pas
+        // ce rafraîchissement avec l'état lu avant lui
+        synchronized (verrouSynchronisation) {
+            try {
+                LocalDateTime maintenant = LocalDateTime.now();
+                UtilisateurKeycloak utilisateur = versUtilisateur(lireObjet("user_lookup", "/users/{id}", keycloakId), maintenant);
+
+                for (Map<String, Object> role : lister("role_lookup", "/users/{id}/role-mappings/realm?first={first}&max={max}", keycloakId)) {
+                    String nomRole = (String) role.get("name");
+                    if (estRoleMetier(nomRole)) {
+                        utilisateur.getRoles().add(nomRole.toLowerCase());
+                    }
+                }
+                for (Map<String, Object> groupe : lister("group_lookup", "/users/{id}/groups?briefRepresentation=false&first={first}&max={max}", keycloakId)) {
+                    utilisateur.getRoles().addAll(rolesDuGroupe(groupe));
+                }
+
+                transactionTemplate.executeWithoutResult(status -> enregistrer(utilisateur));
+            } catch (HttpClientErrorException.NotFound e) {
+                transactionTemplate.executeWithoutResult(status -> utilisateurKeycloakRepository.deleteById(keycloakId));
+            } catch (Exception e) {
+                logger.warn("Rafraîchissement du miroir impossible pour {}: {}", keycloakId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Écrit uniquement les différences entre les utilisateurs lus et le miroir
+     * @return [ajoutés, modifiés, supprimés]
+     */
+    private int[] appliquer(Map<String, UtilisateurKeycloak> lus) {
+        Map<String, UtilisateurKeycloak> existants = utilisateurKeycloakRepository.findAllAvecRoles().stream()
+                .collect(Collectors.toMap(UtilisateurKeycloak::getKeycloakId, Function.identity()));
+
+        int ajoutes = 0;
+        int modifies = 0;
+        for (UtilisateurKeycloak lu : lus.values()) {
+            UtilisateurKeycloak existant = existants.remove(lu.getKeycloakId());
+            if (existant == null) {
+                utilisateurKeycloakRepository.save(lu);
+                ajoutes++;
+            } else if (existant.mettreAJour(lu)) {
+                modifies++;
+            }
+        }
+
+        // Utilisateurs supprimés de Keycloak ou n'ayant plus aucun rôle
+        utilisateurKeycloakRepository.deleteAll(existants.values());
+        return new int[]{ajoutes, modifies, existants.size()};
+    }
+
+    private void enregistrer(UtilisateurKeycloak utilisateur) {
+        Optional<UtilisateurKeycloak> existant = utilisateurKeycloakRepository.findById(utilisateur.getKeycloakId());
+        if (utilisateur.getRoles().isEmpty()) {
+            existant.ifPresent(utilisateurKeycloakRepository::delete);
+        } else if (existant.isPresent()) {
+            existant.get().mettreAJour(utilisateur);
+        } else {
+            utilisateurKeycloakRepository.save(utilisateur);
+        }
+    }
+
+    private UtilisateurKeycloak lire(Map<String, UtilisateurKeycloak> lus, Map<String, Object> representation,
+                                     LocalDateTime maintenant) {
+        return lus.computeIfAbsent((String) representation.get("id"), id -> versUtilisateur(representation, maintenant));
+    }
+
+    private UtilisateurKeycloak versUtilisateur(Map<String, Object> representation, LocalDateTime maintenant) {
+        UtilisateurKeycloak utilisateur = new UtilisateurKeycloak((String) representation.get("id"));
+        utilisateur.setEmail((String) representation.get("email"));
+        utilisateur.setUsername((String) representation.get("username"));
+        utilisateur.setPrenom((String) representation.get("firstName"));
+        utilisateur.setNom((String) representation.get("lastName"));
+        utilisateur.setActif(Boolean.TRUE.equals(representation.get("enabled")));
+        utilisateur.setDateSynchronisation(maintenant);
+        return utilisateur;
+    }
+
+    /**
+     * Nom du groupe et rôles realm qui lui sont attribués, en minuscules
+     */
+    private Set<String> rolesDuGroupe(Map<String, Object> groupe) {
+        Set<String> roles = new HashSet<>();
+        roles.add(((String) groupe.get("name")).toLowerCase());
+        if (groupe.get("realmRoles") instanceof List<?> realmRoles) {
+            for (Object role : realmRoles) {
+                if (role instanceof String nomRole && estRoleMetier(nomRole)) {
+                    roles.add(nomRole.toLowerCase());
+                }
+            }
+        }
+        return roles;
+    }
+
+    /**
+     * Groupes et sous-groupes à plat
+     */
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> aplatir(List<Map<String, Object>> groupes) {
+        List<Map<String, Object>> resultat = new ArrayList<>();
+        Deque<Map<String, Object>> aTraiter = new ArrayDeque<>(groupes);
+        while (!aTraiter.isEmpty()) {
+            Map<String, Object> groupe = aTraiter.poll();
+            resultat.add(groupe);
+            if (groupe.get("subGroups") instanceof List<?> sousGroupes) {
+                sousGroupes.forEach(sousGroupe -> aTraiter.add((Map<String, Object>) sousGroupe));
+            }
+        }
+        return resultat;
+    }
+
+    // Mêmes exclusions que KeycloakService.obtenirRolesUtilisateur
+    private boolean estRoleMetier(String nomRole) {
+        return nomRole != null && !nomRole.startsWith("default-")
+                && !nomRole.startsWith("offline_")
+                && !nomRole.equals("uma_authorization");
+    }
+
+    /**
+     * Lit toutes les pages d'une liste de l'API Admin
+     * Les variables first et max sont ajoutées à la suite des variables fournies.
+     */
+    private List<Map<String, Object>> lister(String operation, String chemin, Object... variables) {
+        List<Map<String, Object>> resultat = new ArrayList<>();
+        Object[] variablesPage = Arrays.copyOf(variables, variables.length + 2);
+        variablesPage[variables.length + 1] = taillePage;
+        for (int first = 0; ; first += taillePage) {
+            variablesPage[variables.length] = first;
+            List<Map<String, Object>> page = keycloakHttpClient.executer(operation,
+                    () -> appeler(chemin, LISTE, variablesPage));
+            if (page == null) {
+                break;
+            }
+            resultat.addAll(page);
+            if (page.size() < taillePage) {
+                break;
+            }
+        }
+        return resultat;
+    }
+
+    private Map<String, Object> lireObjet(String operation, String chemin, Object... variables) {
+        return keycloakHttpClient.executer(operation, () -> appeler(chemin, OBJET, variables));
+    }
+
+    private <T> T appeler(String chemin, ParameterizedTypeReference<T> type, Object... variables) {
+        String accessToken = adminTokenProvider.getAccessToken();
+        if (accessToken == null) {
+            throw new IllegalStateException("Token admin Keycloak indisponible");
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+
+        Object[] variablesUrl = new Object[variables.length + 1];
+        variablesUrl[0] = realm;
+        System.arraycopy(variables, 0, variablesUrl, 1, variables.length);
+
+        return restTemplate.exchange(keycloakServerUrl + "/admin/realms/{realm}" + chemin, HttpMethod.GET,
+                new HttpEntity<>(headers), type, variablesUrl).getBody();
+    }
+}
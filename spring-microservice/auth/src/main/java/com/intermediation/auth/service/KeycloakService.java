@@ -20,47 +20,21 @@ public class KeycloakService {
     @Value("${keycloak.realm:realm_picp}")
     private String realm;
 
-    @Value("${keycloak.admin.client-id:admin-cli}")
-    private String adminClientId;
-
-    @Value("${keycloak.admin.username:admin}")
-    private String adminUsername;
-
-    @Value("${keycloak.admin.password:admin}")
-    private String adminPassword;
-
     private final RestTemplate restTemplate;
+    private final KeycloakHttpClient keycloakHttpClient;
+    private final KeycloakAdminTokenProvider adminTokenProvider;
 
-    public KeycloakService() {
-        this.restTemplate = new RestTemplate();
+    public KeycloakService(KeycloakHttpClient keycloakHttpClient, KeycloakAdminTokenProvider adminTokenProvider) {
+        this.restTemplate = keycloakHttpClient.restTemplate();
+        this.keycloakHttpClient = keycloakHttpClient;
+        this.adminTokenProvider = adminTokenProvider;
     }
 
     /**
-     * Obtenir un token d'accès admin pour Keycloak
+     * Obtenir un token d'accès admin pour Keycloak (mis en cache par le fournisseur partagé)
      */
     private String getAdminAccessToken() {
-        String tokenUrl = keycloakServerUrl + "/realms/master/protocol/openid-connect/token";
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-        String body = String.format(
-            "grant_type=password&client_id=%s&username=%s&password=%s",
-            adminClientId, adminUsername, adminPassword
-        );
-
-        HttpEntity<String> request = new HttpEntity<>(body, headers);
-
-        try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(tokenUrl, request, Map.class);
-            if (response.getBody() != null && response.getBody().containsKey("access_token")) {
-                return (String) response.getBody().get("access_token");
-            }
-        } catch (Exception e) {
-            System.err.println("❌ [KEYCLOAK] Erreur lors de l'obtention du token admin: " + e.getMessage());
-        }
-
-        return null;
+        return adminTokenProvider.getAccessToken();
     }
 
     /**
@@ -101,7 +75,7 @@ public class KeycloakService {
 
         try {
             System.out.println("📤 [KEYCLOAK] Création de l'utilisateur: " + email);
-            ResponseEntity<String> response = restTemplate.postForEntity(createUserUrl, request, String.class);
+            ResponseEntity<String> response = keycloakHttpClient.executer("create_user", () -> restTemplate.postForEntity(createUserUrl, request, String.class));
 
             if (response.getStatusCode() == HttpStatus.CREATED) {
                 // Récupérer l'ID de l'utilisateur depuis le header Location
@@ -137,7 +111,7 @@ public class KeycloakService {
         HttpEntity<Void> request = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<List> response = restTemplate.exchange(searchUserUrl, HttpMethod.GET, request, List.class);
+            ResponseEntity<List> response = keycloakHttpClient.executer("user_lookup", () -> restTemplate.exchange(searchUserUrl, HttpMethod.GET, request, List.class));
             return response.getBody() != null && !response.getBody().isEmpty();
         } catch (Exception e) {
             System.err.println("❌ [KEYCLOAK] Erreur lors de la recherche d'utilisateur: " + e.getMessage());
@@ -163,7 +137,7 @@ public class KeycloakService {
         HttpEntity<String> request = new HttpEntity<>(body, headers);
 
         try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(tokenUrl, request, Map.class);
+            ResponseEntity<Map> response = keycloakHttpClient.executer("validate_credentials", () -> restTemplate.postForEntity(tokenUrl, request, Map.class));
             return response.getStatusCode() == HttpStatus.OK && response.getBody() != null;
         } catch (Exception e) {
             System.out.println("⚠️ [KEYCLOAK] Validation échouée pour: " + email);
@@ -189,7 +163,7 @@ public class KeycloakService {
         HttpEntity<Void> request = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<List> response = restTemplate.exchange(searchUserUrl, HttpMethod.GET, request, List.class);
+            ResponseEntity<List> response = keycloakHttpClient.executer("user_lookup", () -> restTemplate.exchange(searchUserUrl, HttpMethod.GET, request, List.class));
             if (response.getBody() != null && !response.getBody().isEmpty()) {
                 Map<String, Object> user = (Map<String, Object>) response.getBody().get(0);
                 return (String) user.get("id");
@@ -232,12 +206,12 @@ public class KeycloakService {
 
         try {
             System.out.println("[KEYCLOAK] Mise à jour emailVerified=" + emailVerifie + " pour: " + email);
-            ResponseEntity<String> response = restTemplate.exchange(
+            ResponseEntity<String> response = keycloakHttpClient.executer("update_user", () -> restTemplate.exchange(
                 updateUserUrl,
                 HttpMethod.PUT,
                 request,
                 String.class
-            );
+            ));
 
             if (response.getStatusCode() == HttpStatus.NO_CONTENT) {
                 System.out.println("[KEYCLOAK] emailVerified mis à jour avec succès pour: " + email);
@@ -284,12 +258,12 @@ public class KeycloakService {
 
         try {
             System.out.println("🔐 [KEYCLOAK] Changement de mot de passe pour: " + email);
-            ResponseEntity<String> response = restTemplate.exchange(
+            ResponseEntity<String> response = keycloakHttpClient.executer("reset_password", () -> restTemplate.exchange(
                 resetPasswordUrl,
                 HttpMethod.PUT,
                 request,
                 String.class
-            );
+            ));
 
             if (response.getStatusCode() == HttpStatus.NO_CONTENT) {
                 System.out.println("✅ [KEYCLOAK] Mot de passe changé avec succès pour: " + email);
@@ -332,7 +306,7 @@ public class KeycloakService {
         HttpEntity<Void> request = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<List> response = restTemplate.exchange(realmRolesUrl, HttpMethod.GET, request, List.class);
+            ResponseEntity<List> response = keycloakHttpClient.executer("role_lookup", () -> restTemplate.exchange(realmRolesUrl, HttpMethod.GET, request, List.class));
             if (response.getBody() != null) {
                 for (Object roleObj : response.getBody()) {
                     if (roleObj instanceof Map) {
@@ -373,7 +347,7 @@ public class KeycloakService {
             headers.setBearerAuth(accessToken);
             HttpEntity<Void> request = new HttpEntity<>(headers);
 
-            ResponseEntity<List> response = restTemplate.exchange(searchUrl, HttpMethod.GET, request, List.class);
+            ResponseEntity<List> response = keycloakHttpClient.executer("user_lookup", () -> restTemplate.exchange(searchUrl, HttpMethod.GET, request, List.class));
 
             if (response.getBody() != null && !response.getBody().isEmpty()) {
                 Map<String, Object> user = (Map<String, Object>) response.getBody().get(0);
@@ -413,12 +387,12 @@ public class KeycloakService {
             headers.setBearerAuth(accessToken);
             HttpEntity<Void> requestRoles = new HttpEntity<>(headers);
 
-            ResponseEntity<List> responseRoles = restTemplate.exchange(
+            ResponseEntity<List> responseRoles = keycloakHttpClient.executer("role_lookup", () -> restTemplate.exchange(
                 rolesDisponiblesUrl,
                 HttpMethod.GET,
                 requestRoles,
                 List.class
-            );
+            ));
 
             if (responseRoles.getBody() == null) {
                 System.err.println("❌ [KEYCLOAK] Impossible de récupérer les rôles disponibles");
@@ -455,12 +429,12 @@ public class KeycloakService {
             HttpEntity<List<Map<String, Object>>> requestAttribution =
                 new HttpEntity<>(rolesAAttribuer, headersAttribution);
 
-            ResponseEntity<String> responseAttribution = restTemplate.exchange(
+            ResponseEntity<String> responseAttribution = keycloakHttpClient.executer("role_assignment", () -> restTemplate.exchange(
                 attribuerRolesUrl,
                 HttpMethod.POST,
                 requestAttribution,
                 String.class
-            );
+            ));
 
             if (responseAttribution.getStatusCode() == HttpStatus.NO_CONTENT) {
                 System.out.println("✅ [KEYCLOAK] Rôles attribués avec succès: " + roles);
@@ -492,7 +466,7 @@ public class KeycloakService {
             headers.setBearerAuth(accessToken);
             HttpEntity<Void> request = new HttpEntity<>(headers);
 
-            ResponseEntity<List> response = restTemplate.exchange(groupesUrl, HttpMethod.GET, request, List.class);
+            ResponseEntity<List> response = keycloakHttpClient.executer("group_lookup", () -> restTemplate.exchange(groupesUrl, HttpMethod.GET, request, List.class));
 
             if (response.getBody() != null && !response.getBody().isEmpty()) {
                 for (Object groupeObj : response.getBody()) {
@@ -543,12 +517,12 @@ public class KeycloakService {
                 headers.setBearerAuth(accessToken);
                 HttpEntity<Void> request = new HttpEntity<>(headers);
 
-                ResponseEntity<String> response = restTemplate.exchange(
+                ResponseEntity<String> response = keycloakHttpClient.executer("group_assignment", () -> restTemplate.exchange(
                     ajouterGroupeUrl,
                     HttpMethod.PUT,
                     request,
                     String.class
-                );
+                ));
 
                 if (response.getStatusCode() == HttpStatus.NO_CONTENT) {
                     System.out.println("✅ [KEYCLOAK] Utilisateur ajouté au groupe: " + nomGroupe);
@@ -595,12 +569,12 @@ public class KeycloakService {
             headers.setBearerAuth(accessToken);
             HttpEntity<Void> request = new HttpEntity<>(headers);
 
-            ResponseEntity<String> response = restTemplate.exchange(
+            ResponseEntity<String> response = keycloakHttpClient.executer("group_removal", () -> restTemplate.exchange(
                 retirerGroupeUrl,
                 HttpMethod.DELETE,
                 request,
                 String.class
-            );
+            ));
 
             if (response.getStatusCode() == HttpStatus.NO_CONTENT) {
                 System.out.println("✅ [KEYCLOAK] Utilisateur retiré du groupe: " + nomGroupe);
@@ -0,0 +1,459 @@
+package com.intermediation.auth.service;
+
+import com.intermediation.auth.model.Photo;
+import com.intermediation.auth.model.PhotoVariante;
+import com.intermediation.auth.model.Utilisateur;
+import com.intermediation.auth.repository.PhotoRepository;
+import com.intermediation.auth.repository.PhotoVarianteRepository;
+import com.intermediation.auth.repository.UtilisateurRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stockage des photos de profil dans la table photos, adressées par empreinte SHA-256
+ * Les lectures de profil ne manipulent que l'empreinte ; les octets ne sont chargés
+ * que pour servir l'image.
+ *
+ * Des variantes redimensionnées (64, 200 et 512 px) sont générées à l'upload, en JPEG
+ * (PNG si l'image a de la transparence), pour que les avatars ne téléchargent pas l'original.
+ * Les dimensions sont lues avant tout décodage (une image trop grande est refusée) et
+ * l'orientation EXIF est appliquée aux variantes. Les photos antérieures aux variantes sont
+ * complétées par une tâche de fond, jamais pendant la lecture d'une photo.
+ */
+@Service
+public class PhotoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoService.class);
+
+    // Tailles des variantes (plus grand côté, en pixels)
+    static final int[] TAILLES_VARIANTES = {64, 200, 512};
+
+    // Taille conventionnelle de la photo originale
+    public static final int TAILLE_ORIGINALE = 0;
+
+    private static final float QUALITE_JPEG = 0.82f;
+
+    // Dimensions maximales acceptées avant décodage (protège des images à dimensions déclarées démesurées)
+    static final int COTE_MAX = 10_000;
+    static final long PIXELS_MAX = 40_000_000L;
+
+    // Photos complétées par passage de la tâche de fond
+    private static final int TAILLE_LOT_VARIANTES = 20;
+
+    private final PhotoRepository photoRepository;
+    private final PhotoVarianteRepository photoVarianteRepository;
+    private final UtilisateurRepository utilisateurRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public PhotoService(PhotoRepository photoRepository, PhotoVarianteRepository photoVarianteRepository,
+                        UtilisateurRepository utilisateurRepository, PlatformTransactionManager transactionManager) {
+        this.photoRepository = photoRepository;
+        this.photoVarianteRepository = photoVarianteRepository;
+        this.utilisateurRepository = utilisateurRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Associe une nouvelle photo à l'utilisateur (l'URL externe éventuelle est effacée)
+     * @throws IllegalArgumentException si les dimensions de l'image dépassent les limites
+     */
+    @Transactional
+    public void remplacerPhoto(Utilisateur utilisateur, byte[] donnees, String contentType) throws IOException {
+        verifierDimensions(donnees);
+        String hash = calculerHash(donnees);
+        if (!photoRepository.existsById(hash)) {
+            Photo photo = new Photo(hash, donnees, contentType);
+            List<PhotoVariante> variantes = genererVariantes(photo);
+            photo.setVariantesGenerees(true);
+            photoRepository.saveAndFlush(photo);
+            photoVarianteRepository.saveAll(variantes);
+        }
+
+        String ancienHash = utilisateur.getPhotoHash();
+        utilisateur.setPhotoHash(hash);
+        utilisateur.setPhotoUrl(null);
+        utilisateurRepository.save(utilisateur);
+
+        if (!hash.equals(ancienHash)) {
+            supprimerSiOrpheline(ancienHash);
+        }
+    }
+
+    /**
+     * Retire la photo (uploadée et URL externe) de l'utilisateur
+     */
+    @Transactional
+    public void supprimerPhoto(Utilisateur utilisateur) {
+        String ancienHash = utilisateur.getPhotoHash();
+        utilisateur.setPhotoHash(null);
+        utilisateur.setPhotoUrl(null);
+        utilisateurRepository.save(utilisateur);
+
+        supprimerSiOrpheline(ancienHash);
+    }
+
+    /**
+     * Choisit la taille à servir sans charger d'image : la plus petite variante couvrant
+     * la taille demandée, sinon l'original (TAILLE_ORIGINALE)
+     * Tant que ses variantes ne sont pas générées (voir {@link #genererVariantesManquantes()}),
+     * une photo est servie en original.
+     * @return vide si la photo n'existe pas
+     */
+    @Transactional(readOnly = true)
+    public Optional<Integer> choisirTaille(String hash, Integer tailleDemandee) {
+        if (hash == null) {
+            return Optional.empty();
+        }
+        Optional<Boolean> variantesGenerees = photoRepository.findVariantesGenereesByHash(hash);
+        if (variantesGenerees.isEmpty()) {
+            return Optional.empty();
+        }
+        if (tailleDemandee == null || tailleDemandee <= 0 || !variantesGenerees.get()) {
+            return Optional.of(TAILLE_ORIGINALE);
+        }
+
+        for (Integer taille : photoVarianteRepository.findTaillesByHash(hash)) {
+            if (taille >= tailleDemandee) {
+                return Optional.of(taille);
+            }
+        }
+        return Optional.of(TAILLE_ORIGINALE);
+    }
+
+    /**
+     * Contenu de la photo à la taille choisie par {@link #choisirTaille(String, Integer)}
+     */
+    @Transactional(readOnly = true)
+    public Optional<ContenuPhoto> getContenu(String hash, int taille) {
+        if (taille == TAILLE_ORIGINALE) {
+            return photoRepository.findById(hash)
+                    .map(photo -> new ContenuPhoto(photo.getDonnees(), photo.getContentType()));
+        }
+        return photoVarianteRepository.findById(new PhotoVariante.Cle(hash, taille))
+                .map(variante -> new ContenuPhoto(variante.getDonnees(), variante.getContentType()));
+    }
+
+    /**
+     * Génère les variantes des photos qui n'en ont pas encore (photos antérieures au redimensionnement)
+     * Une transaction par photo ; l'insertion ignore les variantes déjà présentes, ce qui rend
+     * la tâche sûre si plusieurs instances la lancent en même temps.
+     */
+    @Scheduled(initialDelayString = "${photos.variantes.delai-initial-ms:60000}",
+               fixedDelayString = "${photos.variantes.intervalle-ms:300000}")
+    public void genererVariantesManquantes() {
+        List<String> hashes = photoRepository.findHashesSansVariantes(PageRequest.of(0, TAILLE_LOT_VARIANTES));
+        int generees = 0;
+        for (String hash : hashes) {
+            try {
+                Integer nombre = transactionTemplate.execute(status -> photoRepository.findById(hash)
+                        .map(photo -> {
+                            List<PhotoVariante> variantes = genererVariantes(photo);
+                            variantes.forEach(v -> photoVarianteRepository.insererSiAbsente(
+                                    v.getHash(), v.getTaille(), v.getDonnees(), v.getContentType()));
+                            photoRepository.marquerVariantesGenerees(hash);
+                            return variantes.size();
+                        })
+                        .orElse(0));
+                generees += nombre != null ? nombre : 0;
+            } catch (Exception e) {
+                logger.warn("Variantes non générées pour la photo {}: {}", hash, e.getMessage());
+            }
+        }
+        if (!hashes.isEmpty()) {
+            logger.info("Variantes générées pour {} photo(s) existante(s): {} variante(s)", hashes.size(), generees);
+        }
+    }
+
+    /**
+     * Supprime une photo qui n'est plus référencée par aucun utilisateur (variantes comprises)
+     */
+    private void supprimerSiOrpheline(String hash) {
+        if (hash == null) {
+            return;
+        }
+        utilisateurRepository.flush();
+        if (!utilisateurRepository.existsByPhotoHash(hash)) {
+            photoRepository.deleteById(hash);
+        }
+    }
+
+    /**
+     * Génère les variantes plus petites que l'original ; un format non décodable par ImageIO
+     * (WebP par exemple) ou une image trop grande n'a pas de variantes et l'original est alors servi
+     */
+    private List<PhotoVariante> genererVariantes(Photo photo) {
+        List<PhotoVariante> variantes = new ArrayList<>();
+        try {
+            BufferedImage source = decoder(photo.getDonnees());
+            if (source != null) {
+                source = orienter(source, lireOrientation(photo.getDonnees()));
+                boolean transparence = source.getColorModel().hasAlpha();
+                int coteMax = Math.max(source.getWidth(), source.getHeight());
+                for (int taille : TAILLES_VARIANTES) {
+                    // Pas d'agrandissement
+                    if (taille >= coteMax) {
+                        break;
+                    }
+                    BufferedImage image = redimensionner(source, taille, transparence);
+                    variantes.add(transparence
+                            ? new PhotoVariante(photo.getHash(), taille, encoderPng(image), "image/png")
+                            : new PhotoVariante(photo.getHash(), taille, encoderJpeg(image), "image/jpeg"));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Variantes non générées pour la photo {}: {}", photo.getHash(), e.getMessage());
+            variantes.clear();
+        }
+        return variantes;
+    }
+
+    /**
+     * Refuse une image dont les dimensions déclarées dépassent les limites (sans la décoder)
+     * Un format qu'ImageIO ne sait pas lire n'est pas vérifié : il ne sera jamais décodé.
+     */
+    private void verifierDimensions(byte[] donnees) throws IOException {
+        try (ImageInputStream flux = ImageIO.createImageInputStream(new ByteArrayInputStream(donnees))) {
+            ImageReader lecteur = lecteur(flux);
+            if (lecteur != null) {
+                lecteur.dispose();
+            }
+        }
+    }
+
+    /**
+     * Décode l'image après vérification de ses dimensions
+     * @return null si le format n'est pas lisible par ImageIO
+     * @throws IllegalArgumentException si les dimensions dépassent les limites
+     */
+    private BufferedImage decoder(byte[] donnees) throws IOException {
+        try (ImageInputStream flux = ImageIO.createImageInputStream(new ByteArrayInputStream(donnees))) {
+            ImageReader lecteur = lecteur(flux);
+            if (lecteur == null) {
+                return null;
+            }
+            try {
+                return lecteur.read(0);
+            } finally {
+                lecteur.dispose();
+            }
+        }
+    }
+
+    /**
+     * Lecteur ImageIO positionné sur le flux, après contrôle des dimensions déclarées dans l'en-tête
+     */
+    private ImageReader lecteur(ImageInputStream flux) throws IOException {
+        if (flux == null) {
+            return null;
+        }
+        Iterator<ImageReader> lecteurs = ImageIO.getImageReaders(flux);
+        if (!lecteurs.hasNext()) {
+            return null;
+        }
+        ImageReader lecteur = lecteurs.next();
+        lecteur.setInput(flux, true, true);
+        int largeur = lecteur.getWidth(0);
+        int hauteur = lecteur.getHeight(0);
+        if (largeur > COTE_MAX || hauteur > COTE_MAX || (long) largeur * hauteur > PIXELS_MAX) {
+            lecteur.dispose();
+            throw new IllegalArgumentException("Image trop grande (" + largeur + "x" + hauteur
+                    + " pixels, max " + COTE_MAX + " px de côté et " + PIXELS_MAX / 1_000_000 + " Mpx)");
+        }
+        return lecteur;
+    }
+
+    /**
+     * Orientation EXIF (tag 0x0112) d'un JPEG, 1 (normale) si absente ou illisible
+     */
+    static int lireOrientation(byte[] donnees) {
+        if (donnees.length < 4 || (donnees[0] & 0xFF) != 0xFF || (donnees[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        int position = 2;
+        while (position + 4 <= donnees.length && (donnees[position] & 0xFF) == 0xFF) {
+            int marqueur = donnees[position + 1] & 0xFF;
+            // Début des données d'image ou fin de fichier : pas d'EXIF
+            if (marqueur == 0xDA || marqueur == 0xD9) {
+                return 1;
+            }
+            int longueur = lire16(donnees, position + 2, false);
+            if (marqueur == 0xE1 && position + 10 <= donnees.length
+                    && new String(donnees, position + 4, 6, StandardCharsets.ISO_8859_1).equals("Exif\0\0")) {
+                return orientationTiff(donnees, position + 10, Math.min(donnees.length, position + 2 + longueur));
+            }
+            position += 2 + longueur;
+        }
+        return 1;
+    }
+
+    private static int orientationTiff(byte[] donnees, int debut, int fin) {
+        if (debut + 8 > fin) {
+            return 1;
+        }
+        boolean petitBoutiste = donnees[debut] == 'I' && donnees[debut + 1] == 'I';
+        if (!petitBoutiste && !(donnees[debut] == 'M' && donnees[debut + 1] == 'M')) {
+            return 1;
+        }
+        // Décalage du premier répertoire (IFD0), sur 32 bits depuis le début de l'en-tête TIFF
+        long poidsFort = lire16(donnees, debut + (petitBoutiste ? 6 : 4), petitBoutiste);
+        long poidsFaible = lire16(donnees, debut + (petitBoutiste ? 4 : 6), petitBoutiste);
+        long decalage = (poidsFort << 16) | poidsFaible;
+        if (decalage < 8 || debut + decalage + 2 > fin) {
+            return 1;
+        }
+        int repertoire = debut + (int) decalage;
+        int entrees = lire16(donnees, repertoire, petitBoutiste);
+        for (int i = 0; i < entrees; i++) {
+            int entree = repertoire + 2 + i * 12;
+            if (entree + 12 > fin) {
+                break;
+            }
+            if (lire16(donnees, entree, petitBoutiste) == 0x0112) {
+                int orientation = lire16(donnees, entree + 8, petitBoutiste);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int lire16(byte[] donnees, int position, boolean petitBoutiste) {
+        int premier = donnees[position] & 0xFF;
+        int second = donnees[position + 1] & 0xFF;
+        return petitBoutiste ? (second << 8) | premier : (premier << 8) | second;
+    }
+
+    /**
+     * Applique l'orientation EXIF (retournements et rotations) pour obtenir l'image telle qu'affichée
+     */
+    private BufferedImage orienter(BufferedImage source, int orientation) {
+        if (orientation <= 1) {
+            return source;
+        }
+        int largeur = source.getWidth();
+        int hauteur = source.getHeight();
+        // Matrices (m00, m10, m01, m11, m02, m12) des orientations 2 à 8
+        AffineTransform transformation = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, largeur, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, largeur, hauteur);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, hauteur);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, hauteur, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, hauteur, largeur);
+            default -> new AffineTransform(0, -1, 1, 0, 0, largeur);
+        };
+        boolean transpose = orientation >= 5;
+        BufferedImage orientee = new BufferedImage(transpose ? hauteur : largeur, transpose ? largeur : hauteur,
+                source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = orientee.createGraphics();
+        graphics.drawImage(source, transformation, null);
+        graphics.dispose();
+        return orientee;
+    }
+
+    /**
+     * Réduit l'image par moitiés successives puis à la taille cible (meilleur rendu
+     * qu'une seule interpolation bilinéaire sur un grand facteur)
+     */
+    private BufferedImage redimensionner(BufferedImage source, int taille, boolean transparence) {
+        double ratio = (double) taille / Math.max(source.getWidth(), source.getHeight());
+        int largeurCible = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int hauteurCible = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage courante = source;
+        int largeur = source.getWidth();
+        int hauteur = source.getHeight();
+        do {
+            largeur = Math.max(largeurCible, largeur / 2);
+            hauteur = Math.max(hauteurCible, hauteur / 2);
+            BufferedImage etape = new BufferedImage(largeur, hauteur,
+                    transparence ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = etape.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(courante, 0, 0, largeur, hauteur, null);
+            graphics.dispose();
+            courante = etape;
+        } while (largeur != largeurCible || hauteur != hauteurCible);
+
+        return courante;
+    }
+
+    private byte[] encoderJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        try (ImageOutputStream flux = ImageIO.createImageOutputStream(sortie)) {
+            writer.setOutput(flux);
+            ImageWriteParam parametres = writer.getDefaultWriteParam();
+            parametres.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametres.setCompressionQuality(QUALITE_JPEG);
+            writer.write(null, new IIOImage(image, null, null), parametres);
+        } finally {
+            writer.dispose();
+        }
+        return sortie.toByteArray();
+    }
+
+    private byte[] encoderPng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", sortie);
+        return sortie.toByteArray();
+    }
+
+    static String calculerHash(byte[] donnees) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(donnees));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    /**
+     * Octets et type MIME d'une photo ou d'une variante
+     */
+    public static class ContenuPhoto {
+        private final byte[] donnees;
+        private final String contentType;
+
+        public ContenuPhoto(byte[] donnees, String contentType) {
+            this.donnees = donnees;
+            this.contentType = contentType;
+        }
+
+        public byte[] getDonnees() {
+            return donnees;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+}
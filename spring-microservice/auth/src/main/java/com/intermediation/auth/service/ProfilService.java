@@ -2,13 +2,21 @@ package com.intermediation.auth.service;
 
 import com.intermediation.auth.dto.ProfilCompletDTO;
 import com.intermediation.auth.dto.UpdateProfilRequest;
+import com.intermediation.auth.dto.UtilisateurPublicDTO;
 import com.intermediation.auth.model.TypePersonne;
 import com.intermediation.auth.model.Utilisateur;
 import com.intermediation.auth.repository.UtilisateurRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Service pour gérer le profil utilisateur
@@ -16,12 +24,63 @@ import java.util.Optional;
 @Service
 public class ProfilService {
 
+    // Nombre maximal d'identifiants par appel à getUtilisateursPublics
+    public static final int TAILLE_MAX_LOT_PUBLIC = 500;
+
     private final UtilisateurRepository utilisateurRepository;
 
     public ProfilService(UtilisateurRepository utilisateurRepository) {
         this.utilisateurRepository = utilisateurRepository;
     }
 
+    /**
+     * Récupère les informations publiques d'un lot d'utilisateurs en une seule requête.
+     * Chaque identifiant est cherché par keycloakId puis par ID JPA (rétrocompatibilité).
+     * @param ids identifiants demandés (au plus TAILLE_MAX_LOT_PUBLIC)
+     * @return informations publiques indexées par identifiant demandé (les inconnus sont absents)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, UtilisateurPublicDTO> getUtilisateursPublics(Collection<String> ids) {
+        Set<String> idsDemandes = ids.stream()
+                .filter(id -> id != null && !id.isBlank())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (idsDemandes.size() > TAILLE_MAX_LOT_PUBLIC) {
+            throw new IllegalArgumentException("Lot trop volumineux (maximum " + TAILLE_MAX_LOT_PUBLIC + " identifiants)");
+        }
+
+        Map<String, UtilisateurPublicDTO> parKeycloakId = new HashMap<>();
+        Map<String, UtilisateurPublicDTO> parId = new HashMap<>();
+        if (!idsDemandes.isEmpty()) {
+            for (Object[] ligne : utilisateurRepository.findInfosPubliquesByKeycloakIdOrIdIn(idsDemandes)) {
+                String id = (String) ligne[0];
+                String keycloakId = (String) ligne[1];
+
+                UtilisateurPublicDTO dto = new UtilisateurPublicDTO();
+                dto.setId(keycloakId != null ? keycloakId : id);
+                dto.setNom((String) ligne[2]);
+                dto.setPrenom((String) ligne[3]);
+                dto.setPhotoUrl((String) ligne[4]);
+                dto.setTypePersonne((TypePersonne) ligne[5]);
+                dto.setHasPhoto(Boolean.TRUE.equals(ligne[6]));
+
+                parId.put(id, dto);
+                if (keycloakId != null) {
+                    parKeycloakId.put(keycloakId, dto);
+                }
+            }
+        }
+
+        // Même priorité que l'endpoint unitaire : keycloakId d'abord, puis ID JPA
+        Map<String, UtilisateurPublicDTO> resultat = new LinkedHashMap<>();
+        for (String id : idsDemandes) {
+            UtilisateurPublicDTO dto = parKeycloakId.getOrDefault(id, parId.get(id));
+            if (dto != null) {
+                resultat.put(id, dto);
+            }
+        }
+        return resultat;
+    }
+
     /**
      * Récupère le profil complet d'un utilisateur par son email
      */
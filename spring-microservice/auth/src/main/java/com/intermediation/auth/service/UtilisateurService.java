@@ -1,6 +1,7 @@
 package com.intermediation.auth.service;
 
 import com.intermediation.auth.dto.UtilisateurDTO;
+import com.intermediation.auth.model.UtilisateurKeycloak;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,6 +13,7 @@ import org.springframework.web.client.RestTemplate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -28,25 +30,33 @@ public class UtilisateurService {
     @Value("${keycloak.realm:realm_picp}")
     private String realm;
 
-    @Value("${keycloak.admin.username:admin}")
-    private String adminUsername;
-
-    @Value("${keycloak.admin.password:admin}")
-    private String adminPassword;
-
     private final RestTemplate restTemplate;
-
-    public UtilisateurService() {
-        this.restTemplate = new RestTemplate();
+    private final KeycloakHttpClient keycloakHttpClient;
+    private final KeycloakAdminTokenProvider adminTokenProvider;
+    private final KeycloakMiroirService keycloakMiroirService;
+
+    public UtilisateurService(KeycloakHttpClient keycloakHttpClient, KeycloakAdminTokenProvider adminTokenProvider,
+                              KeycloakMiroirService keycloakMiroirService) {
+        this.restTemplate = keycloakHttpClient.restTemplate();
+        this.keycloakHttpClient = keycloakHttpClient;
+        this.adminTokenProvider = adminTokenProvider;
+        this.keycloakMiroirService = keycloakMiroirService;
     }
 
     /**
      * Récupérer les utilisateurs ayant un rôle spécifique (incluant ceux qui héritent via un groupe)
-     * Stratégie: chercher d'abord un groupe portant le nom du rôle
+     * Servi par le miroir local dès qu'il est alimenté, sinon directement par Keycloak
+     * Stratégie Keycloak: chercher d'abord un groupe portant le nom du rôle
      */
     public List<UtilisateurDTO> getUtilisateursByRole(String roleName) {
         logger.info("Récupération des utilisateurs avec le rôle: {}", roleName);
 
+        if (keycloakMiroirService.estAlimente()) {
+            return keycloakMiroirService.getUtilisateursParRole(roleName).stream()
+                    .map(this::mapToUtilisateurDTO)
+                    .collect(Collectors.toList());
+        }
+
         try {
             // 1. Obtenir un token admin
             String adminToken = getAdminToken();
@@ -79,6 +89,11 @@ public class UtilisateurService {
     public UtilisateurDTO getUtilisateurById(String userId) {
         logger.info("Récupération de l'utilisateur avec ID: {}", userId);
 
+        Optional<UtilisateurKeycloak> miroir = keycloakMiroirService.getUtilisateur(userId);
+        if (miroir.isPresent()) {
+            return mapToUtilisateurDTO(miroir.get());
+        }
+
         try {
             // 1. Obtenir un token admin
             String adminToken = getAdminToken();
@@ -93,12 +108,12 @@ public class UtilisateurService {
 
             HttpEntity<String> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+            ResponseEntity<Map<String, Object>> response = keycloakHttpClient.executer("user_lookup", () -> restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     entity,
                     new ParameterizedTypeReference<Map<String, Object>>() {}
-            );
+            ));
 
             if (response.getBody() != null) {
                 UtilisateurDTO utilisateur = mapToUtilisateurDTO(response.getBody());
@@ -135,12 +150,12 @@ public class UtilisateurService {
 
             HttpEntity<String> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
+            ResponseEntity<List<Map<String, Object>>> response = keycloakHttpClient.executer("group_members", () -> restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     entity,
                     new ParameterizedTypeReference<List<Map<String, Object>>>() {}
-            );
+            ));
 
             if (response.getBody() != null) {
                 return response.getBody().stream()
@@ -176,12 +191,12 @@ public class UtilisateurService {
 
             HttpEntity<String> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
+            ResponseEntity<List<Map<String, Object>>> response = keycloakHttpClient.executer("role_members", () -> restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     entity,
                     new ParameterizedTypeReference<List<Map<String, Object>>>() {}
-            );
+            ));
 
             if (response.getBody() != null) {
                 return response.getBody().stream()
@@ -208,12 +223,12 @@ public class UtilisateurService {
         HttpEntity<String> entity = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
+            ResponseEntity<List<Map<String, Object>>> response = keycloakHttpClient.executer("group_lookup", () -> restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     entity,
                     new ParameterizedTypeReference<List<Map<String, Object>>>() {}
-            );
+            ));
 
             if (response.getBody() != null && !response.getBody().isEmpty()) {
                 // Chercher le groupe avec le nom exact
@@ -233,34 +248,14 @@ public class UtilisateurService {
 
     /**
      * Obtenir un token admin pour accéder à l'API Admin de Keycloak
-     * Utilise le client admin-cli avec username/password
+     * Le token est partagé et renouvelé avant expiration par KeycloakAdminTokenProvider
      */
     private String getAdminToken() {
-        // Pour admin-cli, on utilise le realm master
-        String tokenUrl = String.format("%s/realms/master/protocol/openid-connect/token",
-                keycloakServerUrl);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-        String body = String.format(
-                "grant_type=password&client_id=admin-cli&username=%s&password=%s",
-                adminUsername, adminPassword
-        );
-
-        HttpEntity<String> entity = new HttpEntity<>(body, headers);
-
-        try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(tokenUrl, entity, Map.class);
-            if (response.getBody() != null && response.getBody().containsKey("access_token")) {
-                return (String) response.getBody().get("access_token");
-            }
-        } catch (Exception e) {
-            logger.error("Erreur lors de l'obtention du token admin: {}", e.getMessage());
-            throw new RuntimeException("Impossible d'obtenir le token admin Keycloak", e);
+        String token = adminTokenProvider.getAccessToken();
+        if (token == null) {
+            throw new RuntimeException("Impossible d'obtenir le token admin Keycloak");
         }
-
-        throw new RuntimeException("Token admin non disponible");
+        return token;
     }
 
     /**
@@ -276,12 +271,12 @@ public class UtilisateurService {
         HttpEntity<String> entity = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<Map> response = keycloakHttpClient.executer("role_lookup", () -> restTemplate.exchange(
                     url,
                     HttpMethod.GET,
                     entity,
                     Map.class
-            );
+            ));
 
             if (response.getBody() != null && response.getBody().containsKey("id")) {
                 return (String) response.getBody().get("id");
@@ -293,6 +288,20 @@ public class UtilisateurService {
         return null;
     }
 
+    /**
+     * Mapper un utilisateur du miroir local vers UtilisateurDTO
+     */
+    private UtilisateurDTO mapToUtilisateurDTO(UtilisateurKeycloak utilisateur) {
+        UtilisateurDTO dto = new UtilisateurDTO();
+        dto.setId(utilisateur.getKeycloakId());
+        dto.setUsername(utilisateur.getUsername());
+        dto.setEmail(utilisateur.getEmail());
+        dto.setEnabled(Boolean.TRUE.equals(utilisateur.getActif()));
+        dto.setPrenom(utilisateur.getPrenom());
+        dto.setNom(utilisateur.getNom());
+        return completerNom(dto);
+    }
+
     /**
      * Mapper les données Keycloak vers UtilisateurDTO
      */
@@ -311,6 +320,10 @@ public class UtilisateurService {
             dto.setNom((String) keycloakUser.get("lastName"));
         }
 
+        return completerNom(dto);
+    }
+
+    private UtilisateurDTO completerNom(UtilisateurDTO dto) {
         // Si pas de nom/prenom, utiliser l'email
         if (dto.getNom() == null || dto.getNom().isEmpty()) {
             String email = dto.getEmail();
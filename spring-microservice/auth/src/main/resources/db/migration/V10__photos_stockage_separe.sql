@@ -0,0 +1,31 @@
+-- Migration V10: Stockage des photos de profil hors de la table utilisateurs
+-- Les images sont adressées par leur empreinte SHA-256 : une lecture de profil
+-- ne charge plus jamais les octets de la photo
+
+CREATE TABLE IF NOT EXISTS photos (
+    hash VARCHAR(64) PRIMARY KEY,
+    donnees BYTEA NOT NULL,
+    content_type VARCHAR(100) NOT NULL,
+    taille INTEGER NOT NULL,
+    date_creation TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE utilisateurs ADD COLUMN IF NOT EXISTS photo_hash VARCHAR(64) REFERENCES photos(hash);
+
+CREATE INDEX IF NOT EXISTS idx_utilisateurs_photo_hash ON utilisateurs(photo_hash);
+
+-- Reprise des photos existantes (une seule ligne par contenu identique)
+INSERT INTO photos (hash, donnees, content_type, taille)
+SELECT DISTINCT ON (encode(sha256(photo_data), 'hex'))
+       encode(sha256(photo_data), 'hex'), photo_data, COALESCE(photo_content_type, 'image/jpeg'), length(photo_data)
+FROM utilisateurs
+WHERE photo_data IS NOT NULL AND length(photo_data) > 0
+ON CONFLICT (hash) DO NOTHING;
+
+UPDATE utilisateurs SET photo_hash = encode(sha256(photo_data), 'hex')
+WHERE photo_data IS NOT NULL AND length(photo_data) > 0;
+
+ALTER TABLE utilisateurs DROP COLUMN IF EXISTS photo_data;
+ALTER TABLE utilisateurs DROP COLUMN IF EXISTS photo_content_type;
+
+COMMENT ON COLUMN utilisateurs.photo_hash IS 'Empreinte SHA-256 de la photo de profil (table photos)';
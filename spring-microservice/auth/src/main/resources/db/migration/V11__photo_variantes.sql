@@ -0,0 +1,14 @@
+-- Migration V11: Variantes redimensionnées des photos de profil (64, 200 et 512 px)
+-- Générées à l'upload ; pour les photos existantes (variantes_generees = FALSE), une tâche planifiée
+-- les génère en arrière-plan, et l'original est servi en attendant.
+-- Servies via le paramètre size de l'endpoint photo
+
+ALTER TABLE photos ADD COLUMN IF NOT EXISTS variantes_generees BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE TABLE IF NOT EXISTS photo_variantes (
+    hash VARCHAR(64) NOT NULL REFERENCES photos(hash) ON DELETE CASCADE,
+    taille INTEGER NOT NULL,
+    donnees BYTEA NOT NULL,
+    content_type VARCHAR(100) NOT NULL,
+    PRIMARY KEY (hash, taille)
+);
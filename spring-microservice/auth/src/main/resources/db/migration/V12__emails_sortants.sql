@@ -0,0 +1,23 @@
+-- Migration V12: File d'envoi des emails (outbox)
+-- Les emails sont enregistrés dans la transaction métier (inscription, vérification)
+-- puis envoyés en arrière-plan par lots, avec nouvelles tentatives espacées
+
+CREATE TABLE IF NOT EXISTS emails_sortants (
+    id BIGSERIAL PRIMARY KEY,
+    destinataire VARCHAR(255) NOT NULL,
+    sujet VARCHAR(500) NOT NULL,
+    contenu_html TEXT NOT NULL,
+    statut VARCHAR(20) NOT NULL DEFAULT 'EN_ATTENTE',
+    tentatives INTEGER NOT NULL DEFAULT 0,
+    prochaine_tentative TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    derniere_erreur VARCHAR(2000),
+    date_creation TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    date_envoi TIMESTAMP
+);
+
+-- Index partiel : seuls les emails à envoyer sont parcourus par l'envoi en arrière-plan
+CREATE INDEX IF NOT EXISTS idx_emails_sortants_a_envoyer
+    ON emails_sortants(prochaine_tentative)
+    WHERE statut = 'EN_ATTENTE';
+
+COMMENT ON COLUMN emails_sortants.statut IS 'EN_ATTENTE, ENVOYE ou ECHEC_DEFINITIF (tentatives épuisées ou email invalide)';
@@ -0,0 +1,7 @@
+-- Migration V13: Purge des emails traités
+-- Les emails envoyés ou abandonnés sont supprimés après la durée de rétention ;
+-- index partiel pour retrouver les lignes à purger sans parcourir la file
+
+CREATE INDEX IF NOT EXISTS idx_emails_sortants_traites
+    ON emails_sortants(date_creation)
+    WHERE statut IN ('ENVOYE', 'ECHEC_DEFINITIF');
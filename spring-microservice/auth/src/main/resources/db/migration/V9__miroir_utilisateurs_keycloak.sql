@@ -0,0 +1,23 @@
+-- Migration V9: Miroir local des utilisateurs Keycloak et de leurs rôles effectifs
+-- Alimenté par synchronisation périodique (et à la demande après un changement de rôles),
+-- il permet de répondre aux listes d'utilisateurs par rôle sans appeler l'API Admin Keycloak
+
+CREATE TABLE IF NOT EXISTS keycloak_utilisateurs (
+    keycloak_id VARCHAR(255) PRIMARY KEY,
+    email VARCHAR(255),
+    username VARCHAR(255),
+    nom VARCHAR(255),
+    prenom VARCHAR(255),
+    actif BOOLEAN NOT NULL DEFAULT TRUE,
+    date_synchronisation TIMESTAMP NOT NULL
+);
+
+-- Rôles realm effectifs (directs et hérités des groupes) et noms des groupes, en minuscules
+CREATE TABLE IF NOT EXISTS keycloak_utilisateur_roles (
+    keycloak_id VARCHAR(255) NOT NULL REFERENCES keycloak_utilisateurs(keycloak_id) ON DELETE CASCADE,
+    role VARCHAR(255) NOT NULL,
+    PRIMARY KEY (keycloak_id, role)
+);
+
+-- Index pour les listes d'utilisateurs par rôle
+CREATE INDEX IF NOT EXISTS idx_keycloak_utilisateur_roles_role ON keycloak_utilisateur_roles(role, keycloak_id);
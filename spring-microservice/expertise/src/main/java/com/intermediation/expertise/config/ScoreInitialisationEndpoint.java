@@ -0,0 +1,27 @@
+package com.intermediation.expertise.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Endpoint actuator de suivi de l'initialisation des scores
+ * GET /actuator/scores
+ */
+@Component
+@Endpoint(id = "scores")
+public class ScoreInitialisationEndpoint {
+
+    private final ScoreInitializer scoreInitializer;
+
+    public ScoreInitialisationEndpoint(ScoreInitializer scoreInitializer) {
+        this.scoreInitializer = scoreInitializer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> progression() {
+        return scoreInitializer.getProgression();
+    }
+}
@@ -1,35 +1,200 @@
 package com.intermediation.expertise.config;
 
+import com.intermediation.expertise.model.ScoreInitialisation;
+import com.intermediation.expertise.repository.ExpertiseRepository;
+import com.intermediation.expertise.repository.ScoreInitialisationRepository;
 import com.intermediation.expertise.service.ScoreExpertService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.boot.ApplicationArguments;
-import org.springframework.boot.ApplicationRunner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Composant d'initialisation des scores au démarrage de l'application.
- * Calcule les scores pour tous les experts qui n'ont pas encore de score.
+ * Calcule les scores des experts qui n'en ont pas encore ou dont le score est périmé.
+ *
+ * - lancé en arrière-plan une fois l'application prête : le démarrage n'attend pas le calcul
+ * - traitement par lots ordonnés sur l'identifiant, avec un point de reprise persistant
+ *   (table score_initialisation) : un redémarrage reprend au dernier lot validé
+ * - une seule instance à la fois, grâce à un bail renouvelé à chaque lot
+ * - progression consultable sur /actuator/scores
  */
 @Component
-public class ScoreInitializer implements ApplicationRunner {
+public class ScoreInitializer {
 
     private static final Logger log = LoggerFactory.getLogger(ScoreInitializer.class);
 
     private final ScoreExpertService scoreExpertService;
+    private final ExpertiseRepository expertiseRepository;
+    private final ScoreInitialisationRepository scoreInitialisationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String instance = ManagementFactory.getRuntimeMXBean().getName();
+
+    private volatile boolean enCours;
+
+    @Value("${score.initialisation.active:true}")
+    private boolean active;
+
+    // Un score calculé depuis plus longtemps est recalculé
+    @Value("${score.initialisation.peremption:7d}")
+    private Duration peremption;
+
+    @Value("${score.initialisation.taille-lot:500}")
+    private int tailleLot;
+
+    @Value("${score.initialisation.bail:2m}")
+    private Duration bail;
 
-    public ScoreInitializer(ScoreExpertService scoreExpertService) {
+    public ScoreInitializer(ScoreExpertService scoreExpertService,
+                            ExpertiseRepository expertiseRepository,
+                            ScoreInitialisationRepository scoreInitialisationRepository,
+                            PlatformTransactionManager transactionManager) {
         this.scoreExpertService = scoreExpertService;
+        this.expertiseRepository = expertiseRepository;
+        this.scoreInitialisationRepository = scoreInitialisationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Override
-    public void run(ApplicationArguments args) throws Exception {
-        log.info("=== INITIALISATION DES SCORES DES EXPERTS ===");
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        if (!active) {
+            log.info("Initialisation des scores désactivée");
+            return;
+        }
+        Thread thread = new Thread(this::executer, "score-initialisation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void executer() {
+        enCours = true;
         try {
-            scoreExpertService.recalculerTousLesScores();
-            log.info("=== INITIALISATION DES SCORES TERMINÉE ===");
+            if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> prendreBail()))) {
+                log.info("Initialisation des scores déjà en cours sur une autre instance");
+                return;
+            }
+            long debut = System.currentTimeMillis();
+            while (Boolean.TRUE.equals(transactionTemplate.execute(status -> traiterLot()))) {
+                // Lot suivant
+            }
+            log.info("=== INITIALISATION DES SCORES TERMINÉE en {} ms ===", System.currentTimeMillis() - debut);
         } catch (Exception e) {
+            // Le point de reprise est conservé : le prochain démarrage reprendra au dernier lot validé
             log.error("Erreur lors de l'initialisation des scores: {}", e.getMessage(), e);
+        } finally {
+            enCours = false;
+        }
+    }
+
+    /**
+     * Prend le bail de l'initialisation : reprise d'une initialisation interrompue,
+     * sinon nouvelle initialisation sur les scores absents ou périmés
+     * @return false si une autre instance détient le bail
+     */
+    private boolean prendreBail() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        ScoreInitialisation etat = scoreInitialisationRepository.findPourMiseAJour(ScoreInitialisation.ID)
+                .orElseGet(() -> {
+                    ScoreInitialisation nouvel = new ScoreInitialisation();
+                    nouvel.setId(ScoreInitialisation.ID);
+                    nouvel.setStatut(ScoreInitialisation.Statut.EN_ATTENTE);
+                    return nouvel;
+                });
+        if (etat.estDetenuParUneAutreInstance(instance, maintenant)) {
+            return false;
         }
+
+        if (etat.getStatut() == ScoreInitialisation.Statut.EN_COURS) {
+            log.info("=== REPRISE DE L'INITIALISATION DES SCORES après l'expertise {} ({} déjà traités) ===",
+                    etat.getDernierId(), etat.getExpertsTraites());
+        } else {
+            log.info("=== INITIALISATION DES SCORES DES EXPERTS (scores absents ou antérieurs à {}) ===",
+                    maintenant.minus(peremption));
+            etat.setStatut(ScoreInitialisation.Statut.EN_COURS);
+            etat.setDernierId(0L);
+            etat.setExpertsTraites(0);
+            etat.setLimitePeremption(maintenant.minus(peremption));
+            etat.setDateDebut(maintenant);
+            etat.setDateFin(null);
+        }
+        etat.setProprietaire(instance);
+        etat.setBailJusquA(maintenant.plus(bail));
+        etat.setDateMiseAJour(maintenant);
+        scoreInitialisationRepository.save(etat);
+        return true;
+    }
+
+    /**
+     * Recalcule le lot suivant et avance le point de reprise dans la même transaction
+     * @return true s'il reste des lots à traiter
+     */
+    private boolean traiterLot() {
+        ScoreInitialisation etat = scoreInitialisationRepository.findPourMiseAJour(ScoreInitialisation.ID)
+                .orElseThrow(() -> new IllegalStateException("Point de reprise de l'initialisation introuvable"));
+        if (!instance.equals(etat.getProprietaire())) {
+            log.warn("Bail de l'initialisation des scores repris par {}, arrêt", etat.getProprietaire());
+            return false;
+        }
+
+        LocalDateTime maintenant = LocalDateTime.now();
+        List<Object[]> lot = expertiseRepository.findLotScoresPerimes(
+                etat.getDernierId(), etat.getLimitePeremption(), tailleLot);
+        if (lot.isEmpty()) {
+            etat.setStatut(ScoreInitialisation.Statut.TERMINE);
+            etat.setDateFin(maintenant);
+            etat.setDateMiseAJour(maintenant);
+            etat.setProprietaire(null);
+            etat.setBailJusquA(null);
+            return false;
+        }
+
+        List<String> utilisateurIds = new ArrayList<>(lot.size());
+        for (Object[] ligne : lot) {
+            utilisateurIds.add((String) ligne[1]);
+        }
+        int recalcules = scoreExpertService.recalculerScores(utilisateurIds);
+
+        etat.setDernierId(((Number) lot.get(lot.size() - 1)[0]).longValue());
+        etat.setExpertsTraites(etat.getExpertsTraites() + recalcules);
+        etat.setDateMiseAJour(maintenant);
+        etat.setBailJusquA(maintenant.plus(bail));
+        log.debug("Initialisation des scores: {} experts traités (dernière expertise {})",
+                etat.getExpertsTraites(), etat.getDernierId());
+        return true;
+    }
+
+    /**
+     * Progression de l'initialisation (endpoint actuator /actuator/scores)
+     */
+    public Map<String, Object> getProgression() {
+        Map<String, Object> progression = new LinkedHashMap<>();
+        progression.put("enCoursSurCetteInstance", enCours);
+        scoreInitialisationRepository.findById(ScoreInitialisation.ID).ifPresent(etat -> {
+            progression.put("statut", etat.getStatut());
+            progression.put("expertsTraites", etat.getExpertsTraites());
+            progression.put("dernierId", etat.getDernierId());
+            if (etat.getStatut() == ScoreInitialisation.Statut.EN_COURS && etat.getLimitePeremption() != null) {
+                progression.put("expertsRestants",
+                        expertiseRepository.countScoresPerimes(etat.getDernierId(), etat.getLimitePeremption()));
+            }
+            progression.put("limitePeremption", etat.getLimitePeremption());
+            progression.put("dateDebut", etat.getDateDebut());
+            progression.put("dateMiseAJour", etat.getDateMiseAJour());
+            progression.put("dateFin", etat.getDateFin());
+            progression.put("proprietaire", etat.getProprietaire());
+        });
+        return progression;
     }
 }
@@ -9,6 +9,8 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -391,6 +393,31 @@ public class DemandeReconnaissanceController {
         }
     }
 
+    /**
+     * Page des demandes en attente de validation (Manager)
+     * GET /a-valider/page?page=0&size=20&sort=dateEvaluation,desc
+     * ACCÈS : MANAGER uniquement
+     */
+    @GetMapping("/a-valider/page")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<?> getDemandesAValiderPaginees(@RequestHeader("X-User-Id") String managerId,
+                                                         Pageable pageable) {
+        if (managerId == null || managerId.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Utilisateur non authentifié");
+        }
+
+        try {
+            Page<DemandeReconnaissanceDTO> demandes = traitementService.getDemandesEnAttenteValidation(managerId, pageable);
+            return ResponseEntity.ok(demandes);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Paramètres de pagination invalides: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Erreur lors de la récupération des demandes à valider", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
     /**
      * Récupérer les demandes assignées aux RH (Manager)
      * ACCÈS : MANAGER uniquement
@@ -411,6 +438,31 @@ public class DemandeReconnaissanceController {
         }
     }
 
+    /**
+     * Page des demandes assignées aux RH (Manager)
+     * GET /assignees/page?page=0&size=20&sort=dateAssignation,desc
+     * ACCÈS : MANAGER uniquement
+     */
+    @GetMapping("/assignees/page")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<?> getDemandesAssigneesPaginees(@RequestHeader("X-User-Id") String managerId,
+                                                          Pageable pageable) {
+        if (managerId == null || managerId.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Utilisateur non authentifié");
+        }
+
+        try {
+            Page<DemandeReconnaissanceDTO> demandes = traitementService.getDemandesAssignees(managerId, pageable);
+            return ResponseEntity.ok(demandes);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Paramètres de pagination invalides: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Erreur lors de la récupération des demandes assignées", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
     /**
      * Approuver une demande (Manager)
      * ACCÈS : MANAGER uniquement
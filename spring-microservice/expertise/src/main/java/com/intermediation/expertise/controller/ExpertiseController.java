@@ -4,12 +4,15 @@ import com.intermediation.expertise.dto.CompetenceDTO;
 import com.intermediation.expertise.dto.ExpertiseCompletDTO;
 import com.intermediation.expertise.dto.ExpertiseDTO;
 import com.intermediation.expertise.dto.ExpertPublicDTO;
+import com.intermediation.expertise.dto.ExpertsPublicsPageDTO;
 import com.intermediation.expertise.dto.RechercheExpertRequest;
 import com.intermediation.expertise.dto.RechercheExpertResponse;
 import com.intermediation.expertise.security.SecurityService;
 import com.intermediation.expertise.service.ExpertiseService;
 import com.intermediation.expertise.service.RechercheExpertService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -346,6 +349,18 @@ public class ExpertiseController {
         return ResponseEntity.ok(experts);
     }
 
+    /**
+     * Récupère une page d'experts publiés avec leurs compétences (endpoint public pour le feed)
+     * Pagination par curseur : renvoyer curseurSuivant pour obtenir la page suivante
+     */
+    @GetMapping("/public/experts/page")
+    public ResponseEntity<ExpertsPublicsPageDTO> getExpertsPubliesPage(
+            @RequestParam(required = false) String curseur,
+            @RequestParam(defaultValue = "20") int taille) {
+        ExpertsPublicsPageDTO page = expertiseService.getExpertsPubliesPage(curseur, taille);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Récupère toutes les expertises publiées (endpoint public)
      */
@@ -357,15 +372,17 @@ public class ExpertiseController {
 
     /**
      * Recherche d'expertises avec critères multiples (endpoint public)
+     * Paginée : paramètres page et size (20 par défaut, 100 au maximum)
      */
     @GetMapping("/recherche")
-    public ResponseEntity<List<ExpertiseDTO>> rechercherExpertises(
+    public ResponseEntity<Page<ExpertiseDTO>> rechercherExpertises(
             @RequestParam(required = false) String terme,
             @RequestParam(required = false) Long villeId,
             @RequestParam(required = false) Long paysId,
-            @RequestParam(required = false) Boolean disponible) {
+            @RequestParam(required = false) Boolean disponible,
+            Pageable pageable) {
 
-        List<ExpertiseDTO> expertises = expertiseService.rechercherExpertises(terme, villeId, paysId, disponible);
+        Page<ExpertiseDTO> expertises = expertiseService.rechercherExpertises(terme, villeId, paysId, disponible, pageable);
         return ResponseEntity.ok(expertises);
     }
 
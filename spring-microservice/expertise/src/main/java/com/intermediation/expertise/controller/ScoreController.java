@@ -1,5 +1,8 @@
 package com.intermediation.expertise.controller;
 
+import com.intermediation.expertise.dto.TendanceScoreDTO;
+import com.intermediation.expertise.service.ExpertRechercheStatsService;
+import com.intermediation.expertise.service.HistoriqueScoreService;
 import com.intermediation.expertise.service.ScoreExpertService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,9 +21,28 @@ public class ScoreController {
     private static final Logger log = LoggerFactory.getLogger(ScoreController.class);
 
     private final ScoreExpertService scoreExpertService;
+    private final ExpertRechercheStatsService expertRechercheStatsService;
+    private final HistoriqueScoreService historiqueScoreService;
 
-    public ScoreController(ScoreExpertService scoreExpertService) {
+    public ScoreController(ScoreExpertService scoreExpertService,
+                           ExpertRechercheStatsService expertRechercheStatsService,
+                           HistoriqueScoreService historiqueScoreService) {
         this.scoreExpertService = scoreExpertService;
+        this.expertRechercheStatsService = expertRechercheStatsService;
+        this.historiqueScoreService = historiqueScoreService;
+    }
+
+    /**
+     * Évolution du score d'un expert, ré-échantillonnée en au plus {@code points} points
+     * GET /api/scores/{utilisateurId}/tendance?jours=90&points=60
+     */
+    @GetMapping("/{utilisateurId}/tendance")
+    public ResponseEntity<TendanceScoreDTO> getTendance(@PathVariable String utilisateurId,
+                                                        @RequestParam(defaultValue = "90") int jours,
+                                                        @RequestParam(defaultValue = "60") int points) {
+        int joursBornes = Math.min(Math.max(jours, 1), 730);
+        int pointsBornes = Math.min(Math.max(points, 1), 365);
+        return ResponseEntity.ok(historiqueScoreService.getTendance(utilisateurId, joursBornes, pointsBornes));
     }
 
     /**
@@ -62,4 +84,18 @@ public class ScoreController {
             "message", "Initialisation de tous les scores terminée"
         ));
     }
+
+    /**
+     * Reconstruire la table d'agrégats de la recherche avancée (admin)
+     * POST /api/scores/stats-recherche/reconstruire
+     */
+    @PostMapping("/stats-recherche/reconstruire")
+    public ResponseEntity<Map<String, Object>> reconstruireStatsRecherche() {
+        log.info("Reconstruction des agrégats de recherche demandée");
+        int lignes = expertRechercheStatsService.reconstruireToutesLesStats();
+        return ResponseEntity.ok(Map.of(
+            "message", "Agrégats de recherche reconstruits",
+            "lignes", lignes
+        ));
+    }
 }
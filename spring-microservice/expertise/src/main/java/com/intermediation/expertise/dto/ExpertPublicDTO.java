@@ -1,5 +1,7 @@
 package com.intermediation.expertise.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.math.BigDecimal;
 import java.util.List;
 
@@ -20,6 +22,20 @@ public class ExpertPublicDTO {
 
     // Constructeurs
     public ExpertPublicDTO() {}
+
+    /**
+     * Constructeur de projection JPQL (lecture sans entité managée)
+     */
+    public ExpertPublicDTO(String utilisateurId, String titre, String description, String photoUrl,
+                           String villeNom, String paysNom, Boolean disponible, BigDecimal scoreGlobal) {
+        this.utilisateurId = utilisateurId;
+        this.titre = titre;
+        this.description = description;
+        this.photoUrl = photoUrl;
+        this.localisation = villeNom != null ? villeNom + ", " + paysNom : null;
+        this.disponible = disponible;
+        this.scoreGlobal = scoreGlobal;
+    }
     
     // Getters et Setters
     public String getUtilisateurId() {
@@ -98,6 +114,9 @@ public class ExpertPublicDTO {
      * DTO pour les compétences publiques
      */
     public static class CompetencePublicDTO {
+        // Sert uniquement à regrouper les compétences par expert après la projection
+        @JsonIgnore
+        private String utilisateurId;
         private String nom;
         private String description;
         private Integer niveauMaitrise;
@@ -108,6 +127,27 @@ public class ExpertPublicDTO {
         private Boolean estFavorite;
         
         public CompetencePublicDTO() {}
+
+        /**
+         * Constructeur de projection JPQL (lecture sans entité managée)
+         */
+        public CompetencePublicDTO(String utilisateurId, String nom, String description, Integer niveauMaitrise,
+                                   Integer anneesExperience, Integer thm, Integer nombreProjets,
+                                   String certifications, Boolean estFavorite) {
+            this.utilisateurId = utilisateurId;
+            this.nom = nom;
+            this.description = description;
+            this.niveauMaitrise = niveauMaitrise;
+            this.anneesExperience = anneesExperience;
+            this.thm = thm;
+            this.nombreProjets = nombreProjets;
+            this.certifications = certifications;
+            this.estFavorite = estFavorite;
+        }
+
+        public String getUtilisateurId() {
+            return utilisateurId;
+        }
         
         // Getters et Setters
         public String getNom() {
@@ -0,0 +1,58 @@
+package com.intermediation.expertise.dto;
+
+import java.util.List;
+
+/**
+ * Page d'experts publiés pour le feed d'accueil (pagination par curseur)
+ */
+public class ExpertsPublicsPageDTO {
+
+    private List<ExpertPublicDTO> experts;
+    private String curseurSuivant; // null s'il n'y a plus d'experts
+    private int taille;
+    private String versionCatalogue; // Instant de la version du catalogue parcourue (ISO-8601)
+
+    // Constructeurs
+    public ExpertsPublicsPageDTO() {}
+
+    public ExpertsPublicsPageDTO(List<ExpertPublicDTO> experts, String curseurSuivant, int taille,
+                                 String versionCatalogue) {
+        this.experts = experts;
+        this.curseurSuivant = curseurSuivant;
+        this.taille = taille;
+        this.versionCatalogue = versionCatalogue;
+    }
+
+    // Getters et Setters
+    public List<ExpertPublicDTO> getExperts() {
+        return experts;
+    }
+
+    public void setExperts(List<ExpertPublicDTO> experts) {
+        this.experts = experts;
+    }
+
+    public String getCurseurSuivant() {
+        return curseurSuivant;
+    }
+
+    public void setCurseurSuivant(String curseurSuivant) {
+        this.curseurSuivant = curseurSuivant;
+    }
+
+    public int getTaille() {
+        return taille;
+    }
+
+    public void setTaille(int taille) {
+        this.taille = taille;
+    }
+
+    public String getVersionCatalogue() {
+        return versionCatalogue;
+    }
+
+    public void setVersionCatalogue(String versionCatalogue) {
+        this.versionCatalogue = versionCatalogue;
+    }
+}
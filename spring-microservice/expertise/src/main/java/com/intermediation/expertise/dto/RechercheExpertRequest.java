@@ -55,14 +55,16 @@ public class RechercheExpertRequest {
     private Integer nombreFollowersMin;
 
     // === TRI ===
-    /** Champ de tri: SCORE, EXPERIENCE, THM_ASC, THM_DESC, POPULARITE, RECENT */
+    /** Champ de tri: SCORE, EXPERIENCE, THM_ASC, THM_DESC, POPULARITE, RECENT, PERTINENCE */
     private String tri;
 
     // === PAGINATION ===
-    /** Numéro de page (0-indexed) */
+    /** Numéro de page (0-indexed), ignoré si un curseur est fourni */
     private Integer page;
     /** Nombre de résultats par page */
     private Integer taille;
+    /** Curseur opaque renvoyé par la page précédente (curseurSuivant) pour la pagination par clé */
+    private String curseur;
 
     // Constructeur par défaut
     public RechercheExpertRequest() {
@@ -215,4 +217,12 @@ public class RechercheExpertRequest {
     public void setTaille(Integer taille) {
         this.taille = taille;
     }
+
+    public String getCurseur() {
+        return curseur;
+    }
+
+    public void setCurseur(String curseur) {
+        this.curseur = curseur;
+    }
 }
@@ -15,14 +15,16 @@ public class RechercheExpertResponse {
     private List<ExpertResultat> resultats;
 
     // === PAGINATION ===
-    /** Nombre total de résultats */
+    /** Nombre total de résultats (-1 en mode curseur, non recalculé après la première page) */
     private long totalResultats;
     /** Page actuelle (0-indexed) */
     private int page;
     /** Nombre de résultats par page */
     private int taille;
-    /** Nombre total de pages */
+    /** Nombre total de pages (-1 en mode curseur) */
     private int totalPages;
+    /** Curseur à renvoyer pour obtenir la page suivante (null s'il n'y a plus de résultats) */
+    private String curseurSuivant;
 
     // === FACETTES (pour filtres dynamiques) ===
     /** Nombre d'experts par pays */
@@ -33,6 +35,16 @@ public class RechercheExpertResponse {
     private List<FacetteItem> facettesBadges;
     /** Statistiques globales */
     private StatistiquesRecherche statistiques;
+    /** Âge (en secondes) des facettes et statistiques, servies depuis un cache rafraîchi en arrière-plan */
+    private long ageFacettesSecondes;
+
+    // === DIAGNOSTIC ===
+    /** true si une partie optionnelle (comptage, compétences, facettes) n'a pas répondu à temps */
+    private boolean degrade;
+    /** Parties absentes de la réponse suite à un dépassement de délai ou une erreur */
+    private List<String> partiesIndisponibles;
+    /** Durée de chaque étape de la recherche en millisecondes (recherche, competences, comptage, facettes, total) */
+    private Map<String, Long> tempsEtapesMs;
 
     // Constructeur par défaut
     public RechercheExpertResponse() {}
@@ -227,6 +239,9 @@ public class RechercheExpertResponse {
     public int getTotalPages() { return totalPages; }
     public void setTotalPages(int totalPages) { this.totalPages = totalPages; }
 
+    public String getCurseurSuivant() { return curseurSuivant; }
+    public void setCurseurSuivant(String curseurSuivant) { this.curseurSuivant = curseurSuivant; }
+
     public List<FacetteItem> getFacettesPays() { return facettesPays; }
     public void setFacettesPays(List<FacetteItem> facettesPays) { this.facettesPays = facettesPays; }
 
@@ -238,4 +253,16 @@ public class RechercheExpertResponse {
 
     public StatistiquesRecherche getStatistiques() { return statistiques; }
     public void setStatistiques(StatistiquesRecherche statistiques) { this.statistiques = statistiques; }
+
+    public long getAgeFacettesSecondes() { return ageFacettesSecondes; }
+    public void setAgeFacettesSecondes(long ageFacettesSecondes) { this.ageFacettesSecondes = ageFacettesSecondes; }
+
+    public boolean isDegrade() { return degrade; }
+    public void setDegrade(boolean degrade) { this.degrade = degrade; }
+
+    public List<String> getPartiesIndisponibles() { return partiesIndisponibles; }
+    public void setPartiesIndisponibles(List<String> partiesIndisponibles) { this.partiesIndisponibles = partiesIndisponibles; }
+
+    public Map<String, Long> getTempsEtapesMs() { return tempsEtapesMs; }
+    public void setTempsEtapesMs(Map<String, Long> tempsEtapesMs) { this.tempsEtapesMs = tempsEtapesMs; }
 }
@@ -0,0 +1,167 @@
+package com.intermediation.expertise.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Évolution du score d'un expert sur une période, ré-échantillonnée :
+ * chaque point agrège {@code largeurJours} jours (moyennes pondérées par le nombre de calculs)
+ */
+public class TendanceScoreDTO {
+
+    private String utilisateurId;
+    private LocalDate debut;
+    private LocalDate fin;
+    private int largeurJours;
+    private List<PointTendance> points;
+
+    public TendanceScoreDTO() {}
+
+    public TendanceScoreDTO(String utilisateurId, LocalDate debut, LocalDate fin, int largeurJours,
+                            List<PointTendance> points) {
+        this.utilisateurId = utilisateurId;
+        this.debut = debut;
+        this.fin = fin;
+        this.largeurJours = largeurJours;
+        this.points = points;
+    }
+
+    // Getters et Setters
+    public String getUtilisateurId() {
+        return utilisateurId;
+    }
+
+    public void setUtilisateurId(String utilisateurId) {
+        this.utilisateurId = utilisateurId;
+    }
+
+    public LocalDate getDebut() {
+        return debut;
+    }
+
+    public void setDebut(LocalDate debut) {
+        this.debut = debut;
+    }
+
+    public LocalDate getFin() {
+        return fin;
+    }
+
+    public void setFin(LocalDate fin) {
+        this.fin = fin;
+    }
+
+    public int getLargeurJours() {
+        return largeurJours;
+    }
+
+    public void setLargeurJours(int largeurJours) {
+        this.largeurJours = largeurJours;
+    }
+
+    public List<PointTendance> getPoints() {
+        return points;
+    }
+
+    public void setPoints(List<PointTendance> points) {
+        this.points = points;
+    }
+
+    /**
+     * Point de la série (scores sur 100)
+     */
+    public static class PointTendance {
+        private LocalDate date;
+        private int nombreCalculs;
+        private double scoreGlobal;
+        private double scoreGlobalMin;
+        private double scoreGlobalMax;
+        private double certification;
+        private double experience;
+        private double profil;
+        private double popularite;
+        private double activite;
+
+        public PointTendance() {}
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        public int getNombreCalculs() {
+            return nombreCalculs;
+        }
+
+        public void setNombreCalculs(int nombreCalculs) {
+            this.nombreCalculs = nombreCalculs;
+        }
+
+        public double getScoreGlobal() {
+            return scoreGlobal;
+        }
+
+        public void setScoreGlobal(double scoreGlobal) {
+            this.scoreGlobal = scoreGlobal;
+        }
+
+        public double getScoreGlobalMin() {
+            return scoreGlobalMin;
+        }
+
+        public void setScoreGlobalMin(double scoreGlobalMin) {
+            this.scoreGlobalMin = scoreGlobalMin;
+        }
+
+        public double getScoreGlobalMax() {
+            return scoreGlobalMax;
+        }
+
+        public void setScoreGlobalMax(double scoreGlobalMax) {
+            this.scoreGlobalMax = scoreGlobalMax;
+        }
+
+        public double getCertification() {
+            return certification;
+        }
+
+        public void setCertification(double certification) {
+            this.certification = certification;
+        }
+
+        public double getExperience() {
+            return experience;
+        }
+
+        public void setExperience(double experience) {
+            this.experience = experience;
+        }
+
+        public double getProfil() {
+            return profil;
+        }
+
+        public void setProfil(double profil) {
+            this.profil = profil;
+        }
+
+        public double getPopularite() {
+            return popularite;
+        }
+
+        public void setPopularite(double popularite) {
+            this.popularite = popularite;
+        }
+
+        public double getActivite() {
+            return activite;
+        }
+
+        public void setActivite(double activite) {
+            this.activite = activite;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.intermediation.expertise.dto;
+
+/**
+ * Informations publiques d'un utilisateur, exposées par le service Auth
+ * (/api/profil/public/batch)
+ */
+public class UtilisateurPublicDTO {
+
+    private String id;
+    private String nom;
+    private String prenom;
+    private String photoUrl;
+    private String typePersonne; // PHYSIQUE ou MORALE
+    private boolean hasPhoto;
+
+    public UtilisateurPublicDTO() {}
+
+    // Getters et Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getNom() { return nom; }
+    public void setNom(String nom) { this.nom = nom; }
+
+    public String getPrenom() { return prenom; }
+    public void setPrenom(String prenom) { this.prenom = prenom; }
+
+    public String getPhotoUrl() { return photoUrl; }
+    public void setPhotoUrl(String photoUrl) { this.photoUrl = photoUrl; }
+
+    public String getTypePersonne() { return typePersonne; }
+    public void setTypePersonne(String typePersonne) { this.typePersonne = typePersonne; }
+
+    public boolean isHasPhoto() { return hasPhoto; }
+    public void setHasPhoto(boolean hasPhoto) { this.hasPhoto = hasPhoto; }
+}
@@ -69,6 +69,22 @@ public class GlobalExceptionHandler {
             .body(response);
     }
 
+    /**
+     * Gère les recherches abandonnées côté serveur (délai dépassé, erreur de la base)
+     * Retourne 503 SERVICE_UNAVAILABLE : la même requête peut aboutir plus tard
+     */
+    @ExceptionHandler(RechercheIndisponibleException.class)
+    public ResponseEntity<Map<String, String>> handleRechercheIndisponible(RechercheIndisponibleException ex) {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", ex.getMessage());
+
+        logger.warn("Recherche indisponible : {}", ex.getMessage());
+
+        return ResponseEntity
+            .status(HttpStatus.SERVICE_UNAVAILABLE)
+            .body(response);
+    }
+
     /**
      * Gère les autres exceptions runtime (sauf les exceptions de sécurité)
      */
@@ -0,0 +1,12 @@
+package com.intermediation.expertise.exception;
+
+/**
+ * La recherche n'a pas pu aboutir côté serveur (délai dépassé ou erreur de la requête principale).
+ * Ce n'est pas une erreur de la requête du client : renvoyée en 503 SERVICE_UNAVAILABLE.
+ */
+public class RechercheIndisponibleException extends RuntimeException {
+
+    public RechercheIndisponibleException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,55 @@
+package com.intermediation.expertise.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agrégats dénormalisés d'un expert utilisés par la recherche avancée.
+ * Une ligne par utilisateur, maintenue à chaque écriture sur les compétences,
+ * les badges et le réseau (voir ExpertRechercheStatsService).
+ */
+@Entity
+@Table(name = "expert_recherche_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpertRechercheStats {
+
+    @Id
+    @Column(name = "utilisateur_id")
+    private String utilisateurId;
+
+    @Column(name = "nombre_competences", nullable = false)
+    private Integer nombreCompetences = 0;
+
+    @Column(name = "niveau_maitrise_max", nullable = false)
+    private Integer niveauMaitriseMax = 0;
+
+    @Column(name = "annees_experience_max", nullable = false)
+    private Integer anneesExperienceMax = 0;
+
+    @Column(name = "thm_min")
+    private Integer thmMin; // NULL si aucun THM renseigné
+
+    @Column(name = "thm_max", nullable = false)
+    private Integer thmMax = 0;
+
+    @Column(name = "projets_total", nullable = false)
+    private Integer projetsTotal = 0;
+
+    @Column(name = "nombre_badges", nullable = false)
+    private Integer nombreBadges = 0;
+
+    @Column(name = "niveau_badge_max", length = 20)
+    private String niveauBadgeMax;
+
+    @Column(name = "nombre_followers", nullable = false)
+    private Integer nombreFollowers = 0;
+
+    @Column(name = "date_mise_a_jour", nullable = false)
+    private LocalDateTime dateMiseAJour;
+}
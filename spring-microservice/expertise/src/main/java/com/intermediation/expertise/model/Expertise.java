@@ -41,6 +41,9 @@ public class Expertise {
     @Column(nullable = false)
     private Boolean publiee = false; // Si true, visible sur l'accueil
 
+    @Column(name = "date_publication")
+    private LocalDateTime datePublication; // Dernier passage à l'état publié
+
     @Column(name = "date_creation", nullable = false)
     private LocalDateTime dateCreation;
 
@@ -140,9 +143,21 @@ public class Expertise {
     }
 
     public void setPubliee(Boolean publiee) {
+        // Horodater chaque nouvelle publication (pas les sauvegardes d'une expertise déjà publiée)
+        if (Boolean.TRUE.equals(publiee) && !Boolean.TRUE.equals(this.publiee)) {
+            this.datePublication = LocalDateTime.now();
+        }
         this.publiee = publiee;
     }
 
+    public LocalDateTime getDatePublication() {
+        return datePublication;
+    }
+
+    public void setDatePublication(LocalDateTime datePublication) {
+        this.datePublication = datePublication;
+    }
+
     public LocalDateTime getDateCreation() {
         return dateCreation;
     }
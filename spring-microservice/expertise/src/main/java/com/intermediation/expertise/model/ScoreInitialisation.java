@@ -0,0 +1,64 @@
+package com.intermediation.expertise.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Point de reprise de l'initialisation des scores (une seule ligne, id "scores").
+ * Voir ScoreInitializer.
+ */
+@Entity
+@Table(name = "score_initialisation")
+@Data
+@NoArgsConstructor
+public class ScoreInitialisation {
+
+    public static final String ID = "scores";
+
+    public enum Statut {
+        EN_ATTENTE,
+        EN_COURS,
+        TERMINE
+    }
+
+    @Id
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Statut statut;
+
+    // Dernier expertises.id traité : la reprise repart après lui
+    @Column(name = "dernier_id", nullable = false)
+    private Long dernierId = 0L;
+
+    @Column(name = "limite_peremption")
+    private LocalDateTime limitePeremption;
+
+    @Column(name = "experts_traites", nullable = false)
+    private Integer expertsTraites = 0;
+
+    @Column(name = "date_debut")
+    private LocalDateTime dateDebut;
+
+    @Column(name = "date_mise_a_jour")
+    private LocalDateTime dateMiseAJour;
+
+    @Column(name = "date_fin")
+    private LocalDateTime dateFin;
+
+    // Instance qui exécute l'initialisation et fin de son bail
+    @Column(name = "proprietaire")
+    private String proprietaire;
+
+    @Column(name = "bail_jusqu_a")
+    private LocalDateTime bailJusquA;
+
+    public boolean estDetenuParUneAutreInstance(String instance, LocalDateTime maintenant) {
+        return proprietaire != null && !proprietaire.equals(instance)
+                && bailJusquA != null && bailJusquA.isAfter(maintenant);
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,6 +40,8 @@ public interface BadgeCompetenceRepository extends JpaRepository<BadgeCompetence
     
     // Recherches par demande de reconnaissance
     Optional<BadgeCompetence> findByDemandeReconnaissanceId(Long demandeReconnaissanceId);
+
+    List<BadgeCompetence> findByDemandeReconnaissanceIdIn(Collection<Long> demandeReconnaissanceIds);
     
     // Vérifications d'existence
     boolean existsByCompetenceIdAndUtilisateurIdAndEstActif(
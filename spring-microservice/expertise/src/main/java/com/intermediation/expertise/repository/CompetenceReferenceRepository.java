@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +19,12 @@ public interface CompetenceReferenceRepository extends JpaRepository<CompetenceR
      * Recherche par code unique
      */
     Optional<CompetenceReference> findByCode(String code);
+
+    /**
+     * Code du domaine de compétence de chaque référence (id, code)
+     */
+    @Query("SELECT c.id, d.code FROM CompetenceReference c JOIN c.domaineCompetence d WHERE c.id IN :ids")
+    List<Object[]> findCodesDomaineByIds(@Param("ids") Collection<Long> ids);
     
     /**
      * Recherche par domaine
@@ -1,9 +1,13 @@
 package com.intermediation.expertise.repository;
 
+import com.intermediation.expertise.dto.ExpertPublicDTO.CompetencePublicDTO;
 import com.intermediation.expertise.model.Competence;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +21,20 @@ public interface CompetenceRepository extends JpaRepository<Competence, Long> {
     Optional<Competence> findByUtilisateurIdAndNom(String utilisateurId, String nom);
     
     long countByUtilisateurId(String utilisateurId);
+
+    // Compétences publiques d'un lot d'experts, projetées directement en DTO
+    @Query("SELECT new com.intermediation.expertise.dto.ExpertPublicDTO$CompetencePublicDTO(" +
+           "c.utilisateurId, c.nom, c.description, c.niveauMaitrise, c.anneesExperience, c.thm, " +
+           "c.nombreProjets, c.certifications, c.estFavorite) " +
+           "FROM Competence c WHERE c.utilisateurId IN :utilisateurIds ORDER BY c.utilisateurId, c.id")
+    List<CompetencePublicDTO> findCompetencesPubliquesByUtilisateurIdIn(
+            @Param("utilisateurIds") Collection<String> utilisateurIds);
+
+    // Compétences publiques de tous les experts publiés
+    @Query("SELECT new com.intermediation.expertise.dto.ExpertPublicDTO$CompetencePublicDTO(" +
+           "c.utilisateurId, c.nom, c.description, c.niveauMaitrise, c.anneesExperience, c.thm, " +
+           "c.nombreProjets, c.certifications, c.estFavorite) " +
+           "FROM Competence c WHERE c.utilisateurId IN " +
+           "(SELECT e.utilisateurId FROM Expertise e WHERE e.publiee = true) ORDER BY c.utilisateurId, c.id")
+    List<CompetencePublicDTO> findCompetencesPubliquesDesExpertsPublies();
 }
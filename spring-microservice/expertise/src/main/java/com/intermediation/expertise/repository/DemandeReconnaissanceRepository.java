@@ -2,6 +2,9 @@ package com.intermediation.expertise.repository;
 
 import com.intermediation.expertise.model.DemandeReconnaissanceCompetence;
 import com.intermediation.expertise.model.DemandeReconnaissanceCompetence.StatutDemande;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -39,6 +42,13 @@ public interface DemandeReconnaissanceRepository extends JpaRepository<DemandeRe
     List<DemandeReconnaissanceCompetence> findByTraitantIdAndStatutIn(
         String traitantId, List<StatutDemande> statuts);
     
+    // Files du manager (index idx_demande_manager_statut_evaluation / _assignation)
+    List<DemandeReconnaissanceCompetence> findByManagerIdAndStatutIn(
+        String managerId, List<StatutDemande> statuts, Sort sort);
+
+    Page<DemandeReconnaissanceCompetence> findByManagerIdAndStatutIn(
+        String managerId, List<StatutDemande> statuts, Pageable pageable);
+
     // Recherches par statut
     List<DemandeReconnaissanceCompetence> findByStatutInOrderByDateCreationDesc(List<StatutDemande> statuts);
     
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +17,8 @@ public interface EvaluationCompetenceRepository extends JpaRepository<Evaluation
 
     // Recherches par demande
     Optional<EvaluationCompetence> findByDemandeId(Long demandeId);
+
+    List<EvaluationCompetence> findByDemandeIdIn(Collection<Long> demandeIds);
     
     List<EvaluationCompetence> findByDemandeIdOrderByDateEvaluationDesc(Long demandeId);
     
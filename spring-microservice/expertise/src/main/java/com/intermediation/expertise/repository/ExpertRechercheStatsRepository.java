@@ -0,0 +1,136 @@
+package com.intermediation.expertise.repository;
+
+import com.intermediation.expertise.model.ExpertRechercheStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ExpertRechercheStatsRepository extends JpaRepository<ExpertRechercheStats, String> {
+
+    // Recalcule la ligne d'agrégats d'un expert (upsert en une seule requête)
+    // flushAutomatically garantit que les écritures en attente de la transaction sont prises en compte
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO expert_recherche_stats (
+                utilisateur_id, nombre_competences, niveau_maitrise_max, annees_experience_max,
+                thm_min, thm_max, projets_total, nombre_badges, niveau_badge_max, nombre_followers,
+                date_mise_a_jour
+            )
+            SELECT
+                :utilisateurId,
+                comp_stats.nombre_competences,
+                COALESCE(comp_stats.niveau_max, 0),
+                COALESCE(comp_stats.experience_max, 0),
+                comp_stats.thm_min,
+                COALESCE(comp_stats.thm_max, 0),
+                COALESCE(comp_stats.projets_total, 0),
+                badge_stats.nombre_badges,
+                badge_stats.niveau_badge_max,
+                reseau_stats.nombre_followers,
+                CURRENT_TIMESTAMP
+            FROM (
+                SELECT
+                    COUNT(*) as nombre_competences,
+                    MAX(niveau_maitrise) as niveau_max,
+                    MAX(annees_experience) as experience_max,
+                    MIN(thm) FILTER (WHERE thm > 0) as thm_min,
+                    MAX(thm) as thm_max,
+                    SUM(COALESCE(nombre_projets, 0)) as projets_total
+                FROM competences
+                WHERE utilisateur_id = :utilisateurId
+            ) comp_stats,
+            (
+                SELECT COUNT(*) as nombre_badges, MAX(niveau_certification) as niveau_badge_max
+                FROM badges_competence
+                WHERE utilisateur_id = :utilisateurId AND est_actif = true
+            ) badge_stats,
+            (
+                SELECT COUNT(*) as nombre_followers
+                FROM reseau_expertises
+                WHERE expert_id = :utilisateurId
+            ) reseau_stats
+            ON CONFLICT (utilisateur_id) DO UPDATE SET
+                nombre_competences = EXCLUDED.nombre_competences,
+                niveau_maitrise_max = EXCLUDED.niveau_maitrise_max,
+                annees_experience_max = EXCLUDED.annees_experience_max,
+                thm_min = EXCLUDED.thm_min,
+                thm_max = EXCLUDED.thm_max,
+                projets_total = EXCLUDED.projets_total,
+                nombre_badges = EXCLUDED.nombre_badges,
+                niveau_badge_max = EXCLUDED.niveau_badge_max,
+                nombre_followers = EXCLUDED.nombre_followers,
+                date_mise_a_jour = EXCLUDED.date_mise_a_jour
+            """, nativeQuery = true)
+    int rafraichirPourUtilisateur(@Param("utilisateurId") String utilisateurId);
+
+    // Reconstruit les agrégats de toutes les expertises en un seul passage ensembliste
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO expert_recherche_stats (
+                utilisateur_id, nombre_competences, niveau_maitrise_max, annees_experience_max,
+                thm_min, thm_max, projets_total, nombre_badges, niveau_badge_max, nombre_followers,
+                date_mise_a_jour
+            )
+            SELECT
+                e.utilisateur_id,
+                COALESCE(comp_stats.nombre_competences, 0),
+                COALESCE(comp_stats.niveau_max, 0),
+                COALESCE(comp_stats.experience_max, 0),
+                comp_stats.thm_min,
+                COALESCE(comp_stats.thm_max, 0),
+                COALESCE(comp_stats.projets_total, 0),
+                COALESCE(badge_stats.nombre_badges, 0),
+                badge_stats.niveau_badge_max,
+                COALESCE(reseau_stats.nombre_followers, 0),
+                CURRENT_TIMESTAMP
+            FROM expertises e
+            LEFT JOIN (
+                SELECT
+                    utilisateur_id,
+                    COUNT(*) as nombre_competences,
+                    MAX(niveau_maitrise) as niveau_max,
+                    MAX(annees_experience) as experience_max,
+                    MIN(thm) FILTER (WHERE thm > 0) as thm_min,
+                    MAX(thm) as thm_max,
+                    SUM(COALESCE(nombre_projets, 0)) as projets_total
+                FROM competences
+                GROUP BY utilisateur_id
+            ) comp_stats ON e.utilisateur_id = comp_stats.utilisateur_id
+            LEFT JOIN (
+                SELECT
+                    utilisateur_id,
+                    COUNT(*) as nombre_badges,
+                    MAX(niveau_certification) as niveau_badge_max
+                FROM badges_competence
+                WHERE est_actif = true
+                GROUP BY utilisateur_id
+            ) badge_stats ON e.utilisateur_id = badge_stats.utilisateur_id
+            LEFT JOIN (
+                SELECT expert_id, COUNT(*) as nombre_followers
+                FROM reseau_expertises
+                GROUP BY expert_id
+            ) reseau_stats ON e.utilisateur_id = reseau_stats.expert_id
+            ON CONFLICT (utilisateur_id) DO UPDATE SET
+                nombre_competences = EXCLUDED.nombre_competences,
+                niveau_maitrise_max = EXCLUDED.niveau_maitrise_max,
+                annees_experience_max = EXCLUDED.annees_experience_max,
+                thm_min = EXCLUDED.thm_min,
+                thm_max = EXCLUDED.thm_max,
+                projets_total = EXCLUDED.projets_total,
+                nombre_badges = EXCLUDED.nombre_badges,
+                niveau_badge_max = EXCLUDED.niveau_badge_max,
+                nombre_followers = EXCLUDED.nombre_followers,
+                date_mise_a_jour = EXCLUDED.date_mise_a_jour
+            """, nativeQuery = true)
+    int reconstruireTout();
+
+    // Supprime les lignes dont l'expertise n'existe plus
+    @Modifying
+    @Query(value = "DELETE FROM expert_recherche_stats s " +
+           "WHERE NOT EXISTS (SELECT 1 FROM expertises e WHERE e.utilisateur_id = s.utilisateur_id)",
+           nativeQuery = true)
+    int supprimerOrphelins();
+}
@@ -1,9 +1,15 @@
 package com.intermediation.expertise.repository;
 
+import com.intermediation.expertise.dto.ExpertPublicDTO;
 import com.intermediation.expertise.model.Expertise;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +27,65 @@ public interface ExpertiseRepository extends JpaRepository<Expertise, Long> {
 
     // Expertises publiées et disponibles triées par score
     List<Expertise> findByPublieeTrueAndDisponibleTrueOrderByScoreGlobalDesc();
+
+    // Experts publiés projetés directement en DTO, triés par score puis utilisateur_id
+    // (ordre de l'index idx_expertises_publiee_score_cle)
+    @Query("SELECT new com.intermediation.expertise.dto.ExpertPublicDTO(" +
+           "e.utilisateurId, e.titre, e.description, e.photoUrl, v.nom, p.nom, e.disponible, e.scoreGlobal) " +
+           "FROM Expertise e LEFT JOIN e.ville v LEFT JOIN v.pays p " +
+           "WHERE e.publiee = true " +
+           "ORDER BY COALESCE(e.scoreGlobal, 0) DESC, e.utilisateurId ASC")
+    List<ExpertPublicDTO> findExpertsPublies(Pageable pageable);
+
+    // Même projection, limitée aux experts publiés au plus tard à l'instant de la version du catalogue
+    @Query("SELECT new com.intermediation.expertise.dto.ExpertPublicDTO(" +
+           "e.utilisateurId, e.titre, e.description, e.photoUrl, v.nom, p.nom, e.disponible, e.scoreGlobal) " +
+           "FROM Expertise e LEFT JOIN e.ville v LEFT JOIN v.pays p " +
+           "WHERE e.publiee = true AND (e.datePublication IS NULL OR e.datePublication <= :version) " +
+           "ORDER BY COALESCE(e.scoreGlobal, 0) DESC, e.utilisateurId ASC")
+    List<ExpertPublicDTO> findExpertsPubliesVersion(@Param("version") LocalDateTime version, Pageable pageable);
+
+    // Même projection (même version du catalogue), en reprenant strictement après
+    // le dernier expert de la page précédente
+    @Query("SELECT new com.intermediation.expertise.dto.ExpertPublicDTO(" +
+           "e.utilisateurId, e.titre, e.description, e.photoUrl, v.nom, p.nom, e.disponible, e.scoreGlobal) " +
+           "FROM Expertise e LEFT JOIN e.ville v LEFT JOIN v.pays p " +
+           "WHERE e.publiee = true AND (e.datePublication IS NULL OR e.datePublication <= :version) " +
+           "AND (COALESCE(e.scoreGlobal, 0) < :score " +
+           "     OR (COALESCE(e.scoreGlobal, 0) = :score AND e.utilisateurId > :utilisateurId)) " +
+           "ORDER BY COALESCE(e.scoreGlobal, 0) DESC, e.utilisateurId ASC")
+    List<ExpertPublicDTO> findExpertsPubliesApres(@Param("version") LocalDateTime version,
+                                                  @Param("score") BigDecimal score,
+                                                  @Param("utilisateurId") String utilisateurId,
+                                                  Pageable pageable);
+
+    // Identifiants des experts publiés à l'instant de la version, dans l'ordre du feed (classement figé)
+    @Query("SELECT e.utilisateurId FROM Expertise e " +
+           "WHERE e.publiee = true AND (e.datePublication IS NULL OR e.datePublication <= :version) " +
+           "ORDER BY COALESCE(e.scoreGlobal, 0) DESC, e.utilisateurId ASC")
+    List<String> findUtilisateurIdsPubliesClasses(@Param("version") LocalDateTime version);
+
+    // Même projection pour une tranche d'un classement figé (experts toujours publiés, ordre non garanti)
+    @Query("SELECT new com.intermediation.expertise.dto.ExpertPublicDTO(" +
+           "e.utilisateurId, e.titre, e.description, e.photoUrl, v.nom, p.nom, e.disponible, e.scoreGlobal) " +
+           "FROM Expertise e LEFT JOIN e.ville v LEFT JOIN v.pays p " +
+           "WHERE e.publiee = true AND e.utilisateurId IN :utilisateurIds")
+    List<ExpertPublicDTO> findExpertsPubliesByUtilisateurIdIn(@Param("utilisateurIds") List<String> utilisateurIds);
+
+    // Charge une page d'expertises avec ville et pays en une seule requête (pas de N+1)
+    @Query("SELECT e FROM Expertise e LEFT JOIN FETCH e.ville v LEFT JOIN FETCH v.pays WHERE e.id IN :ids")
+    List<Expertise> findAllAvecLocalisationByIdIn(@Param("ids") List<Long> ids);
+
+    // Lot suivant des experts au score absent ou calculé avant la limite, par identifiant croissant
+    @Query(value = "SELECT id, utilisateur_id FROM expertises " +
+                   "WHERE id > :dernierId AND (date_calcul_score IS NULL OR date_calcul_score < :limite) " +
+                   "ORDER BY id LIMIT :taille", nativeQuery = true)
+    List<Object[]> findLotScoresPerimes(@Param("dernierId") long dernierId,
+                                        @Param("limite") LocalDateTime limite,
+                                        @Param("taille") int taille);
+
+    @Query(value = "SELECT COUNT(*) FROM expertises " +
+                   "WHERE id > :dernierId AND (date_calcul_score IS NULL OR date_calcul_score < :limite)",
+           nativeQuery = true)
+    long countScoresPerimes(@Param("dernierId") long dernierId, @Param("limite") LocalDateTime limite);
 }
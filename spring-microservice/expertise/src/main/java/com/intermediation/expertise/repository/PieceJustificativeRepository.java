@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,6 +15,8 @@ public interface PieceJustificativeRepository extends JpaRepository<PieceJustifi
 
     // Recherches par demande
     List<PieceJustificative> findByDemandeIdOrderByDateAjoutAsc(Long demandeId);
+
+    List<PieceJustificative> findByDemandeIdInOrderByDateAjoutAsc(Collection<Long> demandeIds);
     
     List<PieceJustificative> findByDemandeIdAndTypePieceOrderByDateAjoutAsc(Long demandeId, TypePiece typePiece);
     
@@ -25,6 +28,11 @@ public interface PieceJustificativeRepository extends JpaRepository<PieceJustifi
     
     long countByDemandeId(Long demandeId);
     
+    @Query("SELECT p.demandeId, COUNT(p) FROM PieceJustificative p " +
+           "WHERE p.demandeId IN :demandeIds " +
+           "GROUP BY p.demandeId")
+    List<Object[]> countByDemandeIds(@Param("demandeIds") Collection<Long> demandeIds);
+    
     long countByDemandeIdAndEstVerifie(Long demandeId, Boolean estVerifie);
     
     // Statistiques
@@ -0,0 +1,20 @@
+package com.intermediation.expertise.repository;
+
+import com.intermediation.expertise.model.ScoreInitialisation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ScoreInitialisationRepository extends JpaRepository<ScoreInitialisation, String> {
+
+    // Verrouille la ligne jusqu'à la fin de la transaction (prise et renouvellement du bail)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ScoreInitialisation s WHERE s.id = :id")
+    Optional<ScoreInitialisation> findPourMiseAJour(@Param("id") String id);
+}
@@ -0,0 +1,35 @@
+package com.intermediation.expertise.scheduler;
+
+import com.intermediation.expertise.service.DecroissanceActiviteService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recalcul nocturne des experts dont le score d'activité a franchi un palier
+ */
+@Component
+public class DecroissanceActiviteScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecroissanceActiviteScheduler.class);
+
+    private final DecroissanceActiviteService decroissanceActiviteService;
+
+    public DecroissanceActiviteScheduler(DecroissanceActiviteService decroissanceActiviteService) {
+        this.decroissanceActiviteService = decroissanceActiviteService;
+    }
+
+    /**
+     * S'exécute tous les jours à 01:00 par défaut
+     */
+    @Scheduled(cron = "${score.decroissance.cron:0 0 1 * * *}")
+    public void recalculerPaliersFranchis() {
+        try {
+            int recalcules = decroissanceActiviteService.recalculerPaliersFranchis();
+            logger.info("✓ Décroissance d'activité: {} score(s) recalculé(s)", recalcules);
+        } catch (Exception e) {
+            logger.error("✗ Erreur lors de la décroissance des scores d'activité: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.intermediation.expertise.scheduler;
+
+import com.intermediation.expertise.service.HistoriqueScoreService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Consolidation journalière de l'historique des scores et purge selon les rétentions
+ */
+@Component
+public class HistoriqueScoreScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoriqueScoreScheduler.class);
+
+    private final HistoriqueScoreService historiqueScoreService;
+
+    public HistoriqueScoreScheduler(HistoriqueScoreService historiqueScoreService) {
+        this.historiqueScoreService = historiqueScoreService;
+    }
+
+    /**
+     * S'exécute tous les jours à 00:30 par défaut (après la journée écoulée)
+     */
+    @Scheduled(cron = "${score.historique.consolidation-cron:0 30 0 * * *}")
+    public void consoliderHistorique() {
+        try {
+            historiqueScoreService.consolider();
+        } catch (Exception e) {
+            logger.error("✗ Erreur lors de la consolidation de l'historique des scores: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -20,8 +20,10 @@ import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -45,7 +47,10 @@ public class BadgeService {
     private DemandeReconnaissanceRepository demandeRepository;
 
     @Autowired
-    private ScoreExpertService scoreExpertService;
+    private FileRecalculScoreService fileRecalculScoreService;
+
+    @Autowired
+    private ExpertRechercheStatsService expertRechercheStatsService;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -163,8 +168,11 @@ public class BadgeService {
         competenceRepository.findById(badge.getCompetenceId())
                 .ifPresent(c -> dto.setCompetenceNom(c.getNom()));
 
-        // Recalculer le score de l'expert de manière asynchrone
-        scoreExpertService.calculerScoreAsync(badge.getUtilisateurId());
+        // Mettre à jour les agrégats de recherche de l'expert
+        expertRechercheStatsService.rafraichirStatsExpert(badge.getUtilisateurId());
+
+        // Signaler l'expert pour le recalcul (regroupé) de son score
+        fileRecalculScoreService.signaler(badge.getUtilisateurId());
 
         return dto;
     }
@@ -259,8 +267,11 @@ public class BadgeService {
         badge.revoquer(motif, revoquePar);
         badgeRepository.save(badge);
 
-        // Recalculer le score de l'expert de manière asynchrone
-        scoreExpertService.calculerScoreAsync(badge.getUtilisateurId());
+        // Mettre à jour les agrégats de recherche de l'expert
+        expertRechercheStatsService.rafraichirStatsExpert(badge.getUtilisateurId());
+
+        // Signaler l'expert pour le recalcul (regroupé) de son score
+        fileRecalculScoreService.signaler(badge.getUtilisateurId());
 
         logger.info("Badge {} révoqué par {} : {}", badgeId, revoquePar, motif);
     }
@@ -325,9 +336,11 @@ public class BadgeService {
         logger.info("Nombre de badges expirés trouvés: {}", badgesExpires.size());
 
         int compteur = 0;
+        Set<String> utilisateursConcernes = new HashSet<>();
         for (BadgeCompetence badge : badgesExpires) {
             badge.setEstActif(false);
             badgeRepository.save(badge);
+            utilisateursConcernes.add(badge.getUtilisateurId());
             compteur++;
             logger.info("Badge #{} désactivé - ID: {}, Compétence: {}, Utilisateur: {}, Date expiration: {}",
                        compteur,
@@ -337,6 +350,9 @@ public class BadgeService {
                        badge.getDateExpiration());
         }
 
+        // Mettre à jour les agrégats de recherche des experts concernés
+        utilisateursConcernes.forEach(expertRechercheStatsService::rafraichirStatsExpert);
+
         logger.info("Total de {} badge(s) désactivé(s) avec succès", compteur);
     }
 
@@ -0,0 +1,101 @@
+package com.intermediation.expertise.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.intermediation.expertise.repository.ExpertiseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Classements figés des experts publiés, parcourus par le feed d'accueil.
+ *
+ * Le score global est recalculé en arrière-plan (file de recalcul, décroissance d'activité) :
+ * une pagination par clé sur le score courant renverrait deux fois, ou sauterait, un expert
+ * dont le score franchit le curseur entre deux pages. Le feed parcourt donc un classement figé
+ * (identifiants des experts publiés, dans l'ordre du score à l'instant de la version) :
+ * - un nouveau classement est figé au plus une fois par intervalle et partagé par tous
+ *   les parcours commencés pendant cet intervalle
+ * - quelques classements récents sont conservés ; un parcours dont le classement a expiré
+ *   continue par clé sur le score courant (voir ExpertiseService.getExpertsPubliesPage)
+ */
+@Service
+public class ClassementExpertsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClassementExpertsService.class);
+
+    // Nombre maximal de classements conservés
+    private static final int CLASSEMENTS_MAX = 5;
+
+    private final ExpertiseRepository expertiseRepository;
+    private final Cache<LocalDateTime, Classement> classements;
+    private final Duration intervalle;
+
+    private volatile Classement classementCourant;
+
+    public ClassementExpertsService(ExpertiseRepository expertiseRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${experts.classement.intervalle:1m}") Duration intervalle,
+                                    @Value("${experts.classement.retention:30m}") Duration retention) {
+        this.expertiseRepository = expertiseRepository;
+        this.intervalle = intervalle;
+        this.classements = Caffeine.newBuilder()
+                .maximumSize(CLASSEMENTS_MAX)
+                .expireAfterAccess(retention)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, classements, "classements-experts");
+    }
+
+    /**
+     * Classement à utiliser pour un nouveau parcours : le plus récent, ou un nouveau
+     * s'il a été figé il y a plus d'un intervalle
+     */
+    public synchronized Classement courant() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        Classement classement = classementCourant;
+        if (classement == null || classement.getVersion().plus(intervalle).isBefore(maintenant)) {
+            classement = new Classement(maintenant,
+                    List.copyOf(expertiseRepository.findUtilisateurIdsPubliesClasses(maintenant)));
+            classementCourant = classement;
+            log.debug("Classement des experts figé: {} expert(s) publié(s)", classement.getUtilisateurIds().size());
+        }
+        classements.put(classement.getVersion(), classement);
+        return classement;
+    }
+
+    /**
+     * Classement d'une version donnée (null s'il a expiré)
+     */
+    public Classement get(LocalDateTime version) {
+        return classements.getIfPresent(version);
+    }
+
+    /**
+     * Identifiants des experts publiés à l'instant de la version, par score décroissant
+     */
+    public static class Classement {
+        private final LocalDateTime version;
+        private final List<String> utilisateurIds;
+
+        Classement(LocalDateTime version, List<String> utilisateurIds) {
+            this.version = version;
+            this.utilisateurIds = utilisateurIds;
+        }
+
+        public LocalDateTime getVersion() {
+            return version;
+        }
+
+        public List<String> getUtilisateurIds() {
+            return utilisateurIds;
+        }
+    }
+}
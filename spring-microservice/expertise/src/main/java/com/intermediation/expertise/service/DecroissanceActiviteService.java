@@ -0,0 +1,182 @@
+package com.intermediation.expertise.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Décroissance du score d'activité.
+ *
+ * Le score d'activité baisse quand l'ancienneté du profil franchit un palier (30, 90, 180, 365 jours),
+ * sans qu'aucune modification ne déclenche de recalcul. Cette tâche ne recalcule que les experts
+ * dont l'ancienneté a franchi un palier depuis son dernier passage : pour chaque palier, une plage
+ * sur l'index idx_expertises_derniere_activite. Le travail est proportionnel au nombre de
+ * franchissements, pas à la taille du catalogue.
+ *
+ * La fenêtre est réservée pendant le traitement (réservation à échéance) et la date de dernière
+ * exécution n'avance qu'une fois tous les lots recalculés : après un arrêt ou un lot en erreur,
+ * la fenêtre entière est reprise au passage suivant (les recalculs sont idempotents).
+ */
+@Service
+public class DecroissanceActiviteService {
+
+    private static final Logger log = LoggerFactory.getLogger(DecroissanceActiviteService.class);
+
+    private static final String NOM_TACHE = "decroissance-activite";
+
+    private final ScoreExpertService scoreExpertService;
+    private final FileRecalculScoreService fileRecalculScoreService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${score.decroissance.taille-lot:500}")
+    private int tailleLot;
+
+    // Intervalle minimal entre deux passages (évite qu'une autre réplique refasse la même fenêtre)
+    @Value("${score.decroissance.intervalle-min:1h}")
+    private Duration intervalleMin;
+
+    // Durée de la réservation d'une fenêtre : au-delà, une instance arrêtée en cours de route est relayée
+    @Value("${score.decroissance.duree-reservation:30m}")
+    private Duration dureeReservation;
+
+    public DecroissanceActiviteService(ScoreExpertService scoreExpertService,
+                                       FileRecalculScoreService fileRecalculScoreService,
+                                       NamedParameterJdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager) {
+        this.scoreExpertService = scoreExpertService;
+        this.fileRecalculScoreService = fileRecalculScoreService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Recalcule les experts dont l'ancienneté a franchi un palier depuis le dernier passage
+     * @return nombre d'experts recalculés
+     */
+    public int recalculerPaliersFranchis() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        LocalDateTime precedent = reserverFenetre(maintenant);
+        if (precedent == null) {
+            log.info("Décroissance d'activité déjà traitée récemment ou en cours (autre instance), passage ignoré");
+            return 0;
+        }
+
+        int recalcules = 0;
+        int echecs = 0;
+        try {
+            List<String> utilisateurIds = jdbcTemplate.queryForList(
+                    requetePaliersFranchis(), parametresFenetre(precedent, maintenant), String.class);
+            log.info("Décroissance d'activité: {} expert(s) ont franchi un palier entre {} et {}",
+                    utilisateurIds.size(), precedent, maintenant);
+
+            for (int debut = 0; debut < utilisateurIds.size(); debut += tailleLot) {
+                List<String> lot = utilisateurIds.subList(debut, Math.min(debut + tailleLot, utilisateurIds.size()));
+                try {
+                    recalcules += scoreExpertService.recalculerScores(lot);
+                } catch (Exception e) {
+                    // Remis en file pour un recalcul rapide ; la fenêtre n'avance pas et sera reprise
+                    log.error("Erreur lors du recalcul de {} expert(s), fenêtre reprise au prochain passage: {}",
+                            lot.size(), e.getMessage());
+                    lot.forEach(fileRecalculScoreService::signaler);
+                    echecs++;
+                }
+            }
+        } catch (RuntimeException e) {
+            libererFenetre();
+            throw e;
+        }
+
+        if (echecs == 0) {
+            terminerFenetre(maintenant);
+        } else {
+            libererFenetre();
+        }
+        return recalcules;
+    }
+
+    /**
+     * Réserve la fenêtre ]dernière exécution, maintenant] sous verrou de ligne
+     * @return début de la fenêtre à traiter, ou null si un passage a eu lieu il y a moins de
+     *         l'intervalle minimal ou si une autre instance traite déjà la fenêtre
+     */
+    private LocalDateTime reserverFenetre(LocalDateTime maintenant) {
+        return transactionTemplate.execute(status -> {
+            MapSqlParameterSource parametres = new MapSqlParameterSource("nom", NOM_TACHE);
+            jdbcTemplate.update(
+                    "INSERT INTO taches_planifiees (nom) VALUES (:nom) ON CONFLICT (nom) DO NOTHING", parametres);
+            Map<String, Object> tache = jdbcTemplate.queryForMap(
+                    "SELECT derniere_execution, reservee_jusqua FROM taches_planifiees WHERE nom = :nom FOR UPDATE",
+                    parametres);
+            LocalDateTime derniere = enDate(tache.get("derniere_execution"));
+            LocalDateTime reserveeJusqua = enDate(tache.get("reservee_jusqua"));
+            if (reserveeJusqua != null && reserveeJusqua.isAfter(maintenant)) {
+                return null;
+            }
+            if (derniere != null && derniere.isAfter(maintenant.minus(intervalleMin))) {
+                return null;
+            }
+
+            parametres.addValue("echeance", Timestamp.valueOf(maintenant.plus(dureeReservation)));
+            jdbcTemplate.update("UPDATE taches_planifiees SET reservee_jusqua = :echeance WHERE nom = :nom", parametres);
+            // Premier passage : seule la dernière journée est examinée
+            return derniere != null ? derniere : maintenant.minusDays(1);
+        });
+    }
+
+    /**
+     * Fenêtre entièrement traitée : la dernière exécution avance jusqu'à sa fin
+     */
+    private void terminerFenetre(LocalDateTime fin) {
+        jdbcTemplate.update("""
+                UPDATE taches_planifiees SET derniere_execution = :fin, reservee_jusqua = NULL
+                WHERE nom = :nom
+                """, new MapSqlParameterSource("nom", NOM_TACHE).addValue("fin", Timestamp.valueOf(fin)));
+    }
+
+    /**
+     * Fenêtre non traitée en entier : réservation levée, la dernière exécution est inchangée
+     */
+    private void libererFenetre() {
+        jdbcTemplate.update("UPDATE taches_planifiees SET reservee_jusqua = NULL WHERE nom = :nom",
+                new MapSqlParameterSource("nom", NOM_TACHE));
+    }
+
+    private static LocalDateTime enDate(Object valeur) {
+        return valeur != null ? ((Timestamp) valeur).toLocalDateTime() : null;
+    }
+
+    /**
+     * Une plage par palier : l'ancienneté franchit p jours dans ]precedent, maintenant]
+     * si la dernière activité est dans ]precedent - p, maintenant - p]
+     */
+    private String requetePaliersFranchis() {
+        StringJoiner plages = new StringJoiner(" OR ");
+        for (int palier : ScoreExpertService.PALIERS_ACTIVITE_JOURS) {
+            plages.add("(COALESCE(date_modification, date_creation) > :debut" + palier
+                    + " AND COALESCE(date_modification, date_creation) <= :fin" + palier + ")");
+        }
+        return "SELECT utilisateur_id FROM expertises WHERE " + plages;
+    }
+
+    private MapSqlParameterSource parametresFenetre(LocalDateTime precedent, LocalDateTime maintenant) {
+        MapSqlParameterSource parametres = new MapSqlParameterSource();
+        for (int palier : ScoreExpertService.PALIERS_ACTIVITE_JOURS) {
+            parametres.addValue("debut" + palier, Timestamp.valueOf(precedent.minusDays(palier)));
+            parametres.addValue("fin" + palier, Timestamp.valueOf(maintenant.minusDays(palier)));
+        }
+        return parametres;
+    }
+}
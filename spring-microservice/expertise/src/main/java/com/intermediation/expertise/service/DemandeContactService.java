@@ -2,20 +2,16 @@ package com.intermediation.expertise.service;
 
 import com.intermediation.expertise.dto.CreerDemandeContactRequest;
 import com.intermediation.expertise.dto.DemandeContactDTO;
+import com.intermediation.expertise.dto.UtilisateurPublicDTO;
 import com.intermediation.expertise.model.DemandeContact;
 import com.intermediation.expertise.model.DemandeContact.StatutDemande;
 import com.intermediation.expertise.repository.DemandeContactRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -30,12 +26,12 @@ public class DemandeContactService {
     private static final Logger logger = LoggerFactory.getLogger(DemandeContactService.class);
 
     private final DemandeContactRepository demandeContactRepository;
-    private final RestTemplate restTemplate;
+    private final ProfilPublicCacheService profilPublicCacheService;
 
-    public DemandeContactService(DemandeContactRepository demandeContactRepository, RestTemplate restTemplate) {
+    public DemandeContactService(DemandeContactRepository demandeContactRepository,
+                                 ProfilPublicCacheService profilPublicCacheService) {
         this.demandeContactRepository = demandeContactRepository;
-        this.restTemplate = restTemplate;
-        logger.info("DemandeContactService initialisé avec RestTemplate: {}", restTemplate != null ? "OK" : "NULL");
+        this.profilPublicCacheService = profilPublicCacheService;
     }
 
     /**
@@ -109,11 +105,6 @@ public class DemandeContactService {
             return demandes;
         }
 
-        if (restTemplate == null) {
-            logger.warn("RestTemplate est null, impossible d'enrichir les demandes avec les noms");
-            return demandes;
-        }
-
         // Collecter tous les IDs uniques
         Set<String> userIds = demandes.stream()
                 .flatMap(d -> java.util.stream.Stream.of(d.getExpediteurId(), d.getDestinataireId()))
@@ -121,80 +112,31 @@ public class DemandeContactService {
 
         logger.info("Enrichissement de {} demandes avec les informations de {} utilisateurs", demandes.size(), userIds.size());
 
-        // Récupérer les informations utilisateurs depuis le service Auth
-        Map<String, Map<String, Object>> utilisateursMap = new HashMap<>();
-        for (String userId : userIds) {
-            Map<String, Object> userInfo = getUtilisateurPublic(userId);
-            if (userInfo != null) {
-                utilisateursMap.put(userId, userInfo);
-                logger.debug("Utilisateur {} récupéré: nom={}, prenom={}",
-                    userId, userInfo.get("nom"), userInfo.get("prenom"));
-            } else {
-                logger.warn("Aucune info trouvée pour l'utilisateur {}", userId);
-            }
-        }
+        // Récupérer les informations utilisateurs (cache local, puis service Auth par lots)
+        Map<String, UtilisateurPublicDTO> utilisateursMap = profilPublicCacheService.getProfils(userIds);
 
         logger.info("Infos récupérées pour {} utilisateurs sur {}", utilisateursMap.size(), userIds.size());
 
         // Enrichir les DTOs
         for (DemandeContactDTO demande : demandes) {
-            Map<String, Object> expediteur = utilisateursMap.get(demande.getExpediteurId());
+            UtilisateurPublicDTO expediteur = utilisateursMap.get(demande.getExpediteurId());
             if (expediteur != null) {
-                demande.setExpediteurNom((String) expediteur.get("nom"));
-                demande.setExpediteurPrenom((String) expediteur.get("prenom"));
-                demande.setExpediteurHasPhoto(Boolean.TRUE.equals(expediteur.get("hasPhoto")));
+                demande.setExpediteurNom(expediteur.getNom());
+                demande.setExpediteurPrenom(expediteur.getPrenom());
+                demande.setExpediteurHasPhoto(expediteur.isHasPhoto());
             }
 
-            Map<String, Object> destinataire = utilisateursMap.get(demande.getDestinataireId());
+            UtilisateurPublicDTO destinataire = utilisateursMap.get(demande.getDestinataireId());
             if (destinataire != null) {
-                demande.setDestinataireNom((String) destinataire.get("nom"));
-                demande.setDestinatairePrenom((String) destinataire.get("prenom"));
-                demande.setDestinataireHasPhoto(Boolean.TRUE.equals(destinataire.get("hasPhoto")));
+                demande.setDestinataireNom(destinataire.getNom());
+                demande.setDestinatairePrenom(destinataire.getPrenom());
+                demande.setDestinataireHasPhoto(destinataire.isHasPhoto());
             }
         }
 
         return demandes;
     }
 
-    /**
-     * Récupérer les informations publiques d'un utilisateur depuis le service Auth
-     */
-    private Map<String, Object> getUtilisateurPublic(String utilisateurId) {
-        if (utilisateurId == null || utilisateurId.isEmpty()) {
-            logger.warn("ID utilisateur null ou vide");
-            return null;
-        }
-
-        try {
-            // Appel vers le service Auth via Eureka
-            String authServiceUrl = "http://auth/api/profil/public/" + utilisateurId;
-            logger.info("Appel REST vers: {}", authServiceUrl);
-
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                authServiceUrl,
-                HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<Map<String, Object>>() {}
-            );
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                Map<String, Object> body = response.getBody();
-                logger.info("Utilisateur {} récupéré avec succès - nom: {}, prenom: {}",
-                    utilisateurId, body.get("nom"), body.get("prenom"));
-                return body;
-            } else {
-                logger.warn("Réponse vide ou erreur pour l'utilisateur {}: status={}",
-                    utilisateurId, response.getStatusCode());
-            }
-        } catch (RestClientException e) {
-            logger.error("Erreur REST lors de la récupération de l'utilisateur {}: {}", utilisateurId, e.getMessage());
-        } catch (Exception e) {
-            logger.error("Erreur inattendue lors de la récupération de l'utilisateur {}: {} - {}",
-                utilisateurId, e.getClass().getSimpleName(), e.getMessage());
-        }
-        return null;
-    }
-
     /**
      * Compter les demandes non lues
      */
@@ -242,32 +184,31 @@ public class DemandeContactService {
      * Enrichir une seule demande avec les noms des utilisateurs
      */
     private DemandeContactDTO enrichirUneDemande(DemandeContactDTO demande) {
-        if (restTemplate == null) {
-            logger.warn("RestTemplate null, impossible d'enrichir la demande {}", demande.getId());
-            return demande;
-        }
-
         logger.info("Enrichissement de la demande {} (expediteur: {}, destinataire: {})",
             demande.getId(), demande.getExpediteurId(), demande.getDestinataireId());
 
+        // Expéditeur et destinataire récupérés en un seul appel
+        Map<String, UtilisateurPublicDTO> utilisateurs = profilPublicCacheService.getProfils(
+            Arrays.asList(demande.getExpediteurId(), demande.getDestinataireId()));
+
         // Enrichir expéditeur
-        Map<String, Object> expediteur = getUtilisateurPublic(demande.getExpediteurId());
+        UtilisateurPublicDTO expediteur = utilisateurs.get(demande.getExpediteurId());
         if (expediteur != null) {
-            demande.setExpediteurNom((String) expediteur.get("nom"));
-            demande.setExpediteurPrenom((String) expediteur.get("prenom"));
-            demande.setExpediteurHasPhoto(Boolean.TRUE.equals(expediteur.get("hasPhoto")));
-            logger.debug("Expéditeur enrichi: {} {}", expediteur.get("prenom"), expediteur.get("nom"));
+            demande.setExpediteurNom(expediteur.getNom());
+            demande.setExpediteurPrenom(expediteur.getPrenom());
+            demande.setExpediteurHasPhoto(expediteur.isHasPhoto());
+            logger.debug("Expéditeur enrichi: {} {}", expediteur.getPrenom(), expediteur.getNom());
         } else {
             logger.warn("Impossible d'enrichir l'expéditeur {}", demande.getExpediteurId());
         }
 
         // Enrichir destinataire
-        Map<String, Object> destinataire = getUtilisateurPublic(demande.getDestinataireId());
+        UtilisateurPublicDTO destinataire = utilisateurs.get(demande.getDestinataireId());
         if (destinataire != null) {
-            demande.setDestinataireNom((String) destinataire.get("nom"));
-            demande.setDestinatairePrenom((String) destinataire.get("prenom"));
-            demande.setDestinataireHasPhoto(Boolean.TRUE.equals(destinataire.get("hasPhoto")));
-            logger.debug("Destinataire enrichi: {} {}", destinataire.get("prenom"), destinataire.get("nom"));
+            demande.setDestinataireNom(destinataire.getNom());
+            demande.setDestinatairePrenom(destinataire.getPrenom());
+            demande.setDestinataireHasPhoto(destinataire.isHasPhoto());
+            logger.debug("Destinataire enrichi: {} {}", destinataire.getPrenom(), destinataire.getNom());
         } else {
             logger.warn("Impossible d'enrichir le destinataire {}", demande.getDestinataireId());
         }
@@ -0,0 +1,194 @@
+package com.intermediation.expertise.service;
+
+import com.intermediation.expertise.dto.BadgeCompetenceDTO;
+import com.intermediation.expertise.dto.DemandeReconnaissanceDTO;
+import com.intermediation.expertise.dto.EvaluationCompetenceDTO;
+import com.intermediation.expertise.dto.PieceJustificativeDTO;
+import com.intermediation.expertise.dto.UtilisateurPublicDTO;
+import com.intermediation.expertise.model.BadgeCompetence;
+import com.intermediation.expertise.model.Competence;
+import com.intermediation.expertise.model.DemandeReconnaissanceCompetence;
+import com.intermediation.expertise.model.DemandeReconnaissanceCompetence.StatutDemande;
+import com.intermediation.expertise.model.EvaluationCompetence;
+import com.intermediation.expertise.model.PieceJustificative;
+import com.intermediation.expertise.repository.BadgeCompetenceRepository;
+import com.intermediation.expertise.repository.CompetenceReferenceRepository;
+import com.intermediation.expertise.repository.CompetenceRepository;
+import com.intermediation.expertise.repository.EvaluationCompetenceRepository;
+import com.intermediation.expertise.repository.PieceJustificativeRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Construction des DTO de demandes de reconnaissance par lots.
+ *
+ * Les données associées (compétences, code de domaine, nombre de pièces, nom du traitant et,
+ * avec les détails, pièces, évaluations et badges) sont chargées pour toute la liste en
+ * quelques requêtes groupées (IN, GROUP BY), puis les DTO sont construits à partir de maps :
+ * le nombre de requêtes ne dépend plus de la taille de la page.
+ */
+@Service
+public class DemandeReconnaissanceAssembleur {
+
+    private final CompetenceRepository competenceRepository;
+    private final CompetenceReferenceRepository competenceReferenceRepository;
+    private final PieceJustificativeRepository pieceRepository;
+    private final EvaluationCompetenceRepository evaluationRepository;
+    private final BadgeCompetenceRepository badgeRepository;
+    private final ProfilPublicCacheService profilPublicCacheService;
+
+    public DemandeReconnaissanceAssembleur(CompetenceRepository competenceRepository,
+                                           CompetenceReferenceRepository competenceReferenceRepository,
+                                           PieceJustificativeRepository pieceRepository,
+                                           EvaluationCompetenceRepository evaluationRepository,
+                                           BadgeCompetenceRepository badgeRepository,
+                                           ProfilPublicCacheService profilPublicCacheService) {
+        this.competenceRepository = competenceRepository;
+        this.competenceReferenceRepository = competenceReferenceRepository;
+        this.pieceRepository = pieceRepository;
+        this.evaluationRepository = evaluationRepository;
+        this.badgeRepository = badgeRepository;
+        this.profilPublicCacheService = profilPublicCacheService;
+    }
+
+    /**
+     * DTO résumés (compétence, niveau, nombre de pièces, nom du traitant), dans l'ordre des demandes
+     */
+    public List<DemandeReconnaissanceDTO> versDTO(List<DemandeReconnaissanceCompetence> demandes) {
+        return assembler(demandes, false);
+    }
+
+    /**
+     * DTO complets : résumé, plus pièces justificatives, évaluation et badge des demandes approuvées
+     */
+    public List<DemandeReconnaissanceDTO> versDTOAvecDetails(List<DemandeReconnaissanceCompetence> demandes) {
+        return assembler(demandes, true);
+    }
+
+    public DemandeReconnaissanceDTO versDTO(DemandeReconnaissanceCompetence demande) {
+        return assembler(List.of(demande), false).get(0);
+    }
+
+    public DemandeReconnaissanceDTO versDTOAvecDetails(DemandeReconnaissanceCompetence demande) {
+        return assembler(List.of(demande), true).get(0);
+    }
+
+    public Page<DemandeReconnaissanceDTO> versDTO(Page<DemandeReconnaissanceCompetence> page) {
+        return new PageImpl<>(versDTO(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    public Page<DemandeReconnaissanceDTO> versDTOAvecDetails(Page<DemandeReconnaissanceCompetence> page) {
+        return new PageImpl<>(versDTOAvecDetails(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    private List<DemandeReconnaissanceDTO> assembler(List<DemandeReconnaissanceCompetence> demandes, boolean details) {
+        if (demandes.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> demandeIds = demandes.stream()
+                .map(DemandeReconnaissanceCompetence::getId)
+                .collect(Collectors.toSet());
+
+        // Compétences, puis code du domaine de leur référence
+        Map<Long, Competence> competences = competenceRepository.findAllById(demandes.stream()
+                        .map(DemandeReconnaissanceCompetence::getCompetenceId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Competence::getId, c -> c));
+
+        Set<Long> referenceIds = competences.values().stream()
+                .map(Competence::getCompetenceReferenceId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, String> codesDomaine = new HashMap<>();
+        if (!referenceIds.isEmpty()) {
+            for (Object[] ligne : competenceReferenceRepository.findCodesDomaineByIds(referenceIds)) {
+                codesDomaine.put((Long) ligne[0], (String) ligne[1]);
+            }
+        }
+
+        Map<Long, Long> nombresPieces = new HashMap<>();
+        for (Object[] ligne : pieceRepository.countByDemandeIds(demandeIds)) {
+            nombresPieces.put((Long) ligne[0], (Long) ligne[1]);
+        }
+
+        // Un seul appel (mis en cache) pour les noms de tous les traitants de la liste
+        Map<String, UtilisateurPublicDTO> traitants = profilPublicCacheService.getProfils(demandes.stream()
+                .map(DemandeReconnaissanceCompetence::getTraitantId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        Map<Long, List<PieceJustificativeDTO>> pieces = Map.of();
+        Map<Long, EvaluationCompetence> evaluations = Map.of();
+        Map<Long, BadgeCompetence> badges = Map.of();
+        if (details) {
+            pieces = pieceRepository.findByDemandeIdInOrderByDateAjoutAsc(demandeIds).stream()
+                    .collect(Collectors.groupingBy(PieceJustificative::getDemandeId,
+                            Collectors.mapping(PieceJustificativeDTO::new, Collectors.toList())));
+            evaluations = evaluationRepository.findByDemandeIdIn(demandeIds).stream()
+                    .collect(Collectors.toMap(EvaluationCompetence::getDemandeId, e -> e, (e1, e2) -> e1));
+
+            Set<Long> approuvees = demandes.stream()
+                    .filter(d -> d.getStatut() == StatutDemande.APPROUVEE)
+                    .map(DemandeReconnaissanceCompetence::getId)
+                    .collect(Collectors.toSet());
+            if (!approuvees.isEmpty()) {
+                badges = badgeRepository.findByDemandeReconnaissanceIdIn(approuvees).stream()
+                        .collect(Collectors.toMap(BadgeCompetence::getDemandeReconnaissanceId, b -> b, (b1, b2) -> b1));
+            }
+        }
+
+        List<DemandeReconnaissanceDTO> dtos = new ArrayList<>(demandes.size());
+        for (DemandeReconnaissanceCompetence demande : demandes) {
+            DemandeReconnaissanceDTO dto = new DemandeReconnaissanceDTO(demande);
+
+            Competence competence = competences.get(demande.getCompetenceId());
+            if (competence != null) {
+                dto.setCompetenceNom(competence.getNom());
+                dto.setCompetenceReferenceId(competence.getCompetenceReferenceId());
+                // Niveau déterminé par le domaine de compétence de la référence
+                if (competence.getCompetenceReferenceId() != null) {
+                    dto.setNiveauDetermine(codesDomaine.get(competence.getCompetenceReferenceId()));
+                }
+            }
+            dto.setNombrePieces(nombresPieces.getOrDefault(demande.getId(), 0L).intValue());
+
+            UtilisateurPublicDTO traitant = demande.getTraitantId() != null ? traitants.get(demande.getTraitantId()) : null;
+            if (traitant != null) {
+                dto.setTraitantNom(nomComplet(traitant));
+            }
+
+            if (details) {
+                dto.setPieces(pieces.getOrDefault(demande.getId(), new ArrayList<>()));
+                EvaluationCompetence evaluation = evaluations.get(demande.getId());
+                if (evaluation != null) {
+                    dto.setEvaluation(new EvaluationCompetenceDTO(evaluation));
+                }
+                BadgeCompetence badge = badges.get(demande.getId());
+                if (badge != null) {
+                    dto.setBadge(new BadgeCompetenceDTO(badge));
+                }
+            }
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    private String nomComplet(UtilisateurPublicDTO utilisateur) {
+        if (utilisateur.getPrenom() != null && utilisateur.getNom() != null) {
+            return utilisateur.getPrenom() + " " + utilisateur.getNom();
+        }
+        return utilisateur.getNom() != null ? utilisateur.getNom() : utilisateur.getPrenom();
+    }
+}
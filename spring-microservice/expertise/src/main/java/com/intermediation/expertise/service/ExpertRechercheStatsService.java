@@ -0,0 +1,52 @@
+package com.intermediation.expertise.service;
+
+import com.intermediation.expertise.repository.ExpertRechercheStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service de maintenance de la table d'agrégats de recherche (expert_recherche_stats).
+ *
+ * Les services qui modifient les compétences, les badges ou le réseau appellent
+ * rafraichirStatsExpert dans leur propre transaction : la ligne de l'expert est
+ * recalculée en une seule requête et reste cohérente avec les données sources.
+ */
+@Service
+public class ExpertRechercheStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpertRechercheStatsService.class);
+
+    private final ExpertRechercheStatsRepository statsRepository;
+
+    public ExpertRechercheStatsService(ExpertRechercheStatsRepository statsRepository) {
+        this.statsRepository = statsRepository;
+    }
+
+    /**
+     * Recalcule les agrégats de recherche d'un expert
+     */
+    @Transactional
+    public void rafraichirStatsExpert(String utilisateurId) {
+        if (utilisateurId == null) {
+            return;
+        }
+        statsRepository.rafraichirPourUtilisateur(utilisateurId);
+        log.debug("Agrégats de recherche mis à jour pour l'expert {}", utilisateurId);
+    }
+
+    /**
+     * Reconstruit entièrement la table d'agrégats (commande d'administration)
+     * @return nombre de lignes recalculées
+     */
+    @Transactional
+    public int reconstruireToutesLesStats() {
+        log.info("Reconstruction complète des agrégats de recherche...");
+        int misesAJour = statsRepository.reconstruireTout();
+        int supprimees = statsRepository.supprimerOrphelins();
+        log.info("Reconstruction terminée: {} ligne(s) recalculée(s), {} orpheline(s) supprimée(s)",
+                misesAJour, supprimees);
+        return misesAJour;
+    }
+}
@@ -5,15 +5,32 @@ import com.intermediation.expertise.dto.ExpertiseCompletDTO;
 import com.intermediation.expertise.dto.ExpertiseDTO;
 import com.intermediation.expertise.dto.ExpertPublicDTO;
 import com.intermediation.expertise.dto.ExpertPublicDTO.CompetencePublicDTO;
+import com.intermediation.expertise.dto.ExpertsPublicsPageDTO;
 import com.intermediation.expertise.model.Competence;
 import com.intermediation.expertise.model.Expertise;
 import com.intermediation.expertise.repository.CompetenceRepository;
 import com.intermediation.expertise.repository.ExpertiseRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import com.intermediation.expertise.repository.VilleRepository;
 import com.intermediation.expertise.repository.PaysRepository;
@@ -23,22 +40,37 @@ import com.intermediation.expertise.model.Pays;
 @Service
 public class ExpertiseService {
 
+    // Taille maximale d'une page de recherche
+    private static final int TAILLE_MAX_RECHERCHE = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final CompetenceRepository competenceRepository;
     private final ExpertiseRepository expertiseRepository;
     private final VilleRepository villeRepository;
     private final PaysRepository paysRepository;
-    private final ScoreExpertService scoreExpertService;
+    private final FileRecalculScoreService fileRecalculScoreService;
+    private final ExpertRechercheStatsService expertRechercheStatsService;
+    private final FacettesRechercheService facettesRechercheService;
+    private final ClassementExpertsService classementExpertsService;
 
     public ExpertiseService(CompetenceRepository competenceRepository,
                            ExpertiseRepository expertiseRepository,
                            VilleRepository villeRepository,
                            PaysRepository paysRepository,
-                           ScoreExpertService scoreExpertService) {
+                           FileRecalculScoreService fileRecalculScoreService,
+                           ExpertRechercheStatsService expertRechercheStatsService,
+                           FacettesRechercheService facettesRechercheService,
+                           ClassementExpertsService classementExpertsService) {
         this.competenceRepository = competenceRepository;
         this.expertiseRepository = expertiseRepository;
         this.villeRepository = villeRepository;
         this.paysRepository = paysRepository;
-        this.scoreExpertService = scoreExpertService;
+        this.fileRecalculScoreService = fileRecalculScoreService;
+        this.expertRechercheStatsService = expertRechercheStatsService;
+        this.facettesRechercheService = facettesRechercheService;
+        this.classementExpertsService = classementExpertsService;
     }
 
     /**
@@ -151,12 +183,21 @@ public class ExpertiseService {
             validateExpertiseAvantPublication(expertise, utilisateurId);
         }
         
+        boolean etaitPubliee = Boolean.TRUE.equals(expertise.getPubliee());
         expertise.setPubliee(expertiseDTO.getPubliee()); // Mettre à jour l'état de publication
 
         Expertise saved = expertiseRepository.save(expertise);
 
-        // Recalculer le score de l'expert de manière asynchrone
-        scoreExpertService.calculerScoreAsync(utilisateurId);
+        // S'assurer que l'expert possède sa ligne d'agrégats de recherche
+        expertRechercheStatsService.rafraichirStatsExpert(utilisateurId);
+
+        // Les facettes de recherche ne portent que sur les expertises publiées
+        if (etaitPubliee != Boolean.TRUE.equals(saved.getPubliee())) {
+            facettesRechercheService.signalerChangementPublication();
+        }
+
+        // Signaler l'expert pour le recalcul (regroupé) de son score
+        fileRecalculScoreService.signaler(utilisateurId);
 
         return new ExpertiseDTO(saved);
     }
@@ -204,6 +245,10 @@ public class ExpertiseService {
 
         expertise.setPubliee(true);
         Expertise saved = expertiseRepository.save(expertise);
+
+        // Rafraîchir les facettes de recherche après le commit
+        facettesRechercheService.signalerChangementPublication();
+
         return new ExpertiseDTO(saved);
     }
 
@@ -217,6 +262,10 @@ public class ExpertiseService {
 
         expertise.setPubliee(false);
         Expertise saved = expertiseRepository.save(expertise);
+
+        // Rafraîchir les facettes de recherche après le commit
+        facettesRechercheService.signalerChangementPublication();
+
         return new ExpertiseDTO(saved);
     }
 
@@ -298,8 +347,11 @@ public class ExpertiseService {
 
         Competence saved = competenceRepository.save(competence);
 
-        // Recalculer le score de l'expert de manière asynchrone
-        scoreExpertService.calculerScoreAsync(utilisateurId);
+        // Mettre à jour les agrégats de recherche de l'expert
+        expertRechercheStatsService.rafraichirStatsExpert(utilisateurId);
+
+        // Signaler l'expert pour le recalcul (regroupé) de son score
+        fileRecalculScoreService.signaler(utilisateurId);
 
         return new CompetenceDTO(saved);
     }
@@ -328,8 +380,11 @@ public class ExpertiseService {
 
         Competence updated = competenceRepository.save(competence);
 
-        // Recalculer le score de l'expert de manière asynchrone
-        scoreExpertService.calculerScoreAsync(utilisateurId);
+        // Mettre à jour les agrégats de recherche de l'expert
+        expertRechercheStatsService.rafraichirStatsExpert(utilisateurId);
+
+        // Signaler l'expert pour le recalcul (regroupé) de son score
+        fileRecalculScoreService.signaler(utilisateurId);
 
         return new CompetenceDTO(updated);
     }
@@ -348,102 +403,260 @@ public class ExpertiseService {
 
         competenceRepository.deleteById(competenceId);
 
-        // Recalculer le score de l'expert de manière asynchrone
-        scoreExpertService.calculerScoreAsync(utilisateurId);
+        // Mettre à jour les agrégats de recherche de l'expert
+        expertRechercheStatsService.rafraichirStatsExpert(utilisateurId);
+
+        // Signaler l'expert pour le recalcul (regroupé) de son score
+        fileRecalculScoreService.signaler(utilisateurId);
     }
 
     /**
      * Récupère tous les experts publiés avec leurs compétences (pour le feed d'accueil)
-     * Triés par score global décroissant (les meilleurs experts en premier)
+     * Triés par score global décroissant (les meilleurs experts en premier).
+     * Deux requêtes projetées en DTO : les experts, puis toutes leurs compétences.
+     * Préférer getExpertsPubliesPage, qui ne lit que la tranche affichée.
      */
     @Transactional(readOnly = true)
     public List<ExpertPublicDTO> getExpertsPublies() {
-        // Utiliser le tri par score global décroissant
-        List<Expertise> expertisesPubliees = expertiseRepository.findByPublieeTrueOrderByScoreGlobalDesc();
-
-        return expertisesPubliees.stream()
-                .map(expertise -> {
-                    ExpertPublicDTO dto = new ExpertPublicDTO();
-                    dto.setUtilisateurId(expertise.getUtilisateurId());
-                    dto.setTitre(expertise.getTitre());
-                    dto.setDescription(expertise.getDescription());
-                    dto.setPhotoUrl(expertise.getPhotoUrl());
-                    dto.setLocalisation(expertise.getLocalisation());
-                    dto.setDisponible(expertise.getDisponible());
-                    dto.setScoreGlobal(expertise.getScoreGlobal()); // Inclure le score
-
-                    // Récupérer les compétences de l'expert
-                    List<CompetencePublicDTO> competences = competenceRepository
-                            .findByUtilisateurId(expertise.getUtilisateurId())
-                            .stream()
-                            .map(comp -> {
-                                CompetencePublicDTO compDto = new CompetencePublicDTO();
-                                compDto.setNom(comp.getNom());
-                                compDto.setDescription(comp.getDescription());
-                                compDto.setNiveauMaitrise(comp.getNiveauMaitrise());
-                                compDto.setAnneesExperience(comp.getAnneesExperience());
-                                compDto.setThm(comp.getThm());
-                                compDto.setNombreProjets(comp.getNombreProjets());
-                                compDto.setCertifications(comp.getCertifications());
-                                compDto.setEstFavorite(comp.getEstFavorite());
-                                return compDto;
-                            })
-                            .collect(Collectors.toList());
-
-                    dto.setCompetences(competences);
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        List<ExpertPublicDTO> experts = expertiseRepository.findExpertsPublies(Pageable.unpaged());
+        associerCompetences(experts, competenceRepository.findCompetencesPubliquesDesExpertsPublies());
+        return experts;
+    }
+
+    /**
+     * Récupère une page d'experts publiés (pagination par curseur, triés par score décroissant).
+     * Deux requêtes projetées en DTO quelle que soit la taille de la page :
+     * les experts de la page, puis leurs compétences.
+     *
+     * Le parcours suit un classement figé à la première page (voir {@link ClassementExpertsService}) :
+     * les experts publiés ensuite n'apparaissent pas, et un recalcul de score en cours de parcours
+     * ne fait ni sauter ni répéter d'expert. Si ce classement a expiré, la suite du parcours
+     * reprend par clé (score courant, utilisateurId) après le dernier expert affiché.
+     *
+     * @param curseur curseur renvoyé par la page précédente (null pour la première page)
+     * @param taille nombre d'experts souhaités (100 au maximum)
+     */
+    @Transactional(readOnly = true)
+    public ExpertsPublicsPageDTO getExpertsPubliesPage(String curseur, int taille) {
+        int tailleEffective = Math.min(Math.max(taille, 1), TAILLE_MAX_RECHERCHE);
+
+        ClassementExpertsService.Classement classement;
+        int position;
+        if (curseur == null || curseur.isBlank()) {
+            classement = classementExpertsService.courant();
+            position = 0;
+        } else {
+            CurseurExperts cle = decoderCurseurExperts(curseur);
+            classement = cle.position >= 0 ? classementExpertsService.get(cle.version) : null;
+            if (classement == null) {
+                return getExpertsPubliesApres(cle, tailleEffective);
+            }
+            position = cle.position;
+        }
+
+        List<String> ids = classement.getUtilisateurIds();
+        int fin = Math.min(position + tailleEffective, ids.size());
+        List<String> tranche = position < fin ? ids.subList(position, fin) : List.of();
+        List<ExpertPublicDTO> experts = new ArrayList<>();
+        if (!tranche.isEmpty()) {
+            // Ordre du classement ; un expert dépublié depuis est simplement absent
+            Map<String, ExpertPublicDTO> parId = expertiseRepository.findExpertsPubliesByUtilisateurIdIn(tranche)
+                    .stream()
+                    .collect(Collectors.toMap(ExpertPublicDTO::getUtilisateurId, e -> e, (e1, e2) -> e1));
+            for (String id : tranche) {
+                ExpertPublicDTO expert = parId.get(id);
+                if (expert != null) {
+                    experts.add(expert);
+                }
+            }
+        }
+
+        String curseurSuivant = null;
+        if (fin < ids.size()) {
+            // Le score et l'identifiant du dernier expert affiché ne servent qu'à la reprise par clé
+            ExpertPublicDTO dernier = experts.isEmpty() ? null : experts.get(experts.size() - 1);
+            curseurSuivant = encoderCurseurExperts(classement.getVersion(), fin,
+                    dernier != null ? dernier.getScoreGlobal() : null,
+                    dernier != null ? dernier.getUtilisateurId() : ids.get(fin - 1));
+        }
+        return pageExperts(experts, curseurSuivant, tailleEffective, classement.getVersion());
+    }
+
+    /**
+     * Suite d'un parcours dont le classement a expiré : par clé sur le score courant,
+     * limitée aux experts publiés au plus tard à l'instant de la version
+     */
+    private ExpertsPublicsPageDTO getExpertsPubliesApres(CurseurExperts cle, int tailleEffective) {
+        // Une ligne de plus pour savoir s'il existe une page suivante
+        List<ExpertPublicDTO> experts = expertiseRepository.findExpertsPubliesApres(cle.version, cle.score,
+                cle.utilisateurId, PageRequest.of(0, tailleEffective + 1));
+
+        String curseurSuivant = null;
+        if (experts.size() > tailleEffective) {
+            experts = new ArrayList<>(experts.subList(0, tailleEffective));
+            ExpertPublicDTO dernier = experts.get(experts.size() - 1);
+            curseurSuivant = encoderCurseurExperts(cle.version, -1, dernier.getScoreGlobal(), dernier.getUtilisateurId());
+        }
+        return pageExperts(experts, curseurSuivant, tailleEffective, cle.version);
+    }
+
+    private ExpertsPublicsPageDTO pageExperts(List<ExpertPublicDTO> experts, String curseurSuivant,
+                                              int tailleEffective, LocalDateTime version) {
+        if (!experts.isEmpty()) {
+            associerCompetences(experts, competenceRepository.findCompetencesPubliquesByUtilisateurIdIn(
+                    experts.stream().map(ExpertPublicDTO::getUtilisateurId).collect(Collectors.toList())));
+        }
+        return new ExpertsPublicsPageDTO(experts, curseurSuivant, tailleEffective, version.toString());
+    }
+
+    /**
+     * Rattache à chaque expert ses compétences (chargées en une seule requête)
+     */
+    private void associerCompetences(List<ExpertPublicDTO> experts, List<CompetencePublicDTO> competences) {
+        Map<String, List<CompetencePublicDTO>> competencesParExpert = competences.stream()
+                .collect(Collectors.groupingBy(CompetencePublicDTO::getUtilisateurId));
+        for (ExpertPublicDTO expert : experts) {
+            expert.setCompetences(competencesParExpert.getOrDefault(expert.getUtilisateurId(), new ArrayList<>()));
+        }
     }
 
     /**
-     * Recherche d'expertises avec critères multiples
-     * Retourne des ExpertiseDTO enrichis avec les compétences
+     * Curseur opaque : version du catalogue, position dans le classement figé (-1 pour la reprise par clé),
+     * score (0 si absent) et utilisateurId du dernier expert de la page
+     */
+    private String encoderCurseurExperts(LocalDateTime version, int position, BigDecimal score, String utilisateurId) {
+        BigDecimal cleScore = score != null ? score : BigDecimal.ZERO;
+        String cle = version + "|" + position + "|" + cleScore.toPlainString() + "|" + utilisateurId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cle.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CurseurExperts decoderCurseurExperts(String curseur) {
+        try {
+            String cle = new String(Base64.getUrlDecoder().decode(curseur), StandardCharsets.UTF_8);
+            String[] parties = cle.split("\\|", 4);
+            if (parties.length == 3 && !parties[2].isEmpty()) {
+                // Ancien format (version|score|utilisateurId) : reprise par clé
+                return new CurseurExperts(LocalDateTime.parse(parties[0]), -1, new BigDecimal(parties[1]), parties[2]);
+            }
+            if (parties.length != 4 || parties[3].isEmpty()) {
+                throw new IllegalArgumentException();
+            }
+            int position = Integer.parseInt(parties[1]);
+            if (position < -1) {
+                throw new IllegalArgumentException();
+            }
+            return new CurseurExperts(LocalDateTime.parse(parties[0]), position, new BigDecimal(parties[2]), parties[3]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Curseur invalide");
+        }
+    }
+
+    /**
+     * Position décodée d'un curseur du feed d'experts
+     */
+    private static class CurseurExperts {
+        private final LocalDateTime version;
+        private final int position;
+        private final BigDecimal score;
+        private final String utilisateurId;
+
+        private CurseurExperts(LocalDateTime version, int position, BigDecimal score, String utilisateurId) {
+            this.version = version;
+            this.position = position;
+            this.score = score;
+            this.utilisateurId = utilisateurId;
+        }
+    }
+
+    /**
+     * Recherche d'expertises avec critères multiples, paginée.
+     * Les filtres et la pagination sont appliqués en SQL ; le terme utilise l'index GIN
+     * sur recherche_texte (titre et description, correspondance par préfixe de mot).
      * Triés par score global décroissant
      */
     @Transactional(readOnly = true)
-    public List<ExpertiseDTO> rechercherExpertises(String terme, Long villeId, Long paysId, Boolean disponible) {
-        // Utiliser le tri par score global décroissant
-        List<Expertise> expertises = expertiseRepository.findByPublieeTrueOrderByScoreGlobalDesc();
-        
-        // Filtrer par terme de recherche (titre, description)
-        if (terme != null && !terme.trim().isEmpty()) {
-            String termeLower = terme.toLowerCase();
-            expertises = expertises.stream()
-                .filter(exp -> 
-                    (exp.getTitre() != null && exp.getTitre().toLowerCase().contains(termeLower)) ||
-                    (exp.getDescription() != null && exp.getDescription().toLowerCase().contains(termeLower))
-                )
-                .collect(Collectors.toList());
+    public Page<ExpertiseDTO> rechercherExpertises(String terme, Long villeId, Long paysId, Boolean disponible,
+                                                   Pageable pageable) {
+        int taille = Math.min(Math.max(pageable.getPageSize(), 1), TAILLE_MAX_RECHERCHE);
+        Pageable page = PageRequest.of(pageable.getPageNumber(), taille);
+
+        // FROM et WHERE communs à la page et au comptage
+        StringBuilder filtres = new StringBuilder("FROM expertises e\n");
+        Map<String, Object> params = new HashMap<>();
+        if (villeId == null && paysId != null) {
+            filtres.append("JOIN villes v ON v.id = e.ville_id\n");
         }
-        
-        // Filtrer par ville
-        if (villeId != null) {
-            expertises = expertises.stream()
-                .filter(exp -> exp.getVille() != null && exp.getVille().getId().equals(villeId))
-                .collect(Collectors.toList());
+        filtres.append("WHERE e.publiee = true\n");
+
+        String requeteTexte = construireRequeteTexte(terme);
+        if (requeteTexte != null) {
+            filtres.append("AND e.recherche_texte @@ to_tsquery('french', :requeteTexte)\n");
+            params.put("requeteTexte", requeteTexte);
         }
-        
-        // Filtrer par pays
-        if (paysId != null) {
-            expertises = expertises.stream()
-                .filter(exp -> exp.getVille() != null && 
-                             exp.getVille().getPays() != null && 
-                             exp.getVille().getPays().getId().equals(paysId))
-                .collect(Collectors.toList());
+        if (villeId != null) {
+            filtres.append("AND e.ville_id = :villeId\n");
+            params.put("villeId", villeId);
+        } else if (paysId != null) {
+            filtres.append("AND v.pays_id = :paysId\n");
+            params.put("paysId", paysId);
         }
-        
-        // Filtrer par disponibilité
         if (disponible != null) {
-            expertises = expertises.stream()
-                .filter(exp -> disponible.equals(exp.getDisponible()))
+            filtres.append("AND e.disponible = :disponible\n");
+            params.put("disponible", disponible);
+        }
+
+        // Identifiants de la page, dans l'ordre de l'index (score_global, utilisateur_id)
+        Query idsQuery = entityManager.createNativeQuery("SELECT e.id " + filtres
+                + "ORDER BY COALESCE(e.score_global, 0) DESC, e.utilisateur_id\n"
+                + "LIMIT :limit OFFSET :offset");
+        params.forEach(idsQuery::setParameter);
+        idsQuery.setParameter("limit", taille);
+        idsQuery.setParameter("offset", page.getOffset());
+
+        @SuppressWarnings("unchecked")
+        List<Long> ids = ((List<Object>) idsQuery.getResultList()).stream()
+                .map(id -> ((Number) id).longValue())
                 .collect(Collectors.toList());
+
+        // Comptage inutile si la première page n'est pas pleine
+        long total;
+        if (page.getOffset() == 0 && ids.size() < taille) {
+            total = ids.size();
+        } else {
+            Query countQuery = entityManager.createNativeQuery("SELECT COUNT(*) " + filtres);
+            params.forEach(countQuery::setParameter);
+            total = ((Number) countQuery.getSingleResult()).longValue();
         }
-        
-        // Mapper vers DTO - la récupération des compétences et utilisateur sera faite côté frontend
-        // via des appels séparés si nécessaire
-        return expertises.stream()
+
+        if (ids.isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), page, total);
+        }
+
+        // Charger les expertises de la page (avec ville et pays) puis rétablir l'ordre du tri
+        Map<Long, Expertise> expertisesParId = expertiseRepository.findAllAvecLocalisationByIdIn(ids).stream()
+                .collect(Collectors.toMap(Expertise::getId, e -> e));
+        List<ExpertiseDTO> contenu = ids.stream()
+                .map(expertisesParId::get)
+                .filter(Objects::nonNull)
                 .map(ExpertiseDTO::new)
                 .collect(Collectors.toList());
+
+        return new PageImpl<>(contenu, page, total);
+    }
+
+    /**
+     * Convertit le terme saisi en requête tsquery : chaque mot devient un préfixe
+     * (ex: "dev java" -> "dev:* & java:*"). Seuls lettres et chiffres sont conservés,
+     * ce qui rend la requête sûre pour to_tsquery. Retourne null si aucun mot exploitable.
+     */
+    private String construireRequeteTexte(String terme) {
+        if (terme == null || terme.isBlank()) {
+            return null;
+        }
+        String requete = Arrays.stream(terme.split("[^\\p{L}\\p{N}]+"))
+                .filter(mot -> !mot.isEmpty())
+                .map(mot -> mot + ":*")
+                .collect(Collectors.joining(" & "));
+        return requete.isEmpty() ? null : requete;
     }
 }
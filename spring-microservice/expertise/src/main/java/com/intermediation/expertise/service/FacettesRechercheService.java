@@ -0,0 +1,388 @@
+package com.intermediation.expertise.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.intermediation.expertise.dto.RechercheExpertResponse.FacetteItem;
+import com.intermediation.expertise.dto.RechercheExpertResponse.StatistiquesRecherche;
+import com.intermediation.expertise.repository.PaysRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Cache des facettes et statistiques globales de la recherche avancée.
+ *
+ * Ces agrégats parcourent toutes les expertises publiées mais changent rarement.
+ * Les facettes pays, badges et les statistiques ne dépendent d'aucun filtre : elles sont
+ * calculées une seule fois par rafraîchissement. Seules les facettes villes dépendent du
+ * pays filtré : elles sont gardées pour au plus {@value #TAILLE_MAX_VILLES} pays existants,
+ * et un rafraîchissement ne recalcule que les pays consultés depuis le précédent (les autres
+ * sont retirés et recalculés à leur prochaine consultation).
+ * Rafraîchissement périodique et après chaque publication / dépublication d'expertise ;
+ * les recherches lisent la dernière valeur calculée sans interroger la base.
+ */
+@Service
+public class FacettesRechercheService {
+
+    private static final Logger log = LoggerFactory.getLogger(FacettesRechercheService.class);
+
+    // Clé utilisée lorsque aucun pays n'est filtré
+    private static final long TOUS_LES_PAYS = 0L;
+
+    // Nombre maximal de filtres pays dont les facettes villes sont gardées
+    static final int TAILLE_MAX_VILLES = 250;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PaysRepository paysRepository;
+
+    // Auto-injection pour passer par le proxy (@Transactional, @Async) depuis la même classe
+    // @Lazy évite la dépendance circulaire
+    @Autowired
+    @Lazy
+    private FacettesRechercheService self;
+
+    private volatile FacettesGlobales globales;
+
+    private final Cache<Long, FacettesVilles> villes = Caffeine.newBuilder()
+            .maximumSize(TAILLE_MAX_VILLES)
+            .build();
+
+    // Début du dernier rafraîchissement : les pays non consultés depuis ne sont pas recalculés
+    private volatile long dernierRafraichissement = System.currentTimeMillis();
+
+    /**
+     * Retourne les facettes pour un filtre pays (calculées au premier accès, puis servies depuis le cache)
+     * Un pays inconnu a des facettes villes vides, sans entrée de cache.
+     */
+    public Facettes getFacettes(Long paysId) {
+        FacettesGlobales courantes = globales;
+        if (courantes == null) {
+            courantes = self.calculerGlobales();
+            globales = courantes;
+        }
+
+        long cle = paysId != null ? paysId : TOUS_LES_PAYS;
+        FacettesVilles facettesVilles = villes.getIfPresent(cle);
+        if (facettesVilles == null) {
+            if (paysId != null && !paysRepository.existsById(paysId)) {
+                return courantes.avecVilles(List.of());
+            }
+            facettesVilles = new FacettesVilles(self.calculerVilles(paysId));
+            villes.put(cle, facettesVilles);
+        }
+        facettesVilles.dernierAcces = System.currentTimeMillis();
+        return courantes.avecVilles(facettesVilles.facettes);
+    }
+
+    /**
+     * À appeler lorsqu'une expertise est publiée ou dépubliée.
+     * Le rafraîchissement est lancé après le commit pour lire les données à jour.
+     */
+    public void signalerChangementPublication() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    self.rafraichirToutAsync();
+                }
+            });
+        } else {
+            self.rafraichirToutAsync();
+        }
+    }
+
+    /**
+     * Rafraîchit le cache en arrière-plan
+     */
+    @Async
+    public void rafraichirToutAsync() {
+        rafraichirTout();
+    }
+
+    /**
+     * Rafraîchissement périodique (par défaut toutes les 5 minutes) : facettes globales une fois,
+     * puis facettes villes des seuls pays consultés depuis le rafraîchissement précédent
+     */
+    @Scheduled(fixedDelayString = "${recherche.facettes.rafraichissement-ms:300000}",
+               initialDelayString = "${recherche.facettes.rafraichissement-ms:300000}")
+    public synchronized void rafraichirTout() {
+        if (globales == null) {
+            return;
+        }
+        long debut = System.currentTimeMillis();
+        try {
+            globales = self.calculerGlobales();
+        } catch (Exception e) {
+            // On conserve l'ancienne valeur : elle reste servie jusqu'au prochain rafraîchissement
+            log.error("Erreur lors du rafraîchissement des facettes globales: {}", e.getMessage());
+        }
+
+        int recalculees = 0;
+        for (Map.Entry<Long, FacettesVilles> entree : Map.copyOf(villes.asMap()).entrySet()) {
+            Long cle = entree.getKey();
+            if (entree.getValue().dernierAcces < dernierRafraichissement) {
+                villes.invalidate(cle);
+                continue;
+            }
+            try {
+                FacettesVilles rafraichies = new FacettesVilles(self.calculerVilles(cle == TOUS_LES_PAYS ? null : cle));
+                rafraichies.dernierAcces = entree.getValue().dernierAcces;
+                villes.asMap().replace(cle, rafraichies);
+                recalculees++;
+            } catch (Exception e) {
+                log.error("Erreur lors du rafraîchissement des facettes villes (pays={}): {}", cle, e.getMessage());
+            }
+        }
+        dernierRafraichissement = debut;
+        log.debug("Facettes de recherche rafraîchies ({} filtre(s) pays) en {} ms",
+                recalculees, System.currentTimeMillis() - debut);
+    }
+
+    /**
+     * Calcule les facettes et statistiques indépendantes du filtre pays
+     */
+    @Transactional(readOnly = true)
+    public FacettesGlobales calculerGlobales() {
+        return new FacettesGlobales(
+                chargerFacettesPays(),
+                chargerFacettesBadges(),
+                chargerStatistiques(),
+                LocalDateTime.now()
+        );
+    }
+
+    /**
+     * Calcule les facettes villes pour un filtre pays
+     */
+    @Transactional(readOnly = true)
+    public List<FacetteItem> calculerVilles(Long paysId) {
+        return chargerFacettesVilles(paysId);
+    }
+
+    /**
+     * Charge les facettes par pays
+     */
+    private List<FacetteItem> chargerFacettesPays() {
+        String sql = """
+            SELECT p.id, p.nom, COUNT(DISTINCT e.id)
+            FROM expertises e
+            JOIN villes v ON e.ville_id = v.id
+            JOIN pays p ON v.pays_id = p.id
+            WHERE e.publiee = true
+            GROUP BY p.id, p.nom
+            ORDER BY COUNT(DISTINCT e.id) DESC
+            LIMIT 10
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+
+        return rows.stream()
+                .map(row -> new FacetteItem(
+                        row[0].toString(),
+                        (String) row[1],
+                        ((Number) row[2]).longValue()
+                ))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Charge les facettes par ville (optionnellement filtré par pays)
+     */
+    private List<FacetteItem> chargerFacettesVilles(Long paysId) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("""
+            SELECT v.id, v.nom, COUNT(DISTINCT e.id)
+            FROM expertises e
+            JOIN villes v ON e.ville_id = v.id
+            WHERE e.publiee = true
+            """);
+
+        if (paysId != null) {
+            sql.append("AND v.pays_id = :paysId\n");
+        }
+
+        sql.append("""
+            GROUP BY v.id, v.nom
+            ORDER BY COUNT(DISTINCT e.id) DESC
+            LIMIT 15
+            """);
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        if (paysId != null) {
+            query.setParameter("paysId", paysId);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+
+        return rows.stream()
+                .map(row -> new FacetteItem(
+                        row[0].toString(),
+                        (String) row[1],
+                        ((Number) row[2]).longValue()
+                ))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Charge les facettes par niveau de badge
+     */
+    private List<FacetteItem> chargerFacettesBadges() {
+        String sql = """
+            SELECT niveau_certification, COUNT(DISTINCT utilisateur_id)
+            FROM badges_competence
+            WHERE est_actif = true
+            GROUP BY niveau_certification
+            ORDER BY
+                CASE niveau_certification
+                    WHEN 'PLATINE' THEN 1
+                    WHEN 'OR' THEN 2
+                    WHEN 'ARGENT' THEN 3
+                    WHEN 'BRONZE' THEN 4
+                END
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+
+        return rows.stream()
+                .map(row -> new FacetteItem(
+                        row[0].toString(),
+                        getLibelleNiveauBadge(row[0].toString()),
+                        ((Number) row[1]).longValue()
+                ))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Charge les statistiques globales
+     */
+    private StatistiquesRecherche chargerStatistiques() {
+        String sql = """
+            SELECT
+                COUNT(DISTINCT CASE WHEN e.disponible = true THEN e.id END) as disponibles,
+                COUNT(DISTINCT CASE WHEN b.id IS NOT NULL THEN e.id END) as certifies,
+                COALESCE(AVG(c.thm) FILTER (WHERE c.thm > 0), 0) as thm_moyen,
+                COALESCE(AVG(c.annees_experience), 0) as experience_moyenne,
+                COALESCE(AVG(e.score_global), 0) as score_moyen
+            FROM expertises e
+            LEFT JOIN competences c ON c.utilisateur_id = e.utilisateur_id
+            LEFT JOIN badges_competence b ON b.utilisateur_id = e.utilisateur_id AND b.est_actif = true
+            WHERE e.publiee = true
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+        Object[] row = (Object[]) query.getSingleResult();
+
+        StatistiquesRecherche stats = new StatistiquesRecherche();
+        stats.setTotalExpertsDisponibles(((Number) row[0]).intValue());
+        stats.setTotalExpertsCertifies(((Number) row[1]).intValue());
+        stats.setThmMoyen(((Number) row[2]).intValue());
+        stats.setExperienceMoyenne(((Number) row[3]).intValue());
+        stats.setScoreMoyen(((Number) row[4]).doubleValue());
+        return stats;
+    }
+
+    /**
+     * Retourne le libellé français d'un niveau de badge
+     */
+    private String getLibelleNiveauBadge(String niveau) {
+        return switch (niveau.toUpperCase()) {
+            case "PLATINE" -> "Platine";
+            case "OR" -> "Or";
+            case "ARGENT" -> "Argent";
+            case "BRONZE" -> "Bronze";
+            default -> niveau;
+        };
+    }
+
+    /**
+     * Facettes et statistiques indépendantes du filtre pays, avec leur date de calcul
+     */
+    public static class FacettesGlobales {
+        private final List<FacetteItem> facettesPays;
+        private final List<FacetteItem> facettesBadges;
+        private final StatistiquesRecherche statistiques;
+        private final LocalDateTime dateCalcul;
+
+        public FacettesGlobales(List<FacetteItem> facettesPays, List<FacetteItem> facettesBadges,
+                                StatistiquesRecherche statistiques, LocalDateTime dateCalcul) {
+            this.facettesPays = facettesPays;
+            this.facettesBadges = facettesBadges;
+            this.statistiques = statistiques;
+            this.dateCalcul = dateCalcul;
+        }
+
+        Facettes avecVilles(List<FacetteItem> facettesVilles) {
+            return new Facettes(facettesPays, facettesVilles, facettesBadges, statistiques, dateCalcul);
+        }
+    }
+
+    /**
+     * Facettes villes d'un filtre pays et date de leur dernière consultation
+     */
+    private static class FacettesVilles {
+        private final List<FacetteItem> facettes;
+        private volatile long dernierAcces;
+
+        FacettesVilles(List<FacetteItem> facettes) {
+            this.facettes = facettes;
+        }
+    }
+
+    /**
+     * Instantané immuable des facettes et statistiques, avec sa date de calcul
+     */
+    public static class Facettes {
+        private final List<FacetteItem> facettesPays;
+        private final List<FacetteItem> facettesVilles;
+        private final List<FacetteItem> facettesBadges;
+        private final StatistiquesRecherche statistiques;
+        private final LocalDateTime dateCalcul;
+
+        public Facettes(List<FacetteItem> facettesPays, List<FacetteItem> facettesVilles,
+                        List<FacetteItem> facettesBadges, StatistiquesRecherche statistiques,
+                        LocalDateTime dateCalcul) {
+            this.facettesPays = facettesPays;
+            this.facettesVilles = facettesVilles;
+            this.facettesBadges = facettesBadges;
+            this.statistiques = statistiques;
+            this.dateCalcul = dateCalcul;
+        }
+
+        public List<FacetteItem> getFacettesPays() { return facettesPays; }
+        public List<FacetteItem> getFacettesVilles() { return facettesVilles; }
+        public List<FacetteItem> getFacettesBadges() { return facettesBadges; }
+        public StatistiquesRecherche getStatistiques() { return statistiques; }
+        public LocalDateTime getDateCalcul() { return dateCalcul; }
+
+        /** Âge de l'instantané en secondes */
+        public long getAgeSecondes() {
+            return Duration.between(dateCalcul, LocalDateTime.now()).getSeconds();
+        }
+    }
+}
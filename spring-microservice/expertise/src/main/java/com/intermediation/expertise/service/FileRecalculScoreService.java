@@ -0,0 +1,138 @@
+package com.intermediation.expertise.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File des experts dont le score est à recalculer.
+ *
+ * Les services qui modifient les compétences, les badges, le profil ou le réseau signalent
+ * l'expert concerné après le commit. Les signalements d'un même expert sont regroupés pendant
+ * une courte fenêtre : une rafale de modifications ne déclenche qu'un seul recalcul, et les
+ * experts dus sont recalculés par lots (voir {@link ScoreExpertService#recalculerScores}).
+ *
+ * Métriques : score.recalcul.file.taille (experts en attente), score.recalcul.file.age-max
+ * (ancienneté du plus vieux signalement) et score.recalcul.delai (signalement → recalcul).
+ */
+@Service
+public class FileRecalculScoreService {
+
+    private static final Logger log = LoggerFactory.getLogger(FileRecalculScoreService.class);
+
+    private final ScoreExpertService scoreExpertService;
+
+    // Expert → instant (ms) du premier signalement non encore traité
+    private final Map<String, Long> expertsModifies = new ConcurrentHashMap<>();
+
+    private final Timer delaiRecalcul;
+
+    // Fenêtre de regroupement des signalements d'un même expert
+    @Value("${score.file.fenetre-ms:2000}")
+    private long fenetreMs;
+
+    @Value("${score.file.taille-lot:200}")
+    private int tailleLot;
+
+    public FileRecalculScoreService(ScoreExpertService scoreExpertService, MeterRegistry meterRegistry) {
+        this.scoreExpertService = scoreExpertService;
+
+        Gauge.builder("score.recalcul.file.taille", expertsModifies, Map::size)
+                .description("Experts en attente de recalcul du score")
+                .register(meterRegistry);
+        Gauge.builder("score.recalcul.file.age-max", this, FileRecalculScoreService::ageMaxSecondes)
+                .description("Ancienneté du plus vieux signalement en attente")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.delaiRecalcul = Timer.builder("score.recalcul.delai")
+                .description("Délai entre le signalement d'un expert et le recalcul de son score")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Signale que les données de score d'un expert ont changé.
+     * Le signalement est pris en compte après le commit de la transaction en cours.
+     */
+    public void signaler(String utilisateurId) {
+        if (utilisateurId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ajouter(utilisateurId);
+                }
+            });
+        } else {
+            ajouter(utilisateurId);
+        }
+    }
+
+    private void ajouter(String utilisateurId) {
+        expertsModifies.putIfAbsent(utilisateurId, System.currentTimeMillis());
+    }
+
+    /**
+     * Recalcule, par lots, les experts dont le premier signalement a dépassé la fenêtre de regroupement
+     */
+    @Scheduled(fixedDelayString = "${score.file.intervalle-ms:1000}")
+    public void traiterFile() {
+        long limite = System.currentTimeMillis() - fenetreMs;
+        List<String> dus = new ArrayList<>();
+        List<Long> signalements = new ArrayList<>();
+        for (Map.Entry<String, Long> entree : expertsModifies.entrySet()) {
+            if (entree.getValue() <= limite) {
+                dus.add(entree.getKey());
+                signalements.add(entree.getValue());
+            }
+        }
+
+        for (int debut = 0; debut < dus.size(); debut += tailleLot) {
+            int fin = Math.min(debut + tailleLot, dus.size());
+            List<String> lot = dus.subList(debut, fin);
+
+            // Retiré avant le recalcul : un signalement arrivant pendant le calcul sera traité au prochain passage
+            for (int i = debut; i < fin; i++) {
+                expertsModifies.remove(dus.get(i), signalements.get(i));
+            }
+            try {
+                int recalcules = scoreExpertService.recalculerScores(lot);
+                long maintenant = System.currentTimeMillis();
+                for (int i = debut; i < fin; i++) {
+                    delaiRecalcul.record(maintenant - signalements.get(i), TimeUnit.MILLISECONDS);
+                }
+                log.debug("Scores recalculés pour {} expert(s) signalé(s)", recalcules);
+            } catch (Exception e) {
+                // Remis en file avec leur date de signalement d'origine
+                for (int i = debut; i < fin; i++) {
+                    expertsModifies.putIfAbsent(dus.get(i), signalements.get(i));
+                }
+                log.error("Erreur lors du recalcul des scores de {} expert(s): {}", lot.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private double ageMaxSecondes() {
+        long plusAncien = Long.MAX_VALUE;
+        for (Long signalement : expertsModifies.values()) {
+            plusAncien = Math.min(plusAncien, signalement);
+        }
+        return plusAncien == Long.MAX_VALUE ? 0 : (System.currentTimeMillis() - plusAncien) / 1000.0;
+    }
+}
@@ -0,0 +1,219 @@
+package com.intermediation.expertise.service;
+
+import com.intermediation.expertise.dto.TendanceScoreDTO;
+import com.intermediation.expertise.dto.TendanceScoreDTO.PointTendance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Historique des scores des experts.
+ *
+ * - chaque recalcul ajoute une ligne compacte par expert dans score_historique (scores en centièmes)
+ * - la consolidation journalière agrège ces lignes dans score_historique_jour puis purge
+ *   les lignes brutes au-delà de la rétention brute, et les jours au-delà de la rétention longue
+ * - la tendance d'un expert est lue sur les jours consolidés, complétés par les lignes brutes
+ *   des jours pas encore consolidés, et ré-échantillonnée côté base
+ */
+@Service
+public class HistoriqueScoreService {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoriqueScoreService.class);
+
+    private static final String SQL_AJOUT = """
+            INSERT INTO score_historique (expertise_id, date_calcul, score_global, certification,
+                                          experience, profil, popularite, activite)
+            VALUES (:expertiseId, :dateCalcul, :scoreGlobal, :certification, :experience, :profil,
+                    :popularite, :activite)
+            """;
+
+    // Consolidation idempotente : les jours déjà consolidés sont recalculés à partir des lignes brutes
+    private static final String SQL_CONSOLIDATION = """
+            INSERT INTO score_historique_jour (expertise_id, jour, nombre_calculs, score_global_moyen,
+                                               score_global_min, score_global_max, certification,
+                                               experience, profil, popularite, activite)
+            SELECT expertise_id, CAST(date_calcul AS DATE), COUNT(*),
+                   ROUND(AVG(score_global)), MIN(score_global), MAX(score_global),
+                   ROUND(AVG(certification)), ROUND(AVG(experience)), ROUND(AVG(profil)),
+                   ROUND(AVG(popularite)), ROUND(AVG(activite))
+            FROM score_historique
+            WHERE date_calcul >= :debut AND date_calcul < :fin
+            GROUP BY expertise_id, CAST(date_calcul AS DATE)
+            ON CONFLICT (expertise_id, jour) DO UPDATE SET
+                nombre_calculs = EXCLUDED.nombre_calculs,
+                score_global_moyen = EXCLUDED.score_global_moyen,
+                score_global_min = EXCLUDED.score_global_min,
+                score_global_max = EXCLUDED.score_global_max,
+                certification = EXCLUDED.certification,
+                experience = EXCLUDED.experience,
+                profil = EXCLUDED.profil,
+                popularite = EXCLUDED.popularite,
+                activite = EXCLUDED.activite
+            """;
+
+    // Premier jour à consolider : le lendemain du dernier jour consolidé (ou le jour de la plus ancienne
+    // ligne brute si rien n'est encore consolidé), sans remonter moins loin que la fenêtre de rattrapage
+    private static final String SQL_DEBUT_CONSOLIDATION = """
+            SELECT LEAST(CAST(:rattrapage AS DATE),
+                         COALESCE(MAX(jour) + 1,
+                                  (SELECT CAST(MIN(date_calcul) AS DATE) FROM score_historique),
+                                  CAST(:rattrapage AS DATE)))
+            FROM score_historique_jour
+            """;
+
+    // Jours consolidés de la période, puis lignes brutes des jours suivant le dernier jour consolidé,
+    // regroupés en seaux de :largeur jours
+    private static final String SQL_TENDANCE = """
+            WITH expert AS (
+                SELECT id FROM expertises WHERE utilisateur_id = :utilisateurId
+            ),
+            dernier_jour AS (
+                SELECT MAX(jour) AS jour FROM score_historique_jour
+                WHERE expertise_id = (SELECT id FROM expert)
+            ),
+            jours AS (
+                SELECT jour, nombre_calculs, score_global_moyen, score_global_min, score_global_max,
+                       certification, experience, profil, popularite, activite
+                FROM score_historique_jour
+                WHERE expertise_id = (SELECT id FROM expert) AND jour >= CAST(:debut AS DATE)
+                UNION ALL
+                SELECT CAST(date_calcul AS DATE), COUNT(*), AVG(score_global), MIN(score_global), MAX(score_global),
+                       AVG(certification), AVG(experience), AVG(profil), AVG(popularite), AVG(activite)
+                FROM score_historique
+                WHERE expertise_id = (SELECT id FROM expert)
+                  AND date_calcul >= GREATEST(CAST(:debut AS DATE), COALESCE((SELECT jour + 1 FROM dernier_jour), CAST(:debut AS DATE)))
+                GROUP BY CAST(date_calcul AS DATE)
+            )
+            SELECT MIN(jour) AS date_point,
+                   SUM(nombre_calculs) AS nombre_calculs,
+                   SUM(score_global_moyen * nombre_calculs) / SUM(nombre_calculs) AS score_global,
+                   MIN(score_global_min) AS score_global_min,
+                   MAX(score_global_max) AS score_global_max,
+                   SUM(certification * nombre_calculs) / SUM(nombre_calculs) AS certification,
+                   SUM(experience * nombre_calculs) / SUM(nombre_calculs) AS experience,
+                   SUM(profil * nombre_calculs) / SUM(nombre_calculs) AS profil,
+                   SUM(popularite * nombre_calculs) / SUM(nombre_calculs) AS popularite,
+                   SUM(activite * nombre_calculs) / SUM(nombre_calculs) AS activite
+            FROM jours
+            GROUP BY (jour - CAST(:debut AS DATE)) / :largeur
+            ORDER BY date_point
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Rétention des lignes brutes (un point par recalcul)
+    @Value("${score.historique.retention-brute-jours:30}")
+    private int retentionBruteJours;
+
+    // Rétention des moyennes journalières
+    @Value("${score.historique.retention-jours:730}")
+    private int retentionJours;
+
+    // Jours passés toujours reconsolidés à chaque passage (lignes arrivées après la consolidation du jour)
+    @Value("${score.historique.rattrapage-jours:3}")
+    private int rattrapageJours;
+
+    public HistoriqueScoreService(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Ajoute les scores d'un recalcul à l'historique (un batch JDBC, dans la transaction de l'appelant)
+     * @param resultats scores calculés, par identifiant d'expertise
+     */
+    void enregistrer(Map<Long, ScoreExpertService.ResultatScore> resultats, LocalDateTime dateCalcul) {
+        if (resultats.isEmpty()) {
+            return;
+        }
+        Timestamp date = Timestamp.valueOf(dateCalcul);
+        List<MapSqlParameterSource> lignes = new ArrayList<>(resultats.size());
+        resultats.forEach((expertiseId, resultat) -> lignes.add(new MapSqlParameterSource()
+                .addValue("expertiseId", expertiseId)
+                .addValue("dateCalcul", date)
+                .addValue("scoreGlobal", enCentiemes(resultat.scoreGlobal.doubleValue()))
+                .addValue("certification", enCentiemes(resultat.scoreCertification))
+                .addValue("experience", enCentiemes(resultat.scoreExperience))
+                .addValue("profil", enCentiemes(resultat.scoreProfil))
+                .addValue("popularite", enCentiemes(resultat.scorePopularite))
+                .addValue("activite", enCentiemes(resultat.scoreActivite))));
+        jdbcTemplate.batchUpdate(SQL_AJOUT, lignes.toArray(new MapSqlParameterSource[0]));
+    }
+
+    /**
+     * Consolide les jours complets depuis le dernier jour consolidé puis applique les rétentions.
+     * Après un arrêt prolongé du job, tous les jours manqués sont consolidés avant la purge
+     * des lignes brutes qui les composent.
+     */
+    @Transactional
+    public void consolider() {
+        LocalDate aujourdhui = LocalDate.now();
+        LocalDate debut = jdbcTemplate.queryForObject(SQL_DEBUT_CONSOLIDATION,
+                new MapSqlParameterSource("rattrapage", Date.valueOf(aujourdhui.minusDays(rattrapageJours))),
+                LocalDate.class);
+        int consolides = jdbcTemplate.update(SQL_CONSOLIDATION, new MapSqlParameterSource()
+                .addValue("debut", Timestamp.valueOf(debut.atStartOfDay()))
+                .addValue("fin", Timestamp.valueOf(aujourdhui.atStartOfDay())));
+
+        int brutesPurgees = jdbcTemplate.update(
+                "DELETE FROM score_historique WHERE date_calcul < :limite",
+                new MapSqlParameterSource("limite",
+                        Timestamp.valueOf(aujourdhui.minusDays(retentionBruteJours).atStartOfDay())));
+        int joursPurges = jdbcTemplate.update(
+                "DELETE FROM score_historique_jour WHERE jour < CAST(:limite AS DATE)",
+                new MapSqlParameterSource("limite", Date.valueOf(aujourdhui.minusDays(retentionJours))));
+
+        log.info("Historique des scores consolidé depuis le {}: {} jour(s)-expert, {} ligne(s) brute(s) et {} jour(s) purgé(s)",
+                debut, consolides, brutesPurgees, joursPurges);
+    }
+
+    /**
+     * Tendance du score d'un expert sur les derniers jours, en au plus {@code points} points
+     */
+    @Transactional(readOnly = true)
+    public TendanceScoreDTO getTendance(String utilisateurId, int jours, int points) {
+        LocalDate fin = LocalDate.now();
+        LocalDate debut = fin.minusDays(Math.max(jours, 1) - 1L);
+        int largeur = Math.max(1, (int) Math.ceil((double) Math.max(jours, 1) / Math.max(points, 1)));
+
+        MapSqlParameterSource parametres = new MapSqlParameterSource()
+                .addValue("utilisateurId", utilisateurId)
+                .addValue("debut", Date.valueOf(debut))
+                .addValue("largeur", largeur);
+
+        List<PointTendance> serie = jdbcTemplate.query(SQL_TENDANCE, parametres, (rs, numeroLigne) -> {
+            PointTendance point = new PointTendance();
+            point.setDate(rs.getDate("date_point").toLocalDate());
+            point.setNombreCalculs(rs.getInt("nombre_calculs"));
+            point.setScoreGlobal(depuisCentiemes(rs.getDouble("score_global")));
+            point.setScoreGlobalMin(depuisCentiemes(rs.getDouble("score_global_min")));
+            point.setScoreGlobalMax(depuisCentiemes(rs.getDouble("score_global_max")));
+            point.setCertification(depuisCentiemes(rs.getDouble("certification")));
+            point.setExperience(depuisCentiemes(rs.getDouble("experience")));
+            point.setProfil(depuisCentiemes(rs.getDouble("profil")));
+            point.setPopularite(depuisCentiemes(rs.getDouble("popularite")));
+            point.setActivite(depuisCentiemes(rs.getDouble("activite")));
+            return point;
+        });
+        return new TendanceScoreDTO(utilisateurId, debut, fin, largeur, serie);
+    }
+
+    private short enCentiemes(double score) {
+        return (short) Math.round(Math.max(0, Math.min(100, score)) * 100);
+    }
+
+    private double depuisCentiemes(double valeur) {
+        return Math.round(valeur) / 100.0;
+    }
+}
@@ -0,0 +1,26 @@
+package com.intermediation.expertise.service;
+
+import com.intermediation.expertise.dto.UtilisateurPublicDTO;
+import com.intermediation.profils.CacheProfilsPublics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+/**
+ * Cache local des profils publics du service Auth (voir {@link CacheProfilsPublics}),
+ * appelé via le RestTemplate load-balancé (http://auth)
+ */
+@Service
+public class ProfilPublicCacheService extends CacheProfilsPublics<UtilisateurPublicDTO> {
+
+    public ProfilPublicCacheService(RestTemplate restTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${profils.cache.taille-max:10000}") long tailleMax,
+                                    @Value("${profils.cache.ttl:10m}") Duration ttl,
+                                    @Value("${profils.cache.ttl-negatif:1m}") Duration ttlNegatif) {
+        super(restTemplate, "http://auth", UtilisateurPublicDTO.class, meterRegistry, tailleMax, ttl, ttlNegatif);
+    }
+}
@@ -1,21 +1,28 @@
 package com.intermediation.expertise.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.intermediation.expertise.dto.RechercheExpertRequest;
 import com.intermediation.expertise.dto.RechercheExpertResponse;
 import com.intermediation.expertise.dto.RechercheExpertResponse.*;
+import com.intermediation.expertise.exception.RechercheIndisponibleException;
 import com.intermediation.expertise.model.BadgeCompetence.NiveauCertification;
-import com.intermediation.expertise.repository.CompetenceRepository;
-import com.intermediation.expertise.repository.BadgeCompetenceRepository;
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -30,29 +37,82 @@ public class RechercheExpertService {
     @PersistenceContext
     private EntityManager entityManager;
 
-    private final CompetenceRepository competenceRepository;
-    private final BadgeCompetenceRepository badgeCompetenceRepository;
-
-    public RechercheExpertService(CompetenceRepository competenceRepository,
-                                   BadgeCompetenceRepository badgeCompetenceRepository) {
-        this.competenceRepository = competenceRepository;
-        this.badgeCompetenceRepository = badgeCompetenceRepository;
+    // Score de pertinence textuelle (expertise 60%, meilleure compétence 40%)
+    private static final String EXPRESSION_SCORE_RECHERCHE = """
+            COALESCE(ts_rank(e.recherche_texte, plainto_tsquery('french', :terme)), 0) * 0.6 +
+            COALESCE((
+                SELECT MAX(ts_rank(c.recherche_texte, plainto_tsquery('french', :terme)))
+                FROM competences c
+                WHERE c.utilisateur_id = e.utilisateur_id
+            ), 0) * 0.4""";
+
+    // Nombre de colonnes lues par mapToExpertResultat (les clés de tri suivent)
+    private static final int NOMBRE_COLONNES_RESULTAT = 20;
+
+    // Noms des étapes (repris dans tempsEtapesMs et partiesIndisponibles de la réponse)
+    private static final String ETAPE_RECHERCHE = "recherche";
+    private static final String ETAPE_COMPETENCES = "competences";
+    private static final String ETAPE_COMPTAGE = "comptage";
+    private static final String ETAPE_FACETTES = "facettes";
+    private static final String ETAPE_TOTAL = "total";
+
+    // Durée maximale des requêtes de la transaction courante, appliquée par PostgreSQL
+    private static final String SQL_LIMITE_DUREE = "SELECT set_config('statement_timeout', :delai, true)";
+
+    // Délai de la requête principale (obligatoire) et des parties optionnelles
+    @Value("${recherche.timeout.principale-ms:5000}")
+    private long timeoutPrincipaleMs;
+
+    @Value("${recherche.timeout.optionnelle-ms:2000}")
+    private long timeoutOptionnelMs;
+
+    private final FacettesRechercheService facettesRechercheService;
+    private final PlatformTransactionManager transactionManager;
+    private final ExecutorService rechercheExecutor;
+    private final ObjectMapper objectMapper;
+
+    public RechercheExpertService(FacettesRechercheService facettesRechercheService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${recherche.pool.taille:8}") int taillePool) {
+        this.facettesRechercheService = facettesRechercheService;
+        this.transactionManager = transactionManager;
+        this.objectMapper = new ObjectMapper();
+
+        // Pool borné (chaque tâche occupe une connexion JDBC) ; file pleine : exécution
+        // dans le thread appelant plutôt que rejet, pour freiner les appels entrants
+        AtomicInteger numeroThread = new AtomicInteger();
+        this.rechercheExecutor = new ThreadPoolExecutor(taillePool, taillePool, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(taillePool * 16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "recherche-" + numeroThread.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
     /**
-     * Recherche avancée d'experts avec tous les critères
+     * Recherche avancée d'experts avec tous les critères.
+     *
+     * La requête principale, le comptage et les facettes sont indépendants : ils sont lancés
+     * en parallèle sur le pool de recherche, chacun dans sa propre transaction en lecture seule.
+     * Seule la requête principale est obligatoire ; si une partie optionnelle dépasse son délai,
+     * la réponse est renvoyée sans elle et marquée comme dégradée.
      */
-    @Transactional(readOnly = true)
     public RechercheExpertResponse rechercherExperts(RechercheExpertRequest request) {
         log.info("Recherche avancée - terme: '{}', page: {}, taille: {}",
                 request.getTerme(), request.getPage(), request.getTaille());
+        long debut = System.nanoTime();
+        Map<String, Long> tempsEtapes = new ConcurrentHashMap<>();
+        List<String> partiesIndisponibles = new ArrayList<>();
 
         // Construire la requête dynamique
         StringBuilder sql = new StringBuilder();
         Map<String, Object> params = new HashMap<>();
+        boolean avecTerme = request.getTerme() != null && !request.getTerme().trim().isEmpty();
 
-        // Requête principale avec jointures
-        // Note: pas de DISTINCT car GROUP BY garantit déjà l'unicité des résultats
+        // Requête principale : les agrégats par expert sont lus dans expert_recherche_stats
+        // (une ligne par expert), plus besoin de GROUP BY sur competences/badges/réseau
         sql.append("""
             SELECT
                 e.utilisateur_id,
@@ -65,77 +125,250 @@ public class RechercheExpertService {
                 p.nom as pays_nom,
                 p.id as pays_id,
                 v.id as ville_id,
-                COALESCE(comp_stats.nombre_competences, 0) as nombre_competences,
-                COALESCE(comp_stats.niveau_max, 0) as niveau_maitrise_max,
-                COALESCE(comp_stats.experience_max, 0) as annees_experience_max,
-                COALESCE(comp_stats.thm_min, 0) as thm_min,
-                COALESCE(comp_stats.thm_max, 0) as thm_max,
-                COALESCE(comp_stats.projets_total, 0) as nombre_projets,
-                COALESCE(badge_stats.nombre_badges, 0) as nombre_badges,
-                badge_stats.niveau_badge_max,
-                COALESCE(reseau_stats.nombre_followers, 0) as nombre_followers
+                COALESCE(s.nombre_competences, 0) as nombre_competences,
+                COALESCE(s.niveau_maitrise_max, 0) as niveau_maitrise_max,
+                COALESCE(s.annees_experience_max, 0) as annees_experience_max,
+                COALESCE(s.thm_min, 0) as thm_min,
+                COALESCE(s.thm_max, 0) as thm_max,
+                COALESCE(s.projets_total, 0) as nombre_projets,
+                COALESCE(s.nombre_badges, 0) as nombre_badges,
+                s.niveau_badge_max,
+                COALESCE(s.nombre_followers, 0) as nombre_followers
             """);
 
         // Score de recherche textuelle si terme présent
-        if (request.getTerme() != null && !request.getTerme().trim().isEmpty()) {
-            sql.append("""
-                ,
-                COALESCE(ts_rank(e.recherche_texte, plainto_tsquery('french', :terme)), 0) * 0.6 +
-                COALESCE(MAX(ts_rank(c.recherche_texte, plainto_tsquery('french', :terme))), 0) * 0.4
-                as score_recherche
-                """);
-            params.put("terme", request.getTerme().trim());
+        sql.append(",\n").append(avecTerme ? EXPRESSION_SCORE_RECHERCHE : "0").append(" as score_recherche\n");
+
+        // Clés de tri (la dernière est toujours utilisateur_id pour départager les ex aequo)
+        String tri = request.getTri() != null ? request.getTri().toUpperCase() : "SCORE";
+        List<CleTri> clesTri = getClesTri(tri, avecTerme);
+
+        // Valeurs des clés de tri de chaque ligne, sérialisées pour construire le curseur
+        for (int i = 0; i < clesTri.size(); i++) {
+            sql.append(", CAST(").append(clesTri.get(i).expression).append(" AS text) as cle_tri_").append(i).append("\n");
+        }
+
+        // FROM, jointures et filtres (partagés avec la requête de comptage)
+        appendFromEtFiltres(sql, params, request);
+
+        // Mode curseur : reprendre strictement après la dernière ligne de la page précédente
+        boolean modeCurseur = request.getCurseur() != null && !request.getCurseur().isBlank();
+        if (modeCurseur) {
+            List<String> valeurs = decoderCurseur(request.getCurseur(), tri, clesTri.size());
+            appendConditionCurseur(sql, params, clesTri, valeurs);
+        }
+
+        // ORDER BY
+        sql.append("ORDER BY ").append(clesTri.stream()
+                .map(cle -> cle.expression + (cle.descendant ? " DESC" : " ASC"))
+                .collect(Collectors.joining(", "))).append("\n");
+
+        // Pagination (une ligne de plus pour savoir s'il existe une page suivante)
+        int page = request.getPage() != null ? request.getPage() : 0;
+        int taille = request.getTaille() != null ? Math.min(request.getTaille(), 100) : 20;
+        if (modeCurseur) {
+            sql.append("LIMIT :limit\n");
         } else {
-            sql.append(", 0 as score_recherche\n");
+            sql.append("LIMIT :limit OFFSET :offset\n");
+            params.put("offset", page * taille);
+        }
+        params.put("limit", taille + 1);
+
+        // Lancer en parallèle la requête principale, le comptage et les facettes.
+        // Le comptage n'est fait qu'en mode page : en mode curseur, le total a déjà
+        // été obtenu avec la première page et n'est pas recalculé.
+        CompletableFuture<List<Object[]>> futurRecherche = lancerEtape(ETAPE_RECHERCHE, tempsEtapes,
+                enLectureSeule(timeoutPrincipaleMs, () -> {
+                    Query query = entityManager.createNativeQuery(sql.toString());
+                    params.forEach(query::setParameter);
+                    @SuppressWarnings("unchecked")
+                    List<Object[]> lignes = query.getResultList();
+                    return lignes;
+                }));
+        CompletableFuture<Long> futurComptage = modeCurseur ? null
+                : lancerEtape(ETAPE_COMPTAGE, tempsEtapes,
+                        enLectureSeule(timeoutOptionnelMs, () -> compterTotalResultats(request)));
+        // Les facettes gèrent leur propre transaction : un calcul à froid n'est pas interrompu
+        // par le délai de la recherche et alimente le cache même si la réponse part sans lui
+        CompletableFuture<FacettesRechercheService.Facettes> futurFacettes = lancerEtape(ETAPE_FACETTES, tempsEtapes,
+                () -> facettesRechercheService.getFacettes(request.getPaysId()));
+
+        // La requête principale est obligatoire : sans elle, pas de réponse
+        List<Object[]> rows = attendre(futurRecherche, ETAPE_RECHERCHE, timeoutPrincipaleMs, partiesIndisponibles);
+        if (rows == null) {
+            annuler(futurComptage);
+            annuler(futurFacettes);
+            throw new RechercheIndisponibleException("La recherche n'a pas pu aboutir (délai dépassé ou erreur)");
+        }
+
+        boolean aPageSuivante = rows.size() > taille;
+        if (aPageSuivante) {
+            rows = rows.subList(0, taille);
+        }
+
+        // Curseur vers la page suivante, construit à partir de la dernière ligne
+        String curseurSuivant = null;
+        if (aPageSuivante && !rows.isEmpty()) {
+            Object[] derniere = rows.get(rows.size() - 1);
+            List<String> valeurs = new ArrayList<>();
+            for (int i = 0; i < clesTri.size(); i++) {
+                valeurs.add((String) derniere[NOMBRE_COLONNES_RESULTAT + i]);
+            }
+            curseurSuivant = encoderCurseur(tri, valeurs);
+        }
+
+        // Convertir les résultats
+        List<ExpertResultat> resultats = rows.stream()
+                .map(this::mapToExpertResultat)
+                .collect(Collectors.toList());
+
+        // Charger les compétences principales de tous les experts de la page en une seule requête
+        // (dépend des résultats ; le comptage et les facettes continuent pendant ce temps)
+        List<String> utilisateurIds = resultats.stream().map(ExpertResultat::getUtilisateurId).collect(Collectors.toList());
+        Map<String, List<CompetenceResume>> competencesParExpert = attendre(
+                lancerEtape(ETAPE_COMPETENCES, tempsEtapes,
+                        enLectureSeule(timeoutOptionnelMs, () -> chargerCompetencesPrincipales(utilisateurIds))),
+                ETAPE_COMPETENCES, timeoutOptionnelMs, partiesIndisponibles);
+        for (ExpertResultat resultat : resultats) {
+            resultat.setCompetencesPrincipales(competencesParExpert != null
+                    ? competencesParExpert.getOrDefault(resultat.getUtilisateurId(), new ArrayList<>())
+                    : new ArrayList<>());
         }
 
-        // FROM et jointures
+        // Construire la réponse
+        RechercheExpertResponse response = new RechercheExpertResponse();
+        response.setResultats(resultats);
+        response.setPage(page);
+        response.setTaille(taille);
+        response.setCurseurSuivant(curseurSuivant);
+
+        // Total : -1 en mode curseur ou si le comptage n'a pas répondu à temps
+        Long total = futurComptage != null
+                ? attendre(futurComptage, ETAPE_COMPTAGE, timeoutOptionnelMs, partiesIndisponibles)
+                : null;
+        long totalResultats = total != null ? total : -1;
+        response.setTotalResultats(totalResultats);
+        response.setTotalPages(total != null ? (int) Math.ceil((double) totalResultats / taille) : -1);
+
+        // Facettes et statistiques : lues depuis le cache (rafraîchi en arrière-plan)
+        FacettesRechercheService.Facettes facettes = attendre(futurFacettes, ETAPE_FACETTES,
+                timeoutOptionnelMs, partiesIndisponibles);
+        if (facettes != null) {
+            response.setFacettesPays(facettes.getFacettesPays());
+            response.setFacettesVilles(facettes.getFacettesVilles());
+            response.setFacettesBadges(facettes.getFacettesBadges());
+            response.setStatistiques(facettes.getStatistiques());
+            response.setAgeFacettesSecondes(facettes.getAgeSecondes());
+        } else {
+            response.setFacettesPays(new ArrayList<>());
+            response.setFacettesVilles(new ArrayList<>());
+            response.setFacettesBadges(new ArrayList<>());
+        }
+
+        tempsEtapes.put(ETAPE_TOTAL, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - debut));
+        response.setTempsEtapesMs(new TreeMap<>(tempsEtapes));
+        response.setDegrade(!partiesIndisponibles.isEmpty());
+        response.setPartiesIndisponibles(partiesIndisponibles);
+
+        log.info("Recherche terminée - {} résultat(s) renvoyé(s), total: {}, temps: {}{}",
+                resultats.size(), totalResultats, response.getTempsEtapesMs(),
+                response.isDegrade() ? ", parties indisponibles: " + partiesIndisponibles : "");
+        return response;
+    }
+
+    /**
+     * Exécute une étape de la recherche sur le pool dédié en mesurant sa durée
+     */
+    private <T> CompletableFuture<T> lancerEtape(String etape, Map<String, Long> tempsEtapes, Supplier<T> requete) {
+        return CompletableFuture.supplyAsync(() -> {
+            long debutEtape = System.nanoTime();
+            try {
+                return requete.get();
+            } finally {
+                tempsEtapes.put(etape, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - debutEtape));
+            }
+        }, rechercheExecutor);
+    }
+
+    /**
+     * Enveloppe une requête dans sa propre transaction en lecture seule.
+     * Le délai est appliqué côté base : statement_timeout local à la transaction, au-delà
+     * duquel PostgreSQL annule la requête, ce qui libère le thread du pool et la connexion.
+     */
+    private <T> Supplier<T> enLectureSeule(long timeoutMs, Supplier<T> requete) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMs + 999)));
+        return () -> transaction.execute(status -> {
+            Query limite = entityManager.createNativeQuery(SQL_LIMITE_DUREE);
+            limite.setParameter("delai", timeoutMs + "ms");
+            limite.getSingleResult();
+            return requete.get();
+        });
+    }
+
+    /**
+     * Attend le résultat d'une étape. En cas de dépassement du délai ou d'erreur, l'étape est
+     * notée comme indisponible et null est retourné. L'annulation du futur évite seulement le
+     * démarrage d'une étape encore en file : une étape en cours n'est pas interrompue, sa requête
+     * est arrêtée par le statement_timeout de sa transaction (voir {@link #enLectureSeule}) et le
+     * calcul des facettes va à son terme pour alimenter le cache.
+     */
+    private <T> T attendre(CompletableFuture<T> futur, String etape, long timeoutMs, List<String> partiesIndisponibles) {
+        try {
+            return futur.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Recherche - étape '{}' abandonnée après {} ms", etape, timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Recherche - erreur lors de l'étape '{}': {}", etape, e.getCause().getMessage());
+        }
+        annuler(futur);
+        partiesIndisponibles.add(etape);
+        return null;
+    }
+
+    private void annuler(CompletableFuture<?> futur) {
+        if (futur != null) {
+            futur.cancel(false);
+        }
+    }
+
+    @PreDestroy
+    void arreterPoolRecherche() {
+        rechercheExecutor.shutdown();
+    }
+
+    /**
+     * Ajoute le FROM, les jointures et la clause WHERE communs à la recherche et au comptage.
+     * Les filtres sur les agrégats portent directement sur expert_recherche_stats (indexée).
+     */
+    private void appendFromEtFiltres(StringBuilder sql, Map<String, Object> params,
+                                     RechercheExpertRequest request) {
         sql.append("""
             FROM expertises e
             LEFT JOIN villes v ON e.ville_id = v.id
             LEFT JOIN pays p ON v.pays_id = p.id
-            LEFT JOIN competences c ON c.utilisateur_id = e.utilisateur_id
-            LEFT JOIN (
-                SELECT
-                    utilisateur_id,
-                    COUNT(*) as nombre_competences,
-                    MAX(niveau_maitrise) as niveau_max,
-                    MAX(annees_experience) as experience_max,
-                    MIN(thm) FILTER (WHERE thm > 0) as thm_min,
-                    MAX(thm) as thm_max,
-                    SUM(COALESCE(nombre_projets, 0)) as projets_total
-                FROM competences
-                GROUP BY utilisateur_id
-            ) comp_stats ON e.utilisateur_id = comp_stats.utilisateur_id
-            LEFT JOIN (
-                SELECT
-                    utilisateur_id,
-                    COUNT(*) as nombre_badges,
-                    MAX(niveau_certification) as niveau_badge_max
-                FROM badges_competence
-                WHERE est_actif = true
-                GROUP BY utilisateur_id
-            ) badge_stats ON e.utilisateur_id = badge_stats.utilisateur_id
-            LEFT JOIN (
-                SELECT expert_id, COUNT(*) as nombre_followers
-                FROM reseau_expertises
-                GROUP BY expert_id
-            ) reseau_stats ON e.utilisateur_id = reseau_stats.expert_id
+            LEFT JOIN expert_recherche_stats s ON s.utilisateur_id = e.utilisateur_id
+            WHERE e.publiee = true
             """);
 
-        // WHERE - filtres
-        sql.append("WHERE e.publiee = true\n");
-
-        // Filtre recherche textuelle
+        // Filtre recherche textuelle (expertise ou au moins une de ses compétences)
         if (request.getTerme() != null && !request.getTerme().trim().isEmpty()) {
             sql.append("""
                 AND (
                     e.recherche_texte @@ plainto_tsquery('french', :terme)
-                    OR c.recherche_texte @@ plainto_tsquery('french', :terme)
                     OR e.titre ILIKE :termeLike
-                    OR c.nom ILIKE :termeLike
+                    OR EXISTS (
+                        SELECT 1 FROM competences c
+                        WHERE c.utilisateur_id = e.utilisateur_id
+                        AND (c.recherche_texte @@ plainto_tsquery('french', :terme)
+                             OR c.nom ILIKE :termeLike)
+                    )
                 )
                 """);
+            params.put("terme", request.getTerme().trim());
             params.put("termeLike", "%" + request.getTerme().trim() + "%");
         }
 
@@ -160,142 +393,162 @@ public class RechercheExpertService {
             params.put("scoreMin", request.getScoreMin());
         }
 
-        // GROUP BY
-        sql.append("""
-            GROUP BY e.id, e.utilisateur_id, e.titre, e.description, e.photo_url,
-                     e.score_global, e.disponible, v.nom, p.nom, p.id, v.id,
-                     comp_stats.nombre_competences, comp_stats.niveau_max,
-                     comp_stats.experience_max, comp_stats.thm_min, comp_stats.thm_max,
-                     comp_stats.projets_total, badge_stats.nombre_badges,
-                     badge_stats.niveau_badge_max, reseau_stats.nombre_followers
-            """);
-
-        // Filtres HAVING (après agrégation)
-        List<String> havingClauses = new ArrayList<>();
-
+        // Filtres sur les agrégats de l'expert
         if (request.getAnneesExperienceMin() != null) {
-            havingClauses.add("COALESCE(comp_stats.experience_max, 0) >= :experienceMin");
+            sql.append("AND COALESCE(s.annees_experience_max, 0) >= :experienceMin\n");
             params.put("experienceMin", request.getAnneesExperienceMin());
         }
 
         if (request.getNiveauMaitriseMin() != null) {
-            havingClauses.add("COALESCE(comp_stats.niveau_max, 0) >= :niveauMin");
+            sql.append("AND COALESCE(s.niveau_maitrise_max, 0) >= :niveauMin\n");
             params.put("niveauMin", request.getNiveauMaitriseMin());
         }
 
         if (request.getNombreProjetsMin() != null) {
-            havingClauses.add("COALESCE(comp_stats.projets_total, 0) >= :projetsMin");
+            sql.append("AND COALESCE(s.projets_total, 0) >= :projetsMin\n");
             params.put("projetsMin", request.getNombreProjetsMin());
         }
 
         if (request.getThmMin() != null) {
-            havingClauses.add("COALESCE(comp_stats.thm_max, 0) >= :thmMin");
+            sql.append("AND COALESCE(s.thm_max, 0) >= :thmMin\n");
             params.put("thmMin", request.getThmMin());
         }
 
         if (request.getThmMax() != null) {
-            havingClauses.add("(COALESCE(comp_stats.thm_min, 0) <= :thmMax OR comp_stats.thm_min IS NULL)");
+            sql.append("AND (s.thm_min IS NULL OR s.thm_min <= :thmMax)\n");
             params.put("thmMax", request.getThmMax());
         }
 
         if (request.getNombreBadgesMin() != null) {
-            havingClauses.add("COALESCE(badge_stats.nombre_badges, 0) >= :badgesMin");
+            sql.append("AND COALESCE(s.nombre_badges, 0) >= :badgesMin\n");
             params.put("badgesMin", request.getNombreBadgesMin());
         }
 
         if (Boolean.TRUE.equals(request.getCertifieUniquement())) {
-            havingClauses.add("COALESCE(badge_stats.nombre_badges, 0) > 0");
+            sql.append("AND COALESCE(s.nombre_badges, 0) > 0\n");
         }
 
         if (request.getNiveauBadgeMin() != null) {
-            int niveauOrdinal = getNiveauOrdinal(request.getNiveauBadgeMin());
-            havingClauses.add("badge_stats.niveau_badge_max IS NOT NULL");
-            // Note: PostgreSQL compare les enums par ordre de déclaration
+            // Note: seule la présence d'un badge actif est vérifiée pour l'instant
+            sql.append("AND s.niveau_badge_max IS NOT NULL\n");
         }
 
         if (request.getNombreFollowersMin() != null) {
-            havingClauses.add("COALESCE(reseau_stats.nombre_followers, 0) >= :followersMin");
+            sql.append("AND COALESCE(s.nombre_followers, 0) >= :followersMin\n");
             params.put("followersMin", request.getNombreFollowersMin());
         }
+    }
 
-        if (!havingClauses.isEmpty()) {
-            sql.append("HAVING ").append(String.join(" AND ", havingClauses)).append("\n");
-        }
-
-        // ORDER BY
-        String tri = request.getTri() != null ? request.getTri().toUpperCase() : "SCORE";
+    /**
+     * Retourne les clés de tri pour un mode de tri donné.
+     * Les expressions ne sont jamais NULL afin que la comparaison du curseur reste exacte.
+     */
+    private List<CleTri> getClesTri(String tri, boolean avecTerme) {
+        List<CleTri> cles = new ArrayList<>();
         switch (tri) {
             case "EXPERIENCE":
-                sql.append("ORDER BY COALESCE(comp_stats.experience_max, 0) DESC, e.score_global DESC\n");
+                cles.add(new CleTri("COALESCE(s.annees_experience_max, 0)", "integer", true));
                 break;
             case "THM_ASC":
-                sql.append("ORDER BY COALESCE(comp_stats.thm_min, 999999) ASC, e.score_global DESC\n");
+                cles.add(new CleTri("COALESCE(s.thm_min, 999999)", "integer", false));
                 break;
             case "THM_DESC":
-                sql.append("ORDER BY COALESCE(comp_stats.thm_max, 0) DESC, e.score_global DESC\n");
+                cles.add(new CleTri("COALESCE(s.thm_max, 0)", "integer", true));
                 break;
             case "POPULARITE":
-                sql.append("ORDER BY COALESCE(reseau_stats.nombre_followers, 0) DESC, e.score_global DESC\n");
+                cles.add(new CleTri("COALESCE(s.nombre_followers, 0)", "integer", true));
                 break;
             case "RECENT":
-                sql.append("ORDER BY e.date_creation DESC, e.score_global DESC\n");
+                cles.add(new CleTri("e.date_creation", "timestamp", true));
                 break;
             case "PERTINENCE":
-                if (request.getTerme() != null && !request.getTerme().trim().isEmpty()) {
-                    sql.append("ORDER BY score_recherche DESC, e.score_global DESC\n");
-                } else {
-                    sql.append("ORDER BY e.score_global DESC\n");
+                if (avecTerme) {
+                    // Converti en double precision pour que la valeur relue depuis le curseur soit identique
+                    cles.add(new CleTri("CAST((" + EXPRESSION_SCORE_RECHERCHE + ") AS double precision)",
+                            "double precision", true));
                 }
                 break;
             default: // SCORE
-                sql.append("ORDER BY e.score_global DESC\n");
+                break;
         }
+        cles.add(new CleTri("COALESCE(e.score_global, 0)", "numeric", true));
+        cles.add(new CleTri("e.utilisateur_id", "varchar", false));
+        return cles;
+    }
 
-        // Pagination
-        int page = request.getPage() != null ? request.getPage() : 0;
-        int taille = request.getTaille() != null ? Math.min(request.getTaille(), 100) : 20;
-        sql.append("LIMIT :limit OFFSET :offset\n");
-        params.put("limit", taille);
-        params.put("offset", page * taille);
-
-        // Exécuter la requête principale
-        Query query = entityManager.createNativeQuery(sql.toString());
-        params.forEach(query::setParameter);
-
-        @SuppressWarnings("unchecked")
-        List<Object[]> rows = query.getResultList();
+    /**
+     * Ajoute la condition de reprise après le curseur (comparaison lexicographique
+     * sur les clés de tri, en respectant le sens de chaque clé)
+     */
+    private void appendConditionCurseur(StringBuilder sql, Map<String, Object> params,
+                                        List<CleTri> clesTri, List<String> valeurs) {
+        List<String> alternatives = new ArrayList<>();
+        for (int i = 0; i < clesTri.size(); i++) {
+            List<String> conditions = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                conditions.add(clesTri.get(j).expression + " = " + parametreCurseur(clesTri.get(j), j));
+            }
+            CleTri cle = clesTri.get(i);
+            conditions.add(cle.expression + (cle.descendant ? " < " : " > ") + parametreCurseur(cle, i));
+            alternatives.add("(" + String.join(" AND ", conditions) + ")");
+        }
+        sql.append("AND (").append(String.join(" OR ", alternatives)).append(")\n");
+        for (int i = 0; i < valeurs.size(); i++) {
+            params.put("curseur" + i, valeurs.get(i));
+        }
+    }
 
-        // Convertir les résultats
-        List<ExpertResultat> resultats = rows.stream()
-                .map(this::mapToExpertResultat)
-                .collect(Collectors.toList());
+    private String parametreCurseur(CleTri cle, int index) {
+        return "CAST(:curseur" + index + " AS " + cle.typeSql + ")";
+    }
 
-        // Charger les compétences principales pour chaque expert
-        for (ExpertResultat resultat : resultats) {
-            resultat.setCompetencesPrincipales(
-                    chargerCompetencesPrincipales(resultat.getUtilisateurId())
-            );
+    /**
+     * Encode le curseur (mode de tri + valeurs des clés de la dernière ligne) en Base64 URL-safe
+     */
+    private String encoderCurseur(String tri, List<String> valeurs) {
+        try {
+            Map<String, Object> contenu = new LinkedHashMap<>();
+            contenu.put("tri", tri);
+            contenu.put("cles", valeurs);
+            byte[] json = objectMapper.writeValueAsBytes(contenu);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("Impossible d'encoder le curseur de recherche", e);
         }
+    }
 
-        // Compter le total
-        long totalResultats = compterTotalResultats(request, params);
+    /**
+     * Décode et valide un curseur reçu du client
+     */
+    private List<String> decoderCurseur(String curseur, String tri, int nombreCles) {
+        Map<String, Object> contenu;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(curseur);
+            contenu = objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Curseur de recherche invalide");
+        }
 
-        // Construire la réponse
-        RechercheExpertResponse response = new RechercheExpertResponse();
-        response.setResultats(resultats);
-        response.setTotalResultats(totalResultats);
-        response.setPage(page);
-        response.setTaille(taille);
-        response.setTotalPages((int) Math.ceil((double) totalResultats / taille));
+        Object cles = contenu.get("cles");
+        if (!tri.equals(contenu.get("tri")) || !(cles instanceof List<?> valeurs) || valeurs.size() != nombreCles) {
+            throw new IllegalArgumentException("Curseur de recherche incompatible avec le tri demandé");
+        }
+        return valeurs.stream().map(String::valueOf).collect(Collectors.toList());
+    }
 
-        // Charger les facettes
-        response.setFacettesPays(chargerFacettesPays());
-        response.setFacettesVilles(chargerFacettesVilles(request.getPaysId()));
-        response.setFacettesBadges(chargerFacettesBadges());
-        response.setStatistiques(chargerStatistiques());
+    /**
+     * Clé de tri : expression SQL, type pour relire la valeur du curseur et sens du tri
+     */
+    private static final class CleTri {
+        private final String expression;
+        private final String typeSql;
+        private final boolean descendant;
 
-        log.info("Recherche terminée - {} résultats trouvés", totalResultats);
-        return response;
+        private CleTri(String expression, String typeSql, boolean descendant) {
+            this.expression = expression;
+            this.typeSql = typeSql;
+            this.descendant = descendant;
+        }
     }
 
     /**
@@ -326,331 +579,66 @@ public class RechercheExpertService {
     }
 
     /**
-     * Charge les 3 compétences principales d'un expert
+     * Charge les 3 compétences principales de chaque expert de la page.
+     * Une seule requête : ROW_NUMBER() partitionné par utilisateur_id conserve le top 3 de chacun.
      */
-    private List<CompetenceResume> chargerCompetencesPrincipales(String utilisateurId) {
+    private Map<String, List<CompetenceResume>> chargerCompetencesPrincipales(List<String> utilisateurIds) {
+        Map<String, List<CompetenceResume>> competencesParExpert = new HashMap<>();
+        if (utilisateurIds.isEmpty()) {
+            return competencesParExpert;
+        }
+
         String sql = """
-            SELECT c.nom, c.niveau_maitrise, c.annees_experience, c.thm,
-                   b.niveau_certification
-            FROM competences c
-            LEFT JOIN badges_competence b ON b.competence_id = c.id AND b.est_actif = true
-            WHERE c.utilisateur_id = :utilisateurId
-            ORDER BY COALESCE(b.niveau_certification, 'AUCUN') DESC,
-                     c.niveau_maitrise DESC NULLS LAST,
-                     c.annees_experience DESC NULLS LAST
-            LIMIT 3
+            SELECT utilisateur_id, nom, niveau_maitrise, annees_experience, thm, niveau_certification
+            FROM (
+                SELECT c.utilisateur_id, c.nom, c.niveau_maitrise, c.annees_experience, c.thm,
+                       b.niveau_certification,
+                       ROW_NUMBER() OVER (
+                           PARTITION BY c.utilisateur_id
+                           ORDER BY COALESCE(b.niveau_certification, 'AUCUN') DESC,
+                                    c.niveau_maitrise DESC NULLS LAST,
+                                    c.annees_experience DESC NULLS LAST
+                       ) as rang
+                FROM competences c
+                LEFT JOIN badges_competence b ON b.competence_id = c.id AND b.est_actif = true
+                WHERE c.utilisateur_id IN (:utilisateurIds)
+            ) competences_classees
+            WHERE rang <= 3
+            ORDER BY utilisateur_id, rang
             """;
 
         Query query = entityManager.createNativeQuery(sql);
-        query.setParameter("utilisateurId", utilisateurId);
+        query.setParameter("utilisateurIds", utilisateurIds);
 
         @SuppressWarnings("unchecked")
         List<Object[]> rows = query.getResultList();
 
-        return rows.stream().map(row -> {
+        for (Object[] row : rows) {
             CompetenceResume cr = new CompetenceResume();
-            cr.setNom((String) row[0]);
-            cr.setNiveauMaitrise(row[1] != null ? ((Number) row[1]).intValue() : null);
-            cr.setAnneesExperience(row[2] != null ? ((Number) row[2]).intValue() : null);
-            cr.setThm(row[3] != null ? ((Number) row[3]).intValue() : null);
-            cr.setNiveauBadge(row[4] != null ? row[4].toString() : null);
-            cr.setEstCertifiee(row[4] != null);
-            return cr;
-        }).collect(Collectors.toList());
+            cr.setNom((String) row[1]);
+            cr.setNiveauMaitrise(row[2] != null ? ((Number) row[2]).intValue() : null);
+            cr.setAnneesExperience(row[3] != null ? ((Number) row[3]).intValue() : null);
+            cr.setThm(row[4] != null ? ((Number) row[4]).intValue() : null);
+            cr.setNiveauBadge(row[5] != null ? row[5].toString() : null);
+            cr.setEstCertifiee(row[5] != null);
+            competencesParExpert.computeIfAbsent((String) row[0], id -> new ArrayList<>()).add(cr);
+        }
+        return competencesParExpert;
     }
 
     /**
      * Compte le total de résultats (sans pagination)
-     * Utilise une sous-requête pour appliquer tous les filtres y compris HAVING
+     * Applique exactement les mêmes filtres que la requête principale
      */
-    private long compterTotalResultats(RechercheExpertRequest request, Map<String, Object> params) {
-        StringBuilder countSql = new StringBuilder();
+    private long compterTotalResultats(RechercheExpertRequest request) {
+        StringBuilder countSql = new StringBuilder("SELECT COUNT(*)\n");
         Map<String, Object> countParams = new HashMap<>();
 
-        // Sous-requête avec tous les filtres
-        countSql.append("""
-            SELECT COUNT(*) FROM (
-                SELECT e.id
-                FROM expertises e
-                LEFT JOIN villes v ON e.ville_id = v.id
-                LEFT JOIN pays p ON v.pays_id = p.id
-                LEFT JOIN competences c ON c.utilisateur_id = e.utilisateur_id
-                LEFT JOIN (
-                    SELECT
-                        utilisateur_id,
-                        COUNT(*) as nombre_competences,
-                        MAX(niveau_maitrise) as niveau_max,
-                        MAX(annees_experience) as experience_max,
-                        MIN(thm) FILTER (WHERE thm > 0) as thm_min,
-                        MAX(thm) as thm_max,
-                        SUM(COALESCE(nombre_projets, 0)) as projets_total
-                    FROM competences
-                    GROUP BY utilisateur_id
-                ) comp_stats ON e.utilisateur_id = comp_stats.utilisateur_id
-                LEFT JOIN (
-                    SELECT
-                        utilisateur_id,
-                        COUNT(*) as nombre_badges,
-                        MAX(niveau_certification) as niveau_badge_max
-                    FROM badges_competence
-                    WHERE est_actif = true
-                    GROUP BY utilisateur_id
-                ) badge_stats ON e.utilisateur_id = badge_stats.utilisateur_id
-                LEFT JOIN (
-                    SELECT expert_id, COUNT(*) as nombre_followers
-                    FROM reseau_expertises
-                    GROUP BY expert_id
-                ) reseau_stats ON e.utilisateur_id = reseau_stats.expert_id
-                WHERE e.publiee = true
-            """);
-
-        // Appliquer les filtres WHERE
-        if (request.getTerme() != null && !request.getTerme().trim().isEmpty()) {
-            countSql.append("""
-                AND (
-                    e.recherche_texte @@ plainto_tsquery('french', :terme)
-                    OR c.recherche_texte @@ plainto_tsquery('french', :terme)
-                    OR e.titre ILIKE :termeLike
-                    OR c.nom ILIKE :termeLike
-                )
-                """);
-            countParams.put("terme", request.getTerme().trim());
-            countParams.put("termeLike", "%" + request.getTerme().trim() + "%");
-        }
-
-        if (request.getVilleId() != null) {
-            countSql.append("AND v.id = :villeId\n");
-            countParams.put("villeId", request.getVilleId());
-        } else if (request.getPaysId() != null) {
-            countSql.append("AND p.id = :paysId\n");
-            countParams.put("paysId", request.getPaysId());
-        }
-
-        if (request.getDisponible() != null) {
-            countSql.append("AND e.disponible = :disponible\n");
-            countParams.put("disponible", request.getDisponible());
-        }
-
-        if (request.getScoreMin() != null) {
-            countSql.append("AND e.score_global >= :scoreMin\n");
-            countParams.put("scoreMin", request.getScoreMin());
-        }
-
-        // GROUP BY
-        countSql.append("""
-            GROUP BY e.id, comp_stats.nombre_competences, comp_stats.niveau_max,
-                     comp_stats.experience_max, comp_stats.thm_min, comp_stats.thm_max,
-                     comp_stats.projets_total, badge_stats.nombre_badges,
-                     badge_stats.niveau_badge_max, reseau_stats.nombre_followers
-            """);
-
-        // Appliquer les filtres HAVING
-        List<String> havingClauses = new ArrayList<>();
-
-        if (request.getAnneesExperienceMin() != null) {
-            havingClauses.add("COALESCE(comp_stats.experience_max, 0) >= :experienceMin");
-            countParams.put("experienceMin", request.getAnneesExperienceMin());
-        }
-
-        if (request.getNiveauMaitriseMin() != null) {
-            havingClauses.add("COALESCE(comp_stats.niveau_max, 0) >= :niveauMin");
-            countParams.put("niveauMin", request.getNiveauMaitriseMin());
-        }
-
-        if (request.getNombreProjetsMin() != null) {
-            havingClauses.add("COALESCE(comp_stats.projets_total, 0) >= :projetsMin");
-            countParams.put("projetsMin", request.getNombreProjetsMin());
-        }
-
-        if (request.getThmMin() != null) {
-            havingClauses.add("COALESCE(comp_stats.thm_max, 0) >= :thmMin");
-            countParams.put("thmMin", request.getThmMin());
-        }
-
-        if (request.getThmMax() != null) {
-            havingClauses.add("(COALESCE(comp_stats.thm_min, 0) <= :thmMax OR comp_stats.thm_min IS NULL)");
-            countParams.put("thmMax", request.getThmMax());
-        }
-
-        if (request.getNombreBadgesMin() != null) {
-            havingClauses.add("COALESCE(badge_stats.nombre_badges, 0) >= :badgesMin");
-            countParams.put("badgesMin", request.getNombreBadgesMin());
-        }
-
-        if (Boolean.TRUE.equals(request.getCertifieUniquement())) {
-            havingClauses.add("COALESCE(badge_stats.nombre_badges, 0) > 0");
-        }
-
-        if (request.getNombreFollowersMin() != null) {
-            havingClauses.add("COALESCE(reseau_stats.nombre_followers, 0) >= :followersMin");
-            countParams.put("followersMin", request.getNombreFollowersMin());
-        }
-
-        if (!havingClauses.isEmpty()) {
-            countSql.append("HAVING ").append(String.join(" AND ", havingClauses)).append("\n");
-        }
-
-        // Fermer la sous-requête
-        countSql.append(") AS subquery");
+        appendFromEtFiltres(countSql, countParams, request);
 
         Query countQuery = entityManager.createNativeQuery(countSql.toString());
         countParams.forEach(countQuery::setParameter);
 
         return ((Number) countQuery.getSingleResult()).longValue();
     }
-
-    /**
-     * Charge les facettes par pays
-     */
-    private List<FacetteItem> chargerFacettesPays() {
-        String sql = """
-            SELECT p.id, p.nom, COUNT(DISTINCT e.id)
-            FROM expertises e
-            JOIN villes v ON e.ville_id = v.id
-            JOIN pays p ON v.pays_id = p.id
-            WHERE e.publiee = true
-            GROUP BY p.id, p.nom
-            ORDER BY COUNT(DISTINCT e.id) DESC
-            LIMIT 10
-            """;
-
-        Query query = entityManager.createNativeQuery(sql);
-
-        @SuppressWarnings("unchecked")
-        List<Object[]> rows = query.getResultList();
-
-        return rows.stream()
-                .map(row -> new FacetteItem(
-                        row[0].toString(),
-                        (String) row[1],
-                        ((Number) row[2]).longValue()
-                ))
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Charge les facettes par ville (optionnellement filtré par pays)
-     */
-    private List<FacetteItem> chargerFacettesVilles(Long paysId) {
-        StringBuilder sql = new StringBuilder();
-        sql.append("""
-            SELECT v.id, v.nom, COUNT(DISTINCT e.id)
-            FROM expertises e
-            JOIN villes v ON e.ville_id = v.id
-            WHERE e.publiee = true
-            """);
-
-        if (paysId != null) {
-            sql.append("AND v.pays_id = :paysId\n");
-        }
-
-        sql.append("""
-            GROUP BY v.id, v.nom
-            ORDER BY COUNT(DISTINCT e.id) DESC
-            LIMIT 15
-            """);
-
-        Query query = entityManager.createNativeQuery(sql.toString());
-        if (paysId != null) {
-            query.setParameter("paysId", paysId);
-        }
-
-        @SuppressWarnings("unchecked")
-        List<Object[]> rows = query.getResultList();
-
-        return rows.stream()
-                .map(row -> new FacetteItem(
-                        row[0].toString(),
-                        (String) row[1],
-                        ((Number) row[2]).longValue()
-                ))
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Charge les facettes par niveau de badge
-     */
-    private List<FacetteItem> chargerFacettesBadges() {
-        String sql = """
-            SELECT niveau_certification, COUNT(DISTINCT utilisateur_id)
-            FROM badges_competence
-            WHERE est_actif = true
-            GROUP BY niveau_certification
-            ORDER BY
-                CASE niveau_certification
-                    WHEN 'PLATINE' THEN 1
-                    WHEN 'OR' THEN 2
-                    WHEN 'ARGENT' THEN 3
-                    WHEN 'BRONZE' THEN 4
-                END
-            """;
-
-        Query query = entityManager.createNativeQuery(sql);
-
-        @SuppressWarnings("unchecked")
-        List<Object[]> rows = query.getResultList();
-
-        return rows.stream()
-                .map(row -> new FacetteItem(
-                        row[0].toString(),
-                        getLibelleNiveauBadge(row[0].toString()),
-                        ((Number) row[1]).longValue()
-                ))
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Charge les statistiques globales
-     */
-    private StatistiquesRecherche chargerStatistiques() {
-        String sql = """
-            SELECT
-                COUNT(DISTINCT CASE WHEN e.disponible = true THEN e.id END) as disponibles,
-                COUNT(DISTINCT CASE WHEN b.id IS NOT NULL THEN e.id END) as certifies,
-                COALESCE(AVG(c.thm) FILTER (WHERE c.thm > 0), 0) as thm_moyen,
-                COALESCE(AVG(c.annees_experience), 0) as experience_moyenne,
-                COALESCE(AVG(e.score_global), 0) as score_moyen
-            FROM expertises e
-            LEFT JOIN competences c ON c.utilisateur_id = e.utilisateur_id
-            LEFT JOIN badges_competence b ON b.utilisateur_id = e.utilisateur_id AND b.est_actif = true
-            WHERE e.publiee = true
-            """;
-
-        Query query = entityManager.createNativeQuery(sql);
-        Object[] row = (Object[]) query.getSingleResult();
-
-        StatistiquesRecherche stats = new StatistiquesRecherche();
-        stats.setTotalExpertsDisponibles(((Number) row[0]).intValue());
-        stats.setTotalExpertsCertifies(((Number) row[1]).intValue());
-        stats.setThmMoyen(((Number) row[2]).intValue());
-        stats.setExperienceMoyenne(((Number) row[3]).intValue());
-        stats.setScoreMoyen(((Number) row[4]).doubleValue());
-        return stats;
-    }
-
-    /**
-     * Convertit un niveau de badge en ordinal pour comparaison
-     */
-    private int getNiveauOrdinal(String niveau) {
-        return switch (niveau.toUpperCase()) {
-            case "PLATINE" -> 4;
-            case "OR" -> 3;
-            case "ARGENT" -> 2;
-            case "BRONZE" -> 1;
-            default -> 0;
-        };
-    }
-
-    /**
-     * Retourne le libellé français d'un niveau de badge
-     */
-    private String getLibelleNiveauBadge(String niveau) {
-        return switch (niveau.toUpperCase()) {
-            case "PLATINE" -> "Platine";
-            case "OR" -> "Or";
-            case "ARGENT" -> "Argent";
-            case "BRONZE" -> "Bronze";
-            default -> niveau;
-        };
-    }
 }
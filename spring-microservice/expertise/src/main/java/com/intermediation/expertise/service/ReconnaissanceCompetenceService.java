@@ -18,7 +18,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import com.intermediation.expertise.model.BadgeCompetence;
-import java.util.stream.Collectors;
 
 /**
  * Service pour la gestion des demandes de reconnaissance de compétence (côté expert)
@@ -38,13 +37,10 @@ public class ReconnaissanceCompetenceService {
     private CompetenceRepository competenceRepository;
 
     @Autowired
-    private CompetenceReferenceRepository competenceReferenceRepository;
+    private DemandeReconnaissanceAssembleur assembleur;
 
     @Autowired
-    private BadgeCompetenceRepository badgeRepository;
-
-    @Autowired
-    private EvaluationCompetenceRepository evaluationRepository;
+    private StatistiquesDemandesService statistiquesDemandesService;
 
     @Autowired
     private FileStorageService fileStorageService;
@@ -88,6 +84,7 @@ public class ReconnaissanceCompetenceService {
         demande.setCommentaireExpert(request.getCommentaire());
 
         demande = demandeRepository.save(demande);
+        statistiquesDemandesService.invalider();
 
         // Incrémenter le nombre de demandes de la compétence
         competence.setNombreDemandes(competence.getNombreDemandes() + 1);
@@ -182,9 +179,7 @@ public class ReconnaissanceCompetenceService {
         List<DemandeReconnaissanceCompetence> demandes = demandeRepository
                 .findByUtilisateurIdOrderByDateCreationDesc(utilisateurId);
 
-        return demandes.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return assembleur.versDTO(demandes);
     }
 
     /**
@@ -212,6 +207,7 @@ public class ReconnaissanceCompetenceService {
 
         demande.annuler();
         demandeRepository.save(demande);
+        statistiquesDemandesService.invalider();
 
         logger.info("Demande {} annulée par l'utilisateur {}", demandeId, utilisateurId);
     }
@@ -234,6 +230,7 @@ public class ReconnaissanceCompetenceService {
         }
 
         demande = demandeRepository.save(demande);
+        statistiquesDemandesService.invalider();
 
         logger.info("Demande {} resoumise après complément", demandeId);
 
@@ -294,46 +291,10 @@ public class ReconnaissanceCompetenceService {
 
     // Méthodes de conversion
     private DemandeReconnaissanceDTO convertToDTO(DemandeReconnaissanceCompetence demande) {
-        DemandeReconnaissanceDTO dto = new DemandeReconnaissanceDTO(demande);
-
-        // Enrichir avec le nom de la compétence et déterminer le niveau
-        competenceRepository.findById(demande.getCompetenceId())
-                .ifPresent(c -> {
-                    dto.setCompetenceNom(c.getNom());
-                    // Déterminer le niveau basé sur le domaine de compétence
-                    if (c.getCompetenceReferenceId() != null) {
-                        competenceReferenceRepository.findById(c.getCompetenceReferenceId())
-                                .ifPresent(ref -> {
-                                    if (ref.getDomaineCompetence() != null) {
-                                        dto.setNiveauDetermine(ref.getDomaineCompetence().getCode());
-                                    }
-                                });
-                    }
-                });
-
-        // Compter les pièces
-        dto.setNombrePieces((int) pieceRepository.countByDemandeId(demande.getId()));
-
-        return dto;
+        return assembleur.versDTO(demande);
     }
 
     private DemandeReconnaissanceDTO convertToDTOWithDetails(DemandeReconnaissanceCompetence demande) {
-        DemandeReconnaissanceDTO dto = convertToDTO(demande);
-        
-        // Ajouter les pièces justificatives
-        List<PieceJustificative> pieces = pieceRepository.findByDemandeIdOrderByDateAjoutAsc(demande.getId());
-        dto.setPieces(pieces.stream().map(PieceJustificativeDTO::new).collect(Collectors.toList()));
-        
-        // Ajouter l'évaluation si elle existe
-        evaluationRepository.findByDemandeId(demande.getId())
-                .ifPresent(eval -> dto.setEvaluation(new EvaluationCompetenceDTO(eval)));
-        
-        // Ajouter le badge si la demande est approuvée
-        if (demande.getStatut() == StatutDemande.APPROUVEE) {
-            badgeRepository.findByDemandeReconnaissanceId(demande.getId())
-                    .ifPresent(badge -> dto.setBadge(new BadgeCompetenceDTO(badge)));
-        }
-        
-        return dto;
+        return assembleur.versDTOAvecDetails(demande);
     }
 }
@@ -18,7 +18,8 @@ public class ReseauExpertiseService {
 
     private final ReseauExpertiseRepository reseauRepository;
     private final ExpertiseService expertiseService;
-    private final ScoreExpertService scoreExpertService;
+    private final FileRecalculScoreService fileRecalculScoreService;
+    private final ExpertRechercheStatsService expertRechercheStatsService;
     
     /**
      * Ajouter un expert au réseau
@@ -38,8 +39,11 @@ public class ReseauExpertiseService {
         reseauRepository.save(reseau);
         log.info("L'expert {} a été ajouté au réseau de l'utilisateur {}", expertId, utilisateurId);
 
+        // Mettre à jour le nombre de followers dans les agrégats de recherche
+        expertRechercheStatsService.rafraichirStatsExpert(expertId);
+
         // Recalculer le score de l'expert suivi (il gagne en popularité)
-        scoreExpertService.calculerScoreAsync(expertId);
+        fileRecalculScoreService.signaler(expertId);
     }
     
     /**
@@ -50,8 +54,11 @@ public class ReseauExpertiseService {
         reseauRepository.deleteByUtilisateurIdAndExpertId(utilisateurId, expertId);
         log.info("L'expert {} a été retiré du réseau de l'utilisateur {}", expertId, utilisateurId);
 
+        // Mettre à jour le nombre de followers dans les agrégats de recherche
+        expertRechercheStatsService.rafraichirStatsExpert(expertId);
+
         // Recalculer le score de l'expert (il perd en popularité)
-        scoreExpertService.calculerScoreAsync(expertId);
+        fileRecalculScoreService.signaler(expertId);
     }
     
     /**
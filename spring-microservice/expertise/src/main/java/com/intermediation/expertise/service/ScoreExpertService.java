@@ -11,15 +11,23 @@ import com.intermediation.expertise.repository.ExpertiseRepository;
 import com.intermediation.expertise.repository.ReseauExpertiseRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +40,10 @@ import java.util.Map;
  * - Score Profil (15%): basé sur la complétude du profil
  * - Score Popularité (10%): basé sur le nombre de followers
  * - Score Activité (10%): basé sur la fraîcheur du profil
+ *
+ * Le recalcul complet est ensembliste : les données de chaque lot d'experts sont agrégées
+ * en une requête, les scores calculés en mémoire puis écrits en batch JDBC (une transaction par lot).
+ * Chaque recalcul est ajouté à l'historique des scores (voir HistoriqueScoreService).
  */
 @Service
 public class ScoreExpertService {
@@ -57,21 +69,117 @@ public class ScoreExpertService {
     private static final int PLAFOND_PROJETS = 100; // Total tous projets
     private static final int PLAFOND_FOLLOWERS = 50; // Nombre max de followers pour score max
 
+    // Paliers d'ancienneté (jours) du score d'activité, repris par DecroissanceActiviteService
+    static final int[] PALIERS_ACTIVITE_JOURS = {30, 90, 180, 365};
+
+    // Lots d'expertises : page suivante par identifiant (recalcul complet) ou liste d'experts
+    private static final String SQL_LOT_SUIVANT = """
+            WITH lot AS (
+                SELECT id, utilisateur_id, photo_url, description, titre, ville_id, disponible,
+                       COALESCE(date_modification, date_creation) AS derniere_modification
+                FROM expertises
+                WHERE id > :dernierId
+                ORDER BY id
+                LIMIT :taille
+            )
+            """;
+
+    private static final String SQL_LOT_UTILISATEURS = """
+            WITH lot AS (
+                SELECT id, utilisateur_id, photo_url, description, titre, ville_id, disponible,
+                       COALESCE(date_modification, date_creation) AS derniere_modification
+                FROM expertises
+                WHERE utilisateur_id IN (:utilisateurIds)
+            )
+            """;
+
+    // Données de score des expertises du lot ; les textes du profil ne sont pas chargés,
+    // seuls les indicateurs utiles au score de profil sont calculés côté base
+    private static final String SQL_DONNEES_LOT = """
+            SELECT
+                lot.id,
+                lot.utilisateur_id,
+                COALESCE(lot.photo_url, '') <> '' AS a_photo,
+                COALESCE(LENGTH(lot.description), 0) AS longueur_description,
+                COALESCE(lot.titre, '') <> '' AS a_titre,
+                lot.ville_id IS NOT NULL AS a_ville,
+                COALESCE(lot.disponible, false) AS disponible,
+                lot.derniere_modification,
+                COALESCE(comp.nombre_competences, 0) AS nombre_competences,
+                COALESCE(comp.total_annees, 0) AS total_annees,
+                COALESCE(comp.total_projets, 0) AS total_projets,
+                COALESCE(comp.somme_niveaux, 0) AS somme_niveaux,
+                COALESCE(badge.nombre_badges, 0) AS nombre_badges,
+                COALESCE(badge.points_badges, 0) AS points_badges,
+                COALESCE(reseau.nombre_followers, 0) AS nombre_followers
+            FROM lot
+            LEFT JOIN (
+                SELECT utilisateur_id,
+                       COUNT(*) AS nombre_competences,
+                       SUM(COALESCE(annees_experience, 0)) AS total_annees,
+                       SUM(COALESCE(nombre_projets, 0)) AS total_projets,
+                       SUM(COALESCE(niveau_maitrise, 0)) AS somme_niveaux
+                FROM competences
+                WHERE utilisateur_id IN (SELECT utilisateur_id FROM lot)
+                GROUP BY utilisateur_id
+            ) comp ON comp.utilisateur_id = lot.utilisateur_id
+            LEFT JOIN (
+                SELECT utilisateur_id,
+                       COUNT(*) AS nombre_badges,
+                       SUM(CASE niveau_certification
+                               WHEN 'BRONZE' THEN :pointsBronze
+                               WHEN 'ARGENT' THEN :pointsArgent
+                               WHEN 'OR' THEN :pointsOr
+                               WHEN 'PLATINE' THEN :pointsPlatine
+                               ELSE 0 END)
+                           FILTER (WHERE validite_permanente = true OR date_expiration > CURRENT_TIMESTAMP) AS points_badges
+                FROM badges_competence
+                WHERE est_actif = true AND utilisateur_id IN (SELECT utilisateur_id FROM lot)
+                GROUP BY utilisateur_id
+            ) badge ON badge.utilisateur_id = lot.utilisateur_id
+            LEFT JOIN (
+                SELECT expert_id, COUNT(*) AS nombre_followers
+                FROM reseau_expertises
+                WHERE expert_id IN (SELECT utilisateur_id FROM lot)
+                GROUP BY expert_id
+            ) reseau ON reseau.expert_id = lot.utilisateur_id
+            ORDER BY lot.id
+            """;
+
+    private static final String SQL_MISE_A_JOUR_SCORE = """
+            UPDATE expertises
+            SET score_global = :scoreGlobal, score_details = CAST(:scoreDetails AS jsonb), date_calcul_score = :dateCalcul
+            WHERE id = :id
+            """;
+
     private final ExpertiseRepository expertiseRepository;
     private final CompetenceRepository competenceRepository;
     private final BadgeCompetenceRepository badgeCompetenceRepository;
     private final ReseauExpertiseRepository reseauExpertiseRepository;
+    private final HistoriqueScoreService historiqueScoreService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
     private final ObjectMapper objectMapper;
 
+    // Nombre d'experts agrégés et écrits par transaction lors d'un recalcul complet
+    @Value("${score.recalcul.taille-lot:1000}")
+    private int tailleLot;
+
     public ScoreExpertService(
             ExpertiseRepository expertiseRepository,
             CompetenceRepository competenceRepository,
             BadgeCompetenceRepository badgeCompetenceRepository,
-            ReseauExpertiseRepository reseauExpertiseRepository) {
+            ReseauExpertiseRepository reseauExpertiseRepository,
+            HistoriqueScoreService historiqueScoreService,
+            NamedParameterJdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
         this.expertiseRepository = expertiseRepository;
         this.competenceRepository = competenceRepository;
         this.badgeCompetenceRepository = badgeCompetenceRepository;
         this.reseauExpertiseRepository = reseauExpertiseRepository;
+        this.historiqueScoreService = historiqueScoreService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
         this.objectMapper = new ObjectMapper();
     }
 
@@ -96,129 +204,253 @@ public class ScoreExpertService {
                 .findByUtilisateurIdAndEstActifOrderByOrdreAffichageAscDateObtentionDesc(utilisateurId, true);
         long nombreFollowers = reseauExpertiseRepository.countByExpertId(utilisateurId);
 
-        // Calculer les scores individuels
-        double scoreCertification = calculerScoreCertification(badges);
-        double scoreExperience = calculerScoreExperience(competences);
-        double scoreProfil = calculerScoreProfil(expertise, competences);
-        double scorePopularite = calculerScorePopularite(nombreFollowers);
-        double scoreActivite = calculerScoreActivite(expertise);
+        DonneesScore donnees = new DonneesScore();
+        donnees.pointsBadges = calculerPointsBadges(badges);
+        donnees.nombreBadges = badges.size();
+        donnees.nombreCompetences = competences.size();
+        for (Competence comp : competences) {
+            if (comp.getAnneesExperience() != null) {
+                donnees.totalAnneesExperience += comp.getAnneesExperience();
+            }
+            if (comp.getNombreProjets() != null) {
+                donnees.totalProjets += comp.getNombreProjets();
+            }
+            if (comp.getNiveauMaitrise() != null) {
+                donnees.sommeNiveaux += comp.getNiveauMaitrise();
+            }
+        }
+        donnees.aPhoto = expertise.getPhotoUrl() != null && !expertise.getPhotoUrl().isEmpty();
+        donnees.longueurDescription = expertise.getDescription() != null ? expertise.getDescription().length() : 0;
+        donnees.aTitre = expertise.getTitre() != null && !expertise.getTitre().isEmpty();
+        donnees.aVille = expertise.getVille() != null;
+        donnees.disponible = Boolean.TRUE.equals(expertise.getDisponible());
+        donnees.derniereModification = expertise.getDateModification() != null
+                ? expertise.getDateModification() : expertise.getDateCreation();
+        donnees.nombreFollowers = nombreFollowers;
+
+        LocalDateTime maintenant = LocalDateTime.now();
+        ResultatScore resultat = calculerScore(donnees, maintenant);
+
+        // Mettre à jour l'expertise
+        expertise.setScoreGlobal(resultat.scoreGlobal);
+        expertise.setScoreDetails(resultat.detailsJson);
+        expertise.setDateCalculScore(maintenant);
+
+        expertiseRepository.save(expertise);
+        historiqueScoreService.enregistrer(Map.of(expertise.getId(), resultat), maintenant);
+
+        log.info("Score calculé pour {}: {} (Cert:{}, Exp:{}, Profil:{}, Pop:{}, Act:{})",
+                utilisateurId, resultat.scoreGlobal,
+                round(resultat.scoreCertification), round(resultat.scoreExperience),
+                round(resultat.scoreProfil), round(resultat.scorePopularite), round(resultat.scoreActivite));
+    }
+
+    /**
+     * Recalcule les scores de tous les experts, par lots ordonnés sur l'identifiant.
+     * Chaque lot coûte une requête d'agrégation et un batch d'UPDATE, validés dans leur
+     * propre transaction : un échec n'annule que le lot concerné.
+     * @return nombre de scores mis à jour
+     */
+    public int recalculerTousLesScores() {
+        log.info("Début du recalcul de tous les scores (lots de {})...", tailleLot);
+        long debut = System.currentTimeMillis();
+
+        long dernierId = 0;
+        int traites = 0;
+        int lotsEnErreur = 0;
+        while (true) {
+            List<DonneesScore> lot = chargerLot(dernierId);
+            if (lot.isEmpty()) {
+                break;
+            }
+            dernierId = lot.get(lot.size() - 1).expertiseId;
+            try {
+                traites += transactionTemplate.execute(status -> ecrireScores(lot));
+            } catch (Exception e) {
+                lotsEnErreur++;
+                log.error("Erreur lors du recalcul des scores du lot terminant à l'expertise {}: {}",
+                        dernierId, e.getMessage());
+            }
+            if (lot.size() < tailleLot) {
+                break;
+            }
+        }
+
+        log.info("Recalcul terminé: {} scores mis à jour en {} ms ({} lot(s) en erreur)",
+                traites, System.currentTimeMillis() - debut, lotsEnErreur);
+        return traites;
+    }
+
+    /**
+     * Recalcule en une transaction les scores d'un ensemble d'experts
+     * (une requête d'agrégation et un batch d'UPDATE, quel que soit leur nombre)
+     * @return nombre de scores mis à jour
+     */
+    @Transactional
+    public int recalculerScores(Collection<String> utilisateurIds) {
+        if (utilisateurIds.isEmpty()) {
+            return 0;
+        }
+        List<DonneesScore> lot = chargerDonnees(SQL_LOT_UTILISATEURS,
+                new MapSqlParameterSource("utilisateurIds", utilisateurIds));
+        return lot.isEmpty() ? 0 : ecrireScores(lot);
+    }
+
+    // ======================== MÉTHODES DE CALCUL PRIVÉES ========================
+
+    /**
+     * Agrège les données de score du lot d'expertises suivant (identifiant > dernierId) en une requête :
+     * une sous-requête groupée par source (compétences, badges, réseau) restreinte au lot
+     */
+    private List<DonneesScore> chargerLot(long dernierId) {
+        return chargerDonnees(SQL_LOT_SUIVANT, new MapSqlParameterSource()
+                .addValue("dernierId", dernierId)
+                .addValue("taille", tailleLot));
+    }
+
+    private List<DonneesScore> chargerDonnees(String sqlLot, MapSqlParameterSource parametres) {
+        parametres
+                .addValue("pointsBronze", POINTS_BRONZE)
+                .addValue("pointsArgent", POINTS_ARGENT)
+                .addValue("pointsOr", POINTS_OR)
+                .addValue("pointsPlatine", POINTS_PLATINE);
+
+        return jdbcTemplate.query(sqlLot + SQL_DONNEES_LOT, parametres, (rs, numeroLigne) -> {
+            DonneesScore donnees = new DonneesScore();
+            donnees.expertiseId = rs.getLong("id");
+            donnees.utilisateurId = rs.getString("utilisateur_id");
+            donnees.aPhoto = rs.getBoolean("a_photo");
+            donnees.longueurDescription = rs.getInt("longueur_description");
+            donnees.aTitre = rs.getBoolean("a_titre");
+            donnees.aVille = rs.getBoolean("a_ville");
+            donnees.disponible = rs.getBoolean("disponible");
+            Timestamp derniereModification = rs.getTimestamp("derniere_modification");
+            donnees.derniereModification = derniereModification != null ? derniereModification.toLocalDateTime() : null;
+            donnees.nombreCompetences = rs.getInt("nombre_competences");
+            donnees.totalAnneesExperience = rs.getInt("total_annees");
+            donnees.totalProjets = rs.getInt("total_projets");
+            donnees.sommeNiveaux = rs.getInt("somme_niveaux");
+            donnees.nombreBadges = rs.getInt("nombre_badges");
+            donnees.pointsBadges = rs.getInt("points_badges");
+            donnees.nombreFollowers = rs.getLong("nombre_followers");
+            return donnees;
+        });
+    }
+
+    /**
+     * Calcule les scores du lot et les écrit en un batch JDBC (expertises et historique)
+     * @return nombre d'expertises mises à jour
+     */
+    private int ecrireScores(List<DonneesScore> lot) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        Timestamp dateCalcul = Timestamp.valueOf(maintenant);
+
+        List<MapSqlParameterSource> lignes = new ArrayList<>(lot.size());
+        Map<Long, ResultatScore> resultatsParExpertise = new LinkedHashMap<>();
+        for (DonneesScore donnees : lot) {
+            ResultatScore resultat = calculerScore(donnees, maintenant);
+            resultatsParExpertise.put(donnees.expertiseId, resultat);
+            lignes.add(new MapSqlParameterSource()
+                    .addValue("id", donnees.expertiseId)
+                    .addValue("scoreGlobal", resultat.scoreGlobal)
+                    .addValue("scoreDetails", resultat.detailsJson)
+                    .addValue("dateCalcul", dateCalcul));
+        }
+
+        int[] resultats = jdbcTemplate.batchUpdate(SQL_MISE_A_JOUR_SCORE, lignes.toArray(new MapSqlParameterSource[0]));
+        historiqueScoreService.enregistrer(resultatsParExpertise, maintenant);
+        int misesAJour = 0;
+        for (int resultat : resultats) {
+            // Le pilote peut renvoyer SUCCESS_NO_INFO (-2) pour une ligne bien écrite
+            misesAJour += resultat != 0 ? 1 : 0;
+        }
+        return misesAJour;
+    }
+
+    /**
+     * Calcule les cinq scores, le score global pondéré et le détail JSON
+     * (calcul commun au recalcul unitaire et au recalcul par lots)
+     */
+    private ResultatScore calculerScore(DonneesScore donnees, LocalDateTime maintenant) {
+        ResultatScore resultat = new ResultatScore();
+        resultat.scoreCertification = calculerScoreCertification(donnees.pointsBadges);
+        resultat.scoreExperience = calculerScoreExperience(donnees);
+        resultat.scoreProfil = calculerScoreProfil(donnees);
+        resultat.scorePopularite = calculerScorePopularite(donnees.nombreFollowers);
+        resultat.scoreActivite = calculerScoreActivite(donnees.derniereModification, maintenant);
 
         // Calculer le score global pondéré
-        double scoreGlobal = (scoreCertification * POIDS_CERTIFICATION)
-                + (scoreExperience * POIDS_EXPERIENCE)
-                + (scoreProfil * POIDS_PROFIL)
-                + (scorePopularite * POIDS_POPULARITE)
-                + (scoreActivite * POIDS_ACTIVITE);
+        double scoreGlobal = (resultat.scoreCertification * POIDS_CERTIFICATION)
+                + (resultat.scoreExperience * POIDS_EXPERIENCE)
+                + (resultat.scoreProfil * POIDS_PROFIL)
+                + (resultat.scorePopularite * POIDS_POPULARITE)
+                + (resultat.scoreActivite * POIDS_ACTIVITE);
 
         // Arrondir à 2 décimales
-        BigDecimal scoreGlobalBD = BigDecimal.valueOf(scoreGlobal)
+        resultat.scoreGlobal = BigDecimal.valueOf(scoreGlobal)
                 .setScale(2, RoundingMode.HALF_UP);
 
         // Construire le détail des scores
         Map<String, Object> details = new HashMap<>();
         details.put("certification", Map.of(
-                "score", round(scoreCertification),
+                "score", round(resultat.scoreCertification),
                 "poids", POIDS_CERTIFICATION,
-                "contribution", round(scoreCertification * POIDS_CERTIFICATION),
-                "nombreBadges", badges.size()
+                "contribution", round(resultat.scoreCertification * POIDS_CERTIFICATION),
+                "nombreBadges", donnees.nombreBadges
         ));
         details.put("experience", Map.of(
-                "score", round(scoreExperience),
+                "score", round(resultat.scoreExperience),
                 "poids", POIDS_EXPERIENCE,
-                "contribution", round(scoreExperience * POIDS_EXPERIENCE),
-                "nombreCompetences", competences.size()
+                "contribution", round(resultat.scoreExperience * POIDS_EXPERIENCE),
+                "nombreCompetences", donnees.nombreCompetences
         ));
         details.put("profil", Map.of(
-                "score", round(scoreProfil),
+                "score", round(resultat.scoreProfil),
                 "poids", POIDS_PROFIL,
-                "contribution", round(scoreProfil * POIDS_PROFIL)
+                "contribution", round(resultat.scoreProfil * POIDS_PROFIL)
         ));
         details.put("popularite", Map.of(
-                "score", round(scorePopularite),
+                "score", round(resultat.scorePopularite),
                 "poids", POIDS_POPULARITE,
-                "contribution", round(scorePopularite * POIDS_POPULARITE),
-                "nombreFollowers", nombreFollowers
+                "contribution", round(resultat.scorePopularite * POIDS_POPULARITE),
+                "nombreFollowers", donnees.nombreFollowers
         ));
         details.put("activite", Map.of(
-                "score", round(scoreActivite),
+                "score", round(resultat.scoreActivite),
                 "poids", POIDS_ACTIVITE,
-                "contribution", round(scoreActivite * POIDS_ACTIVITE)
+                "contribution", round(resultat.scoreActivite * POIDS_ACTIVITE)
         ));
-        details.put("scoreGlobal", scoreGlobalBD.doubleValue());
-        details.put("dateCalcul", LocalDateTime.now().toString());
+        details.put("scoreGlobal", resultat.scoreGlobal.doubleValue());
+        details.put("dateCalcul", maintenant.toString());
 
         // Sérialiser les détails en JSON
-        String scoreDetailsJson;
         try {
-            scoreDetailsJson = objectMapper.writeValueAsString(details);
+            resultat.detailsJson = objectMapper.writeValueAsString(details);
         } catch (Exception e) {
             log.error("Erreur lors de la sérialisation des détails du score", e);
-            scoreDetailsJson = "{}";
+            resultat.detailsJson = "{}";
         }
-
-        // Mettre à jour l'expertise
-        expertise.setScoreGlobal(scoreGlobalBD);
-        expertise.setScoreDetails(scoreDetailsJson);
-        expertise.setDateCalculScore(LocalDateTime.now());
-
-        expertiseRepository.save(expertise);
-
-        log.info("Score calculé pour {}: {} (Cert:{}, Exp:{}, Profil:{}, Pop:{}, Act:{})",
-                utilisateurId, scoreGlobalBD,
-                round(scoreCertification), round(scoreExperience),
-                round(scoreProfil), round(scorePopularite), round(scoreActivite));
+        return resultat;
     }
 
     /**
-     * Recalcule les scores de tous les experts publiés
+     * Points des badges valides (actifs, permanents ou non expirés), pondérés par niveau
      */
-    @Transactional
-    public void recalculerTousLesScores() {
-        log.info("Début du recalcul de tous les scores...");
-
-        List<Expertise> expertises = expertiseRepository.findAll();
-        int total = expertises.size();
-        int traites = 0;
-
-        for (Expertise expertise : expertises) {
-            try {
-                calculerEtMettreAJourScore(expertise.getUtilisateurId());
-                traites++;
-            } catch (Exception e) {
-                log.error("Erreur lors du calcul du score pour {}: {}",
-                        expertise.getUtilisateurId(), e.getMessage());
+    private int calculerPointsBadges(List<BadgeCompetence> badges) {
+        int totalPoints = 0;
+        for (BadgeCompetence badge : badges) {
+            if (badge.estValide()) {
+                totalPoints += getPointsPourNiveau(badge.getNiveauCertification());
             }
         }
-
-        log.info("Recalcul terminé: {}/{} scores mis à jour", traites, total);
-    }
-
-    /**
-     * Recalcule le score de manière asynchrone (pour ne pas bloquer l'utilisateur)
-     */
-    @Async
-    public void calculerScoreAsync(String utilisateurId) {
-        calculerEtMettreAJourScore(utilisateurId);
+        return totalPoints;
     }
 
-    // ======================== MÉTHODES DE CALCUL PRIVÉES ========================
-
     /**
      * Score de certification (0-100)
      * Basé sur les badges certifiés avec pondération par niveau
      */
-    private double calculerScoreCertification(List<BadgeCompetence> badges) {
-        if (badges.isEmpty()) {
-            return 0;
-        }
-
-        int totalPoints = 0;
-        for (BadgeCompetence badge : badges) {
-            if (badge.estValide()) {
-                totalPoints += getPointsPourNiveau(badge.getNiveauCertification());
-            }
-        }
-
+    private double calculerScoreCertification(int totalPoints) {
         // Normaliser sur 100 avec un plafond
         return Math.min(100, (totalPoints * 100.0) / PLAFOND_POINTS_BADGES);
     }
@@ -227,32 +459,16 @@ public class ScoreExpertService {
      * Score d'expérience (0-100)
      * Basé sur les compétences déclarées: années, projets, niveau de maîtrise
      */
-    private double calculerScoreExperience(List<Competence> competences) {
-        if (competences.isEmpty()) {
+    private double calculerScoreExperience(DonneesScore donnees) {
+        if (donnees.nombreCompetences == 0) {
             return 0;
         }
 
-        int totalAnneesExperience = 0;
-        int totalProjets = 0;
-        double sommeNiveaux = 0;
-
-        for (Competence comp : competences) {
-            if (comp.getAnneesExperience() != null) {
-                totalAnneesExperience += comp.getAnneesExperience();
-            }
-            if (comp.getNombreProjets() != null) {
-                totalProjets += comp.getNombreProjets();
-            }
-            if (comp.getNiveauMaitrise() != null) {
-                sommeNiveaux += comp.getNiveauMaitrise();
-            }
-        }
-
-        double moyenneNiveau = sommeNiveaux / competences.size(); // 1-5
+        double moyenneNiveau = (double) donnees.sommeNiveaux / donnees.nombreCompetences; // 1-5
 
         // Calculer les sous-scores (chacun sur 100)
-        double scoreAnnees = Math.min(100, (totalAnneesExperience * 100.0) / PLAFOND_ANNEES_EXPERIENCE);
-        double scoreProjets = Math.min(100, (totalProjets * 100.0) / PLAFOND_PROJETS);
+        double scoreAnnees = Math.min(100, (donnees.totalAnneesExperience * 100.0) / PLAFOND_ANNEES_EXPERIENCE);
+        double scoreProjets = Math.min(100, (donnees.totalProjets * 100.0) / PLAFOND_PROJETS);
         double scoreNiveau = (moyenneNiveau / 5.0) * 100; // Niveau max = 5
 
         // Moyenne pondérée: niveau (40%), années (35%), projets (25%)
@@ -263,38 +479,38 @@ public class ScoreExpertService {
      * Score de profil complet (0-100)
      * Basé sur la complétude des informations du profil
      */
-    private double calculerScoreProfil(Expertise expertise, List<Competence> competences) {
+    private double calculerScoreProfil(DonneesScore donnees) {
         double score = 0;
 
         // Photo de profil: 20 points
-        if (expertise.getPhotoUrl() != null && !expertise.getPhotoUrl().isEmpty()) {
+        if (donnees.aPhoto) {
             score += 20;
         }
 
         // Description complète (> 100 caractères): 25 points
-        if (expertise.getDescription() != null && expertise.getDescription().length() > 100) {
+        if (donnees.longueurDescription > 100) {
             score += 25;
-        } else if (expertise.getDescription() != null && !expertise.getDescription().isEmpty()) {
+        } else if (donnees.longueurDescription > 0) {
             score += 10; // Description courte
         }
 
         // Titre professionnel: 15 points
-        if (expertise.getTitre() != null && !expertise.getTitre().isEmpty()) {
+        if (donnees.aTitre) {
             score += 15;
         }
 
         // Localisation renseignée: 15 points
-        if (expertise.getVille() != null) {
+        if (donnees.aVille) {
             score += 15;
         }
 
         // Disponibilité active: 5 points
-        if (Boolean.TRUE.equals(expertise.getDisponible())) {
+        if (donnees.disponible) {
             score += 5;
         }
 
         // Nombre de compétences (max 6): jusqu'à 20 points
-        int nbCompetences = Math.min(competences.size(), 6);
+        int nbCompetences = Math.min(donnees.nombreCompetences, 6);
         score += (nbCompetences / 6.0) * 20;
 
         return Math.min(100, score);
@@ -313,27 +529,22 @@ public class ScoreExpertService {
 
     /**
      * Score d'activité (0-100)
-     * Basé sur la fraîcheur du profil (dernière modification)
+     * Basé sur la fraîcheur du profil (dernière modification, à défaut date de création)
      */
-    private double calculerScoreActivite(Expertise expertise) {
-        LocalDateTime derniereModification = expertise.getDateModification();
-        if (derniereModification == null) {
-            derniereModification = expertise.getDateCreation();
-        }
-
+    private double calculerScoreActivite(LocalDateTime derniereModification, LocalDateTime maintenant) {
         if (derniereModification == null) {
             return 0;
         }
 
-        long joursDepuisModification = ChronoUnit.DAYS.between(derniereModification, LocalDateTime.now());
+        long joursDepuisModification = ChronoUnit.DAYS.between(derniereModification, maintenant);
 
-        if (joursDepuisModification < 30) {
+        if (joursDepuisModification < PALIERS_ACTIVITE_JOURS[0]) {
             return 100; // Très actif
-        } else if (joursDepuisModification < 90) {
+        } else if (joursDepuisModification < PALIERS_ACTIVITE_JOURS[1]) {
             return 70; // Actif
-        } else if (joursDepuisModification < 180) {
+        } else if (joursDepuisModification < PALIERS_ACTIVITE_JOURS[2]) {
             return 40; // Moyennement actif
-        } else if (joursDepuisModification < 365) {
+        } else if (joursDepuisModification < PALIERS_ACTIVITE_JOURS[3]) {
             return 20; // Peu actif
         } else {
             return 5; // Inactif mais existe
@@ -354,4 +565,38 @@ public class ScoreExpertService {
     private double round(double value) {
         return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
     }
+
+    /**
+     * Données d'entrée du calcul de score d'un expert
+     */
+    static class DonneesScore {
+        long expertiseId;
+        String utilisateurId;
+        boolean aPhoto;
+        int longueurDescription;
+        boolean aTitre;
+        boolean aVille;
+        boolean disponible;
+        LocalDateTime derniereModification;
+        int nombreCompetences;
+        int totalAnneesExperience;
+        int totalProjets;
+        int sommeNiveaux;
+        int nombreBadges;
+        int pointsBadges;
+        long nombreFollowers;
+    }
+
+    /**
+     * Scores calculés d'un expert
+     */
+    static class ResultatScore {
+        double scoreCertification;
+        double scoreExperience;
+        double scoreProfil;
+        double scorePopularite;
+        double scoreActivite;
+        BigDecimal scoreGlobal;
+        String detailsJson;
+    }
 }
@@ -0,0 +1,199 @@
+package com.intermediation.expertise.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.intermediation.expertise.model.DemandeReconnaissanceCompetence.StatutDemande;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compteurs des demandes de reconnaissance, globaux et par traitant.
+ *
+ * Une requête groupée par traitant (un COUNT(*) FILTER par statut) et une requête des notes
+ * moyennes des évaluations par traitant alimentent à la fois le tableau de bord des traitants
+ * et la liste des RH. La note moyenne est calculée indépendamment des demandes : un traitant
+ * évalué qui n'a plus de demande garde sa note. Le résultat est gardé quelques secondes et
+ * invalidé après le commit de toute transition de statut ou écriture d'évaluation
+ * (voir {@link #invalider()}).
+ */
+@Service
+public class StatistiquesDemandesService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatistiquesDemandesService.class);
+
+    private static final String CLE = "demandes";
+
+    private static final String SQL_COMPTEURS = construireRequete();
+
+    private static final String SQL_NOTES_MOYENNES = """
+            SELECT traitant_id, AVG(note_globale) AS note_moyenne
+            FROM evaluations_competence
+            WHERE traitant_id IS NOT NULL AND note_globale IS NOT NULL
+            GROUP BY traitant_id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Cache<String, StatistiquesDemandes> cache;
+
+    public StatistiquesDemandesService(NamedParameterJdbcTemplate jdbcTemplate,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${demandes.statistiques.ttl:30s}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "statistiques-demandes");
+    }
+
+    /**
+     * Compteurs courants (au plus vieux de la durée du cache, sauf transition de statut entre-temps)
+     */
+    public StatistiquesDemandes getStatistiques() {
+        return cache.get(CLE, cle -> charger());
+    }
+
+    /**
+     * Invalide les compteurs et notes après le commit de la transaction en cours (ou immédiatement hors transaction)
+     */
+    public void invalider() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidateAll();
+                }
+            });
+        } else {
+            cache.invalidateAll();
+        }
+    }
+
+    private StatistiquesDemandes charger() {
+        Compteurs global = new Compteurs();
+        Map<String, Compteurs> parTraitant = new HashMap<>();
+
+        jdbcTemplate.query(SQL_COMPTEURS, rs -> {
+            Compteurs compteurs = lire(rs);
+            global.ajouter(compteurs);
+            String traitantId = rs.getString("traitant_id");
+            if (traitantId != null) {
+                parTraitant.put(traitantId, compteurs);
+            }
+        });
+        // Notes moyennes fusionnées ensuite, y compris pour les traitants sans demande
+        jdbcTemplate.query(SQL_NOTES_MOYENNES, rs -> {
+            parTraitant.computeIfAbsent(rs.getString("traitant_id"), id -> new Compteurs())
+                    .noteMoyenne = rs.getDouble("note_moyenne");
+        });
+
+        log.debug("Statistiques des demandes rechargées: {} demande(s), {} traitant(s)",
+                global.getTotal(), parTraitant.size());
+        return new StatistiquesDemandes(global, parTraitant);
+    }
+
+    private Compteurs lire(ResultSet rs) throws SQLException {
+        Compteurs compteurs = new Compteurs();
+        compteurs.total = rs.getLong("total");
+        for (StatutDemande statut : StatutDemande.values()) {
+            long nombre = rs.getLong(statut.name().toLowerCase());
+            if (nombre > 0) {
+                compteurs.parStatut.put(statut, nombre);
+            }
+        }
+        return compteurs;
+    }
+
+    /**
+     * Une ligne par traitant (NULL pour les demandes non assignées), une colonne par statut
+     */
+    private static String construireRequete() {
+        StringBuilder colonnes = new StringBuilder();
+        for (StatutDemande statut : StatutDemande.values()) {
+            colonnes.append(",\n       COUNT(*) FILTER (WHERE statut = '").append(statut.name())
+                    .append("') AS ").append(statut.name().toLowerCase());
+        }
+        return "SELECT traitant_id, COUNT(*) AS total" + colonnes + "\n"
+                + "FROM demandes_reconnaissance_competence\n"
+                + "GROUP BY traitant_id";
+    }
+
+    /**
+     * Compteurs de demandes par statut (statuts sans demande absents)
+     */
+    public static class Compteurs {
+        private long total;
+        private final Map<StatutDemande, Long> parStatut = new EnumMap<>(StatutDemande.class);
+        private Double noteMoyenne;
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long get(StatutDemande statut) {
+            return parStatut.getOrDefault(statut, 0L);
+        }
+
+        public Map<StatutDemande, Long> getParStatut() {
+            return Collections.unmodifiableMap(parStatut);
+        }
+
+        /**
+         * Note moyenne des évaluations du traitant (null sans évaluation, et pour les compteurs globaux)
+         */
+        public Double getNoteMoyenne() {
+            return noteMoyenne;
+        }
+
+        private void ajouter(Compteurs autres) {
+            total += autres.total;
+            autres.parStatut.forEach((statut, nombre) -> parStatut.merge(statut, nombre, Long::sum));
+        }
+    }
+
+    /**
+     * Instantané des compteurs : toutes les demandes, et par traitant assigné
+     */
+    public static class StatistiquesDemandes {
+        private static final Compteurs AUCUNE = new Compteurs();
+
+        private final Compteurs global;
+        private final Map<String, Compteurs> parTraitant;
+
+        StatistiquesDemandes(Compteurs global, Map<String, Compteurs> parTraitant) {
+            this.global = global;
+            this.parTraitant = Collections.unmodifiableMap(parTraitant);
+        }
+
+        public Compteurs getGlobal() {
+            return global;
+        }
+
+        public Map<String, Compteurs> getParTraitant() {
+            return parTraitant;
+        }
+
+        /**
+         * Compteurs d'un traitant (vides s'il n'a aucune demande)
+         */
+        public Compteurs getTraitant(String traitantId) {
+            return traitantId != null ? parTraitant.getOrDefault(traitantId, AUCUNE) : AUCUNE;
+        }
+    }
+}
@@ -5,10 +5,16 @@ import com.intermediation.expertise.model.*;
 import com.intermediation.expertise.model.DemandeReconnaissanceCompetence.StatutDemande;
 import com.intermediation.expertise.model.EvaluationCompetence.Recommandation;
 import com.intermediation.expertise.repository.*;
+import com.intermediation.expertise.service.StatistiquesDemandesService.Compteurs;
+import com.intermediation.expertise.service.StatistiquesDemandesService.StatistiquesDemandes;
 import io.camunda.zeebe.client.ZeebeClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +30,17 @@ public class TraitementDemandeService {
 
     private static final Logger logger = LoggerFactory.getLogger(TraitementDemandeService.class);
 
+    // Files du manager : statuts et tri par défaut (servis par les index de V37)
+    private static final List<StatutDemande> STATUTS_A_VALIDER = List.of(StatutDemande.EN_ATTENTE_VALIDATION);
+    private static final List<StatutDemande> STATUTS_ASSIGNES = List.of(
+            StatutDemande.ASSIGNEE_RH, StatutDemande.EN_COURS_EVALUATION);
+    private static final Sort TRI_A_VALIDER = Sort.by(Sort.Direction.DESC, "dateEvaluation");
+    private static final Sort TRI_ASSIGNEES = Sort.by(Sort.Direction.DESC, "dateAssignation");
+    // Propriétés acceptées dans le paramètre sort des pages (toute autre propriété est refusée)
+    private static final Set<String> TRIS_AUTORISES = Set.of(
+            "id", "dateCreation", "dateDerniereModification", "dateTraitement", "dateAssignation",
+            "dateEvaluation", "statut", "priorite");
+
     @Autowired
     private DemandeReconnaissanceRepository demandeRepository;
 
@@ -34,13 +51,13 @@ public class TraitementDemandeService {
     private EvaluationCompetenceRepository evaluationRepository;
 
     @Autowired
-    private CompetenceRepository competenceRepository;
+    private BadgeService badgeService;
 
     @Autowired
-    private BadgeService badgeService;
+    private DemandeReconnaissanceAssembleur assembleur;
 
     @Autowired
-    private UtilisateurRhService utilisateurRhService;
+    private StatistiquesDemandesService statistiquesDemandesService;
 
     @Autowired(required = false)
     private ZeebeClient zeebeClient;
@@ -107,9 +124,7 @@ public class TraitementDemandeService {
             demandes = demandeRepository.findDemandesDisponiblesPourTraitant(statuts, traitantId);
         }
 
-        return demandes.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return assembleur.versDTO(demandes);
     }
 
     /**
@@ -136,6 +151,7 @@ public class TraitementDemandeService {
 
         demande.assigner(traitantId);
         demande = demandeRepository.save(demande);
+        statistiquesDemandesService.invalider();
 
         logger.info("Demande {} assignée au traitant {}", demandeId, traitantId);
 
@@ -179,6 +195,8 @@ public class TraitementDemandeService {
         evaluation.setNoteGlobale(request.getNoteGlobale());
 
         evaluation = evaluationRepository.save(evaluation);
+        // Transition de statut éventuelle et note moyenne du traitant
+        statistiquesDemandesService.invalider();
 
         logger.info("Évaluation créée pour la demande {} par le traitant {}", demandeId, traitantId);
 
@@ -228,6 +246,7 @@ public class TraitementDemandeService {
         // Approuver la demande
         demande.approuver(commentaire);
         demande = demandeRepository.save(demande);
+        statistiquesDemandesService.invalider();
 
         // Créer le badge avec les paramètres de validité
         badgeService.attribuerBadge(demande, validitePermanente, dateExpiration);
@@ -260,6 +279,7 @@ public class TraitementDemandeService {
         // Rejeter la demande
         demande.rejeter(motif);
         demande = demandeRepository.save(demande);
+        statistiquesDemandesService.invalider();
 
         logger.info("Demande {} rejetée par le traitant {}", demandeId, traitantId);
 
@@ -286,6 +306,7 @@ public class TraitementDemandeService {
         // Demander complément
         demande.demanderComplement(commentaire);
         demande = demandeRepository.save(demande);
+        statistiquesDemandesService.invalider();
 
         logger.info("Complément demandé pour la demande {} par le traitant {}", demandeId, traitantId);
 
@@ -313,33 +334,33 @@ public class TraitementDemandeService {
      */
     public StatistiquesTraitementDTO getStatistiques(String traitantId) {
         StatistiquesTraitementDTO stats = new StatistiquesTraitementDTO();
+        StatistiquesDemandes statistiques = statistiquesDemandesService.getStatistiques();
 
         // Compteurs globaux
-        stats.setTotalDemandes(demandeRepository.count());
-        stats.setDemandesEnAttente(demandeRepository.countByStatut(StatutDemande.EN_ATTENTE));
-        stats.setDemandesEnCours(demandeRepository.countByStatut(StatutDemande.EN_COURS_TRAITEMENT));
-        stats.setDemandesApprouvees(demandeRepository.countByStatut(StatutDemande.APPROUVEE));
-        stats.setDemandesRejetees(demandeRepository.countByStatut(StatutDemande.REJETEE));
-        stats.setDemandesComplementRequis(demandeRepository.countByStatut(StatutDemande.COMPLEMENT_REQUIS));
-
-        // Statistiques par statut
+        Compteurs global = statistiques.getGlobal();
+        stats.setTotalDemandes(global.getTotal());
+        stats.setDemandesEnAttente(global.get(StatutDemande.EN_ATTENTE));
+        stats.setDemandesEnCours(global.get(StatutDemande.EN_COURS_TRAITEMENT));
+        stats.setDemandesApprouvees(global.get(StatutDemande.APPROUVEE));
+        stats.setDemandesRejetees(global.get(StatutDemande.REJETEE));
+        stats.setDemandesComplementRequis(global.get(StatutDemande.COMPLEMENT_REQUIS));
+
+        // Statistiques par statut et par traitant
         Map<String, Long> parStatut = new HashMap<>();
-        demandeRepository.countByStatutGrouped().forEach(row -> {
-            StatutDemande statut = (StatutDemande) row[0];
-            Long count = (Long) row[1];
-            parStatut.put(statut.name(), count);
-        });
+        global.getParStatut().forEach((statut, nombre) -> parStatut.put(statut.name(), nombre));
         stats.setDemandesParStatut(parStatut);
 
+        Map<String, Long> parTraitant = new HashMap<>();
+        statistiques.getParTraitant().forEach((id, compteurs) -> parTraitant.put(id, compteurs.getTotal()));
+        stats.setDemandesParTraitant(parTraitant);
+
         // Statistiques pour le traitant
         if (traitantId != null) {
-            stats.setMesDemandesEnCours(demandeRepository.countByTraitantIdAndStatut(
-                traitantId, StatutDemande.EN_COURS_TRAITEMENT));
-            
-            long approuvees = demandeRepository.countByTraitantIdAndStatut(
-                traitantId, StatutDemande.APPROUVEE);
-            long rejetees = demandeRepository.countByTraitantIdAndStatut(
-                traitantId, StatutDemande.REJETEE);
+            Compteurs traitant = statistiques.getTraitant(traitantId);
+            stats.setMesDemandesEnCours(traitant.get(StatutDemande.EN_COURS_TRAITEMENT));
+
+            long approuvees = traitant.get(StatutDemande.APPROUVEE);
+            long rejetees = traitant.get(StatutDemande.REJETEE);
             stats.setMesDemandesTraitees(approuvees + rejetees);
 
             // Taux d'approbation
@@ -348,7 +369,7 @@ public class TraitementDemandeService {
             }
 
             // Note moyenne
-            stats.setNoteMoyenne(evaluationRepository.getMoyenneNotesByTraitant(traitantId));
+            stats.setNoteMoyenne(traitant.getNoteMoyenne());
         }
 
         return stats;
@@ -381,52 +402,16 @@ public class TraitementDemandeService {
         demandes.forEach(d -> logger.info("  - Demande ID={}, traitantId={}, statut={}, competenceId={}",
             d.getId(), d.getTraitantId(), d.getStatut(), d.getCompetenceId()));
 
-        return demandes.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return assembleur.versDTO(demandes);
     }
 
-    // Méthodes de conversion
+    // Méthodes de conversion (voir DemandeReconnaissanceAssembleur pour les listes)
     private DemandeReconnaissanceDTO convertToDTO(DemandeReconnaissanceCompetence demande) {
-        DemandeReconnaissanceDTO dto = new DemandeReconnaissanceDTO(demande);
-
-        // Enrichir avec le nom de la compétence et le competenceReferenceId
-        competenceRepository.findById(demande.getCompetenceId())
-                .ifPresent(c -> {
-                    dto.setCompetenceNom(c.getNom());
-                    dto.setCompetenceReferenceId(c.getCompetenceReferenceId());
-                });
-
-        // Compter les pièces
-        dto.setNombrePieces((int) pieceRepository.countByDemandeId(demande.getId()));
-
-        // Récupérer le nom complet du RH assigné si disponible
-        if (demande.getTraitantId() != null) {
-            try {
-                UtilisateurRhDTO rh = utilisateurRhService.getUtilisateurRhParId(demande.getTraitantId());
-                if (rh != null && rh.getNom() != null) {
-                    dto.setTraitantNom(rh.getNom());
-                }
-            } catch (Exception e) {
-                logger.warn("Impossible de récupérer le nom du RH {}: {}", demande.getTraitantId(), e.getMessage());
-            }
-        }
-
-        return dto;
+        return assembleur.versDTO(demande);
     }
 
     private DemandeReconnaissanceDTO convertToDTOWithDetails(DemandeReconnaissanceCompetence demande) {
-        DemandeReconnaissanceDTO dto = convertToDTO(demande);
-
-        // Ajouter les pièces justificatives
-        List<PieceJustificative> pieces = pieceRepository.findByDemandeIdOrderByDateAjoutAsc(demande.getId());
-        dto.setPieces(pieces.stream().map(PieceJustificativeDTO::new).collect(Collectors.toList()));
-
-        // Ajouter l'évaluation si elle existe
-        evaluationRepository.findByDemandeId(demande.getId())
-                .ifPresent(eval -> dto.setEvaluation(new EvaluationCompetenceDTO(eval)));
-
-        return dto;
+        return assembleur.versDTOAvecDetails(demande);
     }
 
     // ========== NOUVELLES MÉTHODES POUR LE WORKFLOW MANAGER/RH ==========
@@ -467,6 +452,7 @@ public class TraitementDemandeService {
             commentaire != null ? "présent" : "absent");
 
         demande = demandeRepository.save(demande);
+        statistiquesDemandesService.invalider();
         logger.info("💾 Après save: demandeId={}, traitantId={}, managerId={}, statut={}",
             demande.getId(), demande.getTraitantId(), demande.getManagerId(), demande.getStatut());
 
@@ -528,6 +514,7 @@ public class TraitementDemandeService {
         // Soumettre au Manager
         demande.soumettreAuManager();
         demande = demandeRepository.save(demande);
+        statistiquesDemandesService.invalider();
 
         logger.info("✅ Évaluation de la demande {} soumise au Manager par le RH {}", demandeId, rhId);
 
@@ -576,52 +563,59 @@ public class TraitementDemandeService {
 
     /**
      * Récupérer les demandes en attente de validation par le Manager
+     * (les plus récemment évaluées d'abord)
      */
     public List<DemandeReconnaissanceDTO> getDemandesEnAttenteValidation(String managerId) {
-        logger.info("🔍 [getDemandesEnAttenteValidation] Manager ID reçu: {}", managerId);
+        List<DemandeReconnaissanceCompetence> demandes = demandeRepository.findByManagerIdAndStatutIn(
+                managerId, STATUTS_A_VALIDER, TRI_A_VALIDER);
 
-        // Récupérer toutes les demandes EN_ATTENTE_VALIDATION pour debug
-        List<DemandeReconnaissanceCompetence> toutesDemandesEnAttente = demandeRepository.findAll().stream()
-                .filter(d -> d.getStatut() == StatutDemande.EN_ATTENTE_VALIDATION)
-                .collect(Collectors.toList());
-
-        logger.info("🔍 Nombre total de demandes EN_ATTENTE_VALIDATION: {}", toutesDemandesEnAttente.size());
-        toutesDemandesEnAttente.forEach(d ->
-            logger.info("  - Demande ID={}, managerId={}, equals={}",
-                d.getId(), d.getManagerId(), managerId.equals(d.getManagerId()))
-        );
-
-        // Récupérer les demandes en attente de validation assignées par ce manager
-        List<DemandeReconnaissanceCompetence> demandes = toutesDemandesEnAttente.stream()
-                .filter(d -> managerId.equals(d.getManagerId()))
-                .sorted((d1, d2) -> d2.getDateEvaluation().compareTo(d1.getDateEvaluation()))
-                .collect(Collectors.toList());
+        logger.info("✅ Nombre de demandes à valider pour le manager {}: {}", managerId, demandes.size());
 
-        logger.info("✅ Nombre de demandes pour le manager {}: {}", managerId, demandes.size());
+        return assembleur.versDTOAvecDetails(demandes);
+    }
 
-        return demandes.stream()
-                .map(this::convertToDTOWithDetails)
-                .collect(Collectors.toList());
+    /**
+     * Page des demandes en attente de validation par le Manager
+     * (tri par défaut : date d'évaluation décroissante)
+     */
+    public Page<DemandeReconnaissanceDTO> getDemandesEnAttenteValidation(String managerId, Pageable pageable) {
+        return assembleur.versDTOAvecDetails(demandeRepository.findByManagerIdAndStatutIn(
+                managerId, STATUTS_A_VALIDER, avecTriParDefaut(pageable, TRI_A_VALIDER)));
     }
 
     /**
      * Récupérer les demandes assignées aux RH (pour le Manager)
+     * (les plus récemment assignées d'abord)
      */
     public List<DemandeReconnaissanceDTO> getDemandesAssignees(String managerId) {
-        List<StatutDemande> statutsAssignes = Arrays.asList(
-            StatutDemande.ASSIGNEE_RH,
-            StatutDemande.EN_COURS_EVALUATION
-        );
+        return assembleur.versDTO(
+                demandeRepository.findByManagerIdAndStatutIn(managerId, STATUTS_ASSIGNES, TRI_ASSIGNEES));
+    }
 
-        List<DemandeReconnaissanceCompetence> demandes = demandeRepository.findAll().stream()
-                .filter(d -> statutsAssignes.contains(d.getStatut()))
-                .filter(d -> managerId.equals(d.getManagerId()))
-                .sorted((d1, d2) -> d2.getDateAssignation().compareTo(d1.getDateAssignation()))
-                .collect(Collectors.toList());
+    /**
+     * Page des demandes assignées aux RH (pour le Manager)
+     * (tri par défaut : date d'assignation décroissante)
+     */
+    public Page<DemandeReconnaissanceDTO> getDemandesAssignees(String managerId, Pageable pageable) {
+        return assembleur.versDTO(demandeRepository.findByManagerIdAndStatutIn(
+                managerId, STATUTS_ASSIGNES, avecTriParDefaut(pageable, TRI_ASSIGNEES)));
+    }
 
-        return demandes.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    /**
+     * Applique le tri par défaut si le client n'en demande pas, et refuse les propriétés
+     * de tri hors de TRIS_AUTORISES
+     * @throws IllegalArgumentException si une propriété de tri n'est pas autorisée
+     */
+    private Pageable avecTriParDefaut(Pageable pageable, Sort triParDefaut) {
+        if (pageable.getSort().isSorted()) {
+            for (Sort.Order ordre : pageable.getSort()) {
+                if (!TRIS_AUTORISES.contains(ordre.getProperty())) {
+                    throw new IllegalArgumentException("Tri non autorisé: " + ordre.getProperty());
+                }
+            }
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), triParDefaut);
     }
 
     /**
@@ -649,6 +643,7 @@ public class TraitementDemandeService {
         // Approuver la demande
         demande.approuver(commentaire);
         demande = demandeRepository.save(demande);
+        statistiquesDemandesService.invalider();
 
         // Compléter la tâche Zeebe pour faire avancer le processus BPMN
         completerTacheValidationManager(demande, "APPROUVER", commentaire, validitePermanente, dateExpiration);
@@ -681,6 +676,7 @@ public class TraitementDemandeService {
         // Rejeter la demande
         demande.rejeter(motif);
         demande = demandeRepository.save(demande);
+        statistiquesDemandesService.invalider();
 
         // Compléter la tâche Zeebe pour faire avancer le processus BPMN
         completerTacheValidationManager(demande, "REJETER", motif, null, null);
@@ -710,6 +706,7 @@ public class TraitementDemandeService {
         // Demander complément
         demande.demanderComplement(commentaire);
         demande = demandeRepository.save(demande);
+        statistiquesDemandesService.invalider();
 
         // Compléter la tâche Zeebe pour faire avancer le processus BPMN
         completerTacheValidationManager(demande, "COMPLEMENT_REQUIS", commentaire, null, null);
@@ -2,8 +2,8 @@ package com.intermediation.expertise.service;
 
 import com.intermediation.expertise.dto.UtilisateurRhDTO;
 import com.intermediation.expertise.model.DemandeReconnaissanceCompetence.StatutDemande;
-import com.intermediation.expertise.repository.DemandeReconnaissanceRepository;
-import com.intermediation.expertise.repository.EvaluationCompetenceRepository;
+import com.intermediation.expertise.service.StatistiquesDemandesService.Compteurs;
+import com.intermediation.expertise.service.StatistiquesDemandesService.StatistiquesDemandes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,10 +27,7 @@ public class UtilisateurRhService {
     private static final Logger logger = LoggerFactory.getLogger(UtilisateurRhService.class);
 
     @Autowired
-    private DemandeReconnaissanceRepository demandeRepository;
-
-    @Autowired
-    private EvaluationCompetenceRepository evaluationRepository;
+    private StatistiquesDemandesService statistiquesDemandesService;
 
     @Autowired(required = false)
     private RestTemplate restTemplate;
@@ -45,9 +42,10 @@ public class UtilisateurRhService {
             // Récupérer les utilisateurs RH depuis le service Auth
             utilisateursRh = getUtilisateursRhFromAuthService();
 
-            // Enrichir avec les statistiques
+            // Enrichir avec les statistiques (une seule requête pour tous les RH)
+            StatistiquesDemandes statistiques = statistiquesDemandesService.getStatistiques();
             for (UtilisateurRhDTO rh : utilisateursRh) {
-                enrichirAvecStatistiques(rh);
+                enrichirAvecStatistiques(rh, statistiques.getTraitant(rh.getUserId()));
             }
 
             logger.info("Récupération de {} utilisateurs RH depuis le service Auth", utilisateursRh.size());
@@ -107,20 +105,15 @@ public class UtilisateurRhService {
     /**
      * Enrichir un utilisateur RH avec ses statistiques de traitement
      */
-    private void enrichirAvecStatistiques(UtilisateurRhDTO rh) {
-        String rhId = rh.getUserId();
-
+    private void enrichirAvecStatistiques(UtilisateurRhDTO rh, Compteurs compteurs) {
         // Nombre de demandes en cours (assignées à ce RH)
-        List<StatutDemande> statutsEnCours = List.of(
-            StatutDemande.ASSIGNEE_RH,
-            StatutDemande.EN_COURS_EVALUATION
-        );
-        long nombreEnCours = demandeRepository.countByTraitantIdAndStatutIn(rhId, statutsEnCours);
+        long nombreEnCours = compteurs.get(StatutDemande.ASSIGNEE_RH)
+                + compteurs.get(StatutDemande.EN_COURS_EVALUATION);
         rh.setNombreDemandesEnCours(nombreEnCours);
 
         // Nombre de demandes traitées (approuvées + rejetées)
-        long approuvees = demandeRepository.countByTraitantIdAndStatut(rhId, StatutDemande.APPROUVEE);
-        long rejetees = demandeRepository.countByTraitantIdAndStatut(rhId, StatutDemande.REJETEE);
+        long approuvees = compteurs.get(StatutDemande.APPROUVEE);
+        long rejetees = compteurs.get(StatutDemande.REJETEE);
         long totalTraitees = approuvees + rejetees;
         rh.setNombreDemandesTraitees(totalTraitees);
 
@@ -133,7 +126,7 @@ public class UtilisateurRhService {
         }
 
         // Note moyenne des évaluations
-        Double noteMoyenne = evaluationRepository.getMoyenneNotesByTraitant(rhId);
+        Double noteMoyenne = compteurs.getNoteMoyenne();
         rh.setNoteMoyenne(noteMoyenne != null ? Math.round(noteMoyenne * 10.0) / 10.0 : 0.0);
     }
 
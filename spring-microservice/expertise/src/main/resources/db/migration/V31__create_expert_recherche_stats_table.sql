@@ -0,0 +1,74 @@
+-- Migration V31: Table d'agrégats dénormalisés pour la recherche avancée d'experts
+-- Remplace les sous-requêtes GROUP BY (compétences, badges, réseau) recalculées
+-- à chaque recherche par une ligne par expert, maintenue à chaque écriture.
+
+CREATE TABLE IF NOT EXISTS expert_recherche_stats (
+    utilisateur_id VARCHAR(255) PRIMARY KEY,
+    nombre_competences INTEGER NOT NULL DEFAULT 0,
+    niveau_maitrise_max INTEGER NOT NULL DEFAULT 0,
+    annees_experience_max INTEGER NOT NULL DEFAULT 0,
+    thm_min INTEGER,
+    thm_max INTEGER NOT NULL DEFAULT 0,
+    projets_total INTEGER NOT NULL DEFAULT 0,
+    nombre_badges INTEGER NOT NULL DEFAULT 0,
+    niveau_badge_max VARCHAR(20),
+    nombre_followers INTEGER NOT NULL DEFAULT 0,
+    date_mise_a_jour TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Index pour les filtres et tris de la recherche avancée
+CREATE INDEX IF NOT EXISTS idx_expert_stats_experience ON expert_recherche_stats(annees_experience_max DESC);
+CREATE INDEX IF NOT EXISTS idx_expert_stats_thm_min ON expert_recherche_stats(thm_min);
+CREATE INDEX IF NOT EXISTS idx_expert_stats_thm_max ON expert_recherche_stats(thm_max DESC);
+CREATE INDEX IF NOT EXISTS idx_expert_stats_followers ON expert_recherche_stats(nombre_followers DESC);
+CREATE INDEX IF NOT EXISTS idx_expert_stats_badges ON expert_recherche_stats(nombre_badges) WHERE nombre_badges > 0;
+
+-- Alimentation initiale à partir des données existantes
+INSERT INTO expert_recherche_stats (
+    utilisateur_id, nombre_competences, niveau_maitrise_max, annees_experience_max,
+    thm_min, thm_max, projets_total, nombre_badges, niveau_badge_max, nombre_followers
+)
+SELECT
+    e.utilisateur_id,
+    COALESCE(comp_stats.nombre_competences, 0),
+    COALESCE(comp_stats.niveau_max, 0),
+    COALESCE(comp_stats.experience_max, 0),
+    comp_stats.thm_min,
+    COALESCE(comp_stats.thm_max, 0),
+    COALESCE(comp_stats.projets_total, 0),
+    COALESCE(badge_stats.nombre_badges, 0),
+    badge_stats.niveau_badge_max,
+    COALESCE(reseau_stats.nombre_followers, 0)
+FROM expertises e
+LEFT JOIN (
+    SELECT
+        utilisateur_id,
+        COUNT(*) as nombre_competences,
+        MAX(niveau_maitrise) as niveau_max,
+        MAX(annees_experience) as experience_max,
+        MIN(thm) FILTER (WHERE thm > 0) as thm_min,
+        MAX(thm) as thm_max,
+        SUM(COALESCE(nombre_projets, 0)) as projets_total
+    FROM competences
+    GROUP BY utilisateur_id
+) comp_stats ON e.utilisateur_id = comp_stats.utilisateur_id
+LEFT JOIN (
+    SELECT
+        utilisateur_id,
+        COUNT(*) as nombre_badges,
+        MAX(niveau_certification) as niveau_badge_max
+    FROM badges_competence
+    WHERE est_actif = true
+    GROUP BY utilisateur_id
+) badge_stats ON e.utilisateur_id = badge_stats.utilisateur_id
+LEFT JOIN (
+    SELECT expert_id, COUNT(*) as nombre_followers
+    FROM reseau_expertises
+    GROUP BY expert_id
+) reseau_stats ON e.utilisateur_id = reseau_stats.expert_id
+ON CONFLICT (utilisateur_id) DO NOTHING;
+
+-- Commentaires
+COMMENT ON TABLE expert_recherche_stats IS 'Agrégats par expert pour la recherche avancée (maintenus par le service expertise)';
+COMMENT ON COLUMN expert_recherche_stats.thm_min IS 'Plus petit THM strictement positif (NULL si aucun)';
+COMMENT ON COLUMN expert_recherche_stats.niveau_badge_max IS 'Niveau de badge actif maximal (NULL si aucun badge actif)';
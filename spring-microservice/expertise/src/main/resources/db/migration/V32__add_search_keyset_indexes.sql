@@ -0,0 +1,11 @@
+-- Migration V32: Index pour la pagination par curseur de la recherche avancée
+-- Les clés de tri utilisent COALESCE(score_global, 0) et utilisateur_id comme départage :
+-- ces index permettent de reprendre directement après la dernière ligne vue.
+
+CREATE INDEX IF NOT EXISTS idx_expertises_publiee_score_cle
+    ON expertises ((COALESCE(score_global, 0)) DESC, utilisateur_id)
+    WHERE publiee = true;
+
+CREATE INDEX IF NOT EXISTS idx_expertises_publiee_recent_cle
+    ON expertises (date_creation DESC, (COALESCE(score_global, 0)) DESC, utilisateur_id)
+    WHERE publiee = true;
@@ -0,0 +1,10 @@
+-- Migration V33: Date de (dernière) publication des expertises
+-- Permet au feed d'accueil de figer le catalogue sur une version (instant) :
+-- les experts publiés après le début d'une session de défilement n'y apparaissent pas.
+
+ALTER TABLE expertises ADD COLUMN IF NOT EXISTS date_publication TIMESTAMP;
+
+-- Expertises déjà publiées : meilleure approximation disponible
+UPDATE expertises
+SET date_publication = COALESCE(date_modification, date_creation)
+WHERE publiee = true AND date_publication IS NULL;
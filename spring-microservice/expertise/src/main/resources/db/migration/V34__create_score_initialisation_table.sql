@@ -0,0 +1,23 @@
+-- Migration V34: Point de reprise de l'initialisation des scores
+-- L'initialisation recalcule, par lots ordonnés sur expertises.id, les scores absents ou périmés.
+-- Une seule ligne : l'instance qui détient le bail avance le point de reprise à chaque lot,
+-- ce qui permet de reprendre après un redémarrage et évite que chaque réplique refasse le travail.
+
+CREATE TABLE IF NOT EXISTS score_initialisation (
+    id VARCHAR(50) PRIMARY KEY,
+    statut VARCHAR(20) NOT NULL,
+    dernier_id BIGINT NOT NULL DEFAULT 0,
+    limite_peremption TIMESTAMP,
+    experts_traites INTEGER NOT NULL DEFAULT 0,
+    date_debut TIMESTAMP,
+    date_mise_a_jour TIMESTAMP,
+    date_fin TIMESTAMP,
+    proprietaire VARCHAR(255),
+    bail_jusqu_a TIMESTAMP
+);
+
+INSERT INTO score_initialisation (id, statut) VALUES ('scores', 'EN_ATTENTE')
+ON CONFLICT (id) DO NOTHING;
+
+COMMENT ON COLUMN score_initialisation.limite_peremption IS 'Scores calculés avant cette date considérés comme périmés (fixée au lancement, conservée à la reprise)';
+COMMENT ON COLUMN score_initialisation.bail_jusqu_a IS 'Fin du bail de l''instance propriétaire ; renouvelé à chaque lot';
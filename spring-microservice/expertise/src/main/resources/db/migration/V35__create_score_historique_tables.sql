@@ -0,0 +1,44 @@
+-- Migration V35: Historique des scores des experts
+-- score_historique : une ligne par expert et par recalcul (ajout seul), conservée quelques semaines
+-- score_historique_jour : consolidation journalière, conservée sur une longue période
+-- Les scores sont stockés en centièmes (SMALLINT, 0 à 10000) pour des lignes compactes.
+
+CREATE TABLE IF NOT EXISTS score_historique (
+    expertise_id BIGINT NOT NULL,
+    date_calcul TIMESTAMP NOT NULL,
+    score_global SMALLINT NOT NULL,
+    certification SMALLINT NOT NULL,
+    experience SMALLINT NOT NULL,
+    profil SMALLINT NOT NULL,
+    popularite SMALLINT NOT NULL,
+    activite SMALLINT NOT NULL
+);
+
+-- Série d'un expert (tendance et consolidation)
+CREATE INDEX IF NOT EXISTS idx_score_historique_expertise_date
+    ON score_historique(expertise_id, date_calcul);
+
+-- Les lignes sont insérées dans l'ordre chronologique : un index BRIN suffit pour la purge par date
+CREATE INDEX IF NOT EXISTS idx_score_historique_date_brin
+    ON score_historique USING BRIN (date_calcul);
+
+CREATE TABLE IF NOT EXISTS score_historique_jour (
+    expertise_id BIGINT NOT NULL,
+    jour DATE NOT NULL,
+    nombre_calculs INTEGER NOT NULL,
+    score_global_moyen SMALLINT NOT NULL,
+    score_global_min SMALLINT NOT NULL,
+    score_global_max SMALLINT NOT NULL,
+    certification SMALLINT NOT NULL,
+    experience SMALLINT NOT NULL,
+    profil SMALLINT NOT NULL,
+    popularite SMALLINT NOT NULL,
+    activite SMALLINT NOT NULL,
+    PRIMARY KEY (expertise_id, jour)
+);
+
+CREATE INDEX IF NOT EXISTS idx_score_historique_jour_jour
+    ON score_historique_jour(jour);
+
+COMMENT ON TABLE score_historique IS 'Scores bruts par recalcul, en centièmes ; purgés après la rétention brute (voir HistoriqueScoreService)';
+COMMENT ON TABLE score_historique_jour IS 'Moyennes journalières des scores, en centièmes ; sous-scores = moyennes du jour';
@@ -0,0 +1,16 @@
+-- Migration V36: Décroissance du score d'activité
+-- Le score d'activité dépend de l'ancienneté de COALESCE(date_modification, date_creation)
+-- avec des paliers à 30, 90, 180 et 365 jours. La tâche nocturne ne recalcule que les experts
+-- dont l'ancienneté a franchi un palier depuis son dernier passage : une plage par palier sur cet index.
+
+CREATE INDEX IF NOT EXISTS idx_expertises_derniere_activite
+    ON expertises ((COALESCE(date_modification, date_creation)));
+
+-- Dernière exécution des tâches planifiées qui traitent une fenêtre de temps
+CREATE TABLE IF NOT EXISTS taches_planifiees (
+    nom VARCHAR(100) PRIMARY KEY,
+    derniere_execution TIMESTAMP
+);
+
+INSERT INTO taches_planifiees (nom) VALUES ('decroissance-activite')
+ON CONFLICT (nom) DO NOTHING;
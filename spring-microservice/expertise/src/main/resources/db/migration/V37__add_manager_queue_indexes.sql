@@ -0,0 +1,12 @@
+-- Migration V37: Index des files de validation du manager
+-- Les écrans "à valider" et "assignées" filtrent sur (manager_id, statut) et trient
+-- par date d'évaluation ou d'assignation : ces index servent filtre et tri sans parcourir l'historique.
+
+CREATE INDEX IF NOT EXISTS idx_demande_manager_statut_evaluation
+    ON demandes_reconnaissance_competence(manager_id, statut, date_evaluation DESC);
+
+CREATE INDEX IF NOT EXISTS idx_demande_manager_statut_assignation
+    ON demandes_reconnaissance_competence(manager_id, statut, date_assignation DESC);
+
+-- Préfixe des deux index ci-dessus
+DROP INDEX IF EXISTS idx_demande_manager_statut;
@@ -0,0 +1,6 @@
+-- Migration V38: Réservation des fenêtres des tâches planifiées
+-- La date de dernière exécution n'avance qu'après le traitement complet de la fenêtre.
+-- Pendant le traitement, la fenêtre est réservée jusqu'à une échéance : si l'instance
+-- s'arrête en cours de route, la réservation expire et la fenêtre entière est reprise.
+
+ALTER TABLE taches_planifiees ADD COLUMN IF NOT EXISTS reservee_jusqua TIMESTAMP;
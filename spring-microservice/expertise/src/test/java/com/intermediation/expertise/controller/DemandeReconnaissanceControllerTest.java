@@ -0,0 +1,74 @@
+package com.intermediation.expertise.controller;
+
+import com.intermediation.expertise.model.DemandeReconnaissanceCompetence;
+import com.intermediation.expertise.repository.DemandeReconnaissanceRepository;
+import com.intermediation.expertise.service.DemandeReconnaissanceAssembleur;
+import com.intermediation.expertise.service.TraitementDemandeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Vérifie que le tri demandé par le client sur les pages du manager est limité aux propriétés autorisées.
+ */
+class DemandeReconnaissanceControllerTest {
+
+    private DemandeReconnaissanceRepository demandeRepository;
+    private DemandeReconnaissanceController controller;
+
+    @BeforeEach
+    void setUp() {
+        demandeRepository = mock(DemandeReconnaissanceRepository.class);
+        when(demandeRepository.findByManagerIdAndStatutIn(anyString(), anyList(), any(Pageable.class)))
+                .thenReturn(new PageImpl<DemandeReconnaissanceCompetence>(new ArrayList<>()));
+        DemandeReconnaissanceAssembleur assembleur = mock(DemandeReconnaissanceAssembleur.class);
+        when(assembleur.versDTO(any(Page.class))).thenReturn(new PageImpl<>(new ArrayList<>()));
+
+        TraitementDemandeService traitementService = new TraitementDemandeService();
+        ReflectionTestUtils.setField(traitementService, "demandeRepository", demandeRepository);
+        ReflectionTestUtils.setField(traitementService, "assembleur", assembleur);
+
+        controller = new DemandeReconnaissanceController();
+        ReflectionTestUtils.setField(controller, "traitementService", traitementService);
+    }
+
+    @Test
+    void getDemandesAssigneesPaginees_triInconnu_400() {
+        ResponseEntity<?> reponse = controller.getDemandesAssigneesPaginees("manager-1",
+                PageRequest.of(0, 20, Sort.by("commentaireManagerAssignation")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, reponse.getStatusCode());
+        verify(demandeRepository, never()).findByManagerIdAndStatutIn(anyString(), anyList(), any(Pageable.class));
+    }
+
+    @Test
+    void getDemandesAssigneesPaginees_triAutorise_200() {
+        ResponseEntity<?> reponse = controller.getDemandesAssigneesPaginees("manager-1",
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "priorite")));
+
+        assertEquals(HttpStatus.OK, reponse.getStatusCode());
+        verify(demandeRepository).findByManagerIdAndStatutIn("manager-1",
+                List.of(DemandeReconnaissanceCompetence.StatutDemande.ASSIGNEE_RH,
+                        DemandeReconnaissanceCompetence.StatutDemande.EN_COURS_EVALUATION),
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "priorite")));
+    }
+}
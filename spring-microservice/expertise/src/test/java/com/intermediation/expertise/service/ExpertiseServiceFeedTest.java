@@ -0,0 +1,134 @@
+package com.intermediation.expertise.service;
+
+import com.intermediation.expertise.dto.ExpertPublicDTO;
+import com.intermediation.expertise.dto.ExpertsPublicsPageDTO;
+import com.intermediation.expertise.repository.CompetenceRepository;
+import com.intermediation.expertise.repository.ExpertiseRepository;
+import com.intermediation.expertise.repository.PaysRepository;
+import com.intermediation.expertise.repository.VilleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Vérifie que le parcours du feed d'accueil reste stable quand un score est recalculé entre deux pages.
+ */
+class ExpertiseServiceFeedTest {
+
+    // Scores courants des experts publiés (modifiables en cours de parcours)
+    private final Map<String, BigDecimal> scores = new LinkedHashMap<>();
+
+    private ExpertiseRepository expertiseRepository;
+    private ClassementExpertsService classementExpertsService;
+    private ExpertiseService service;
+
+    @BeforeEach
+    void setUp() {
+        scores.put("a", new BigDecimal("90"));
+        scores.put("b", new BigDecimal("80"));
+        scores.put("c", new BigDecimal("70"));
+
+        expertiseRepository = mock(ExpertiseRepository.class);
+        when(expertiseRepository.findUtilisateurIdsPubliesClasses(any(LocalDateTime.class)))
+                .thenAnswer(invocation -> classementCourant().stream()
+                        .map(ExpertPublicDTO::getUtilisateurId)
+                        .collect(Collectors.toList()));
+        when(expertiseRepository.findExpertsPubliesByUtilisateurIdIn(anyList())).thenAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(0);
+            return classementCourant().stream()
+                    .filter(expert -> ids.contains(expert.getUtilisateurId()))
+                    .collect(Collectors.toList());
+        });
+        when(expertiseRepository.findExpertsPubliesApres(any(LocalDateTime.class), any(BigDecimal.class),
+                anyString(), any(Pageable.class))).thenAnswer(invocation -> {
+            BigDecimal score = invocation.getArgument(1);
+            String utilisateurId = invocation.getArgument(2);
+            Pageable limite = invocation.getArgument(3);
+            return classementCourant().stream()
+                    .filter(expert -> expert.getScoreGlobal().compareTo(score) < 0
+                            || (expert.getScoreGlobal().compareTo(score) == 0
+                                && expert.getUtilisateurId().compareTo(utilisateurId) > 0))
+                    .limit(limite.getPageSize())
+                    .collect(Collectors.toList());
+        });
+
+        CompetenceRepository competenceRepository = mock(CompetenceRepository.class);
+        when(competenceRepository.findCompetencesPubliquesByUtilisateurIdIn(anyList())).thenReturn(new ArrayList<>());
+
+        classementExpertsService = new ClassementExpertsService(expertiseRepository, new SimpleMeterRegistry(),
+                Duration.ofMinutes(1), Duration.ofMinutes(30));
+        service = new ExpertiseService(competenceRepository, expertiseRepository, mock(VilleRepository.class),
+                mock(PaysRepository.class), mock(FileRecalculScoreService.class),
+                mock(ExpertRechercheStatsService.class), mock(FacettesRechercheService.class),
+                classementExpertsService);
+    }
+
+    @Test
+    void getExpertsPubliesPage_scoreRecalculeEntreDeuxPages_niDoublonNiOubli() {
+        ExpertsPublicsPageDTO page1 = service.getExpertsPubliesPage(null, 1);
+        // "b" passe devant "a" pendant le parcours
+        scores.put("b", new BigDecimal("95"));
+        ExpertsPublicsPageDTO page2 = service.getExpertsPubliesPage(page1.getCurseurSuivant(), 1);
+        ExpertsPublicsPageDTO page3 = service.getExpertsPubliesPage(page2.getCurseurSuivant(), 1);
+
+        assertEquals(List.of("a", "b", "c"), ids(page1, page2, page3));
+        assertNull(page3.getCurseurSuivant());
+        // Le score affiché reste le score courant
+        assertEquals(new BigDecimal("95"), page2.getExperts().get(0).getScoreGlobal());
+    }
+
+    @Test
+    void getExpertsPubliesPage_classementExpire_repriseParCle() {
+        ExpertsPublicsPageDTO page1 = service.getExpertsPubliesPage(null, 1);
+        service = serviceSansClassementConserve();
+        ExpertsPublicsPageDTO page2 = service.getExpertsPubliesPage(page1.getCurseurSuivant(), 2);
+
+        assertEquals(List.of("a", "b", "c"), ids(page1, page2));
+        assertNull(page2.getCurseurSuivant());
+    }
+
+    private ExpertiseService serviceSansClassementConserve() {
+        CompetenceRepository competenceRepository = mock(CompetenceRepository.class);
+        when(competenceRepository.findCompetencesPubliquesByUtilisateurIdIn(anyList())).thenReturn(new ArrayList<>());
+        return new ExpertiseService(competenceRepository, expertiseRepository, mock(VilleRepository.class),
+                mock(PaysRepository.class), mock(FileRecalculScoreService.class),
+                mock(ExpertRechercheStatsService.class), mock(FacettesRechercheService.class),
+                new ClassementExpertsService(expertiseRepository, new SimpleMeterRegistry(),
+                        Duration.ofMinutes(1), Duration.ofMinutes(30)));
+    }
+
+    private List<ExpertPublicDTO> classementCourant() {
+        return scores.entrySet().stream()
+                .map(entree -> new ExpertPublicDTO(entree.getKey(), null, null, null, null, null, true, entree.getValue()))
+                .sorted(Comparator.comparing(ExpertPublicDTO::getScoreGlobal).reversed()
+                        .thenComparing(ExpertPublicDTO::getUtilisateurId))
+                .collect(Collectors.toList());
+    }
+
+    private List<String> ids(ExpertsPublicsPageDTO... pages) {
+        List<String> ids = new ArrayList<>();
+        for (ExpertsPublicsPageDTO page : pages) {
+            page.getExperts().forEach(expert -> ids.add(expert.getUtilisateurId()));
+        }
+        return ids;
+    }
+}
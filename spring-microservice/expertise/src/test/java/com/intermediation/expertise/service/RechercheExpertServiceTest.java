@@ -0,0 +1,171 @@
+package com.intermediation.expertise.service;
+
+import com.intermediation.expertise.dto.RechercheExpertRequest;
+import com.intermediation.expertise.dto.RechercheExpertResponse;
+import com.intermediation.expertise.exception.RechercheIndisponibleException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Vérifie que la recherche avancée émet un nombre borné de requêtes SQL,
+ * quel que soit le nombre d'experts sur la page (pas de N+1 sur les compétences).
+ */
+class RechercheExpertServiceTest {
+
+    // Recherche, compétences principales, comptage, 3 facettes et statistiques
+    private static final int REQUETES_MAX_PAR_RECHERCHE = 7;
+
+    private EntityManager entityManager;
+    private RechercheExpertService service;
+
+    @BeforeEach
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        FacettesRechercheService facettesRechercheService = new FacettesRechercheService();
+        ReflectionTestUtils.setField(facettesRechercheService, "entityManager", entityManager);
+        ReflectionTestUtils.setField(facettesRechercheService, "self", facettesRechercheService);
+        service = new RechercheExpertService(facettesRechercheService, mock(PlatformTransactionManager.class), 4);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        ReflectionTestUtils.setField(service, "timeoutPrincipaleMs", 5000L);
+        ReflectionTestUtils.setField(service, "timeoutOptionnelMs", 2000L);
+    }
+
+    @Test
+    void rechercherExperts_nombreDeRequetesIndependantDeLaTailleDeLaPage() {
+        int nombreExperts = 100;
+        simulerBase(nombreExperts);
+
+        RechercheExpertRequest request = new RechercheExpertRequest();
+        request.setTaille(nombreExperts);
+
+        RechercheExpertResponse response = service.rechercherExperts(request);
+
+        assertEquals(nombreExperts, response.getResultats().size());
+        assertTrue(response.getResultats().stream()
+                .allMatch(r -> r.getCompetencesPrincipales().size() == 1));
+        verify(entityManager, atMost(REQUETES_MAX_PAR_RECHERCHE)).createNativeQuery(requeteDeDonnees());
+    }
+
+    @Test
+    void rechercherExperts_facettesServiesDepuisLeCache() {
+        simulerBase(10);
+
+        service.rechercherExperts(new RechercheExpertRequest());
+        service.rechercherExperts(new RechercheExpertRequest());
+
+        // 2 x (recherche, compétences, comptage) + une seule fois (3 facettes + statistiques)
+        verify(entityManager, times(10)).createNativeQuery(requeteDeDonnees());
+    }
+
+    @Test
+    void rechercherExperts_requetesBorneesCoteBase() {
+        simulerBase(10);
+
+        service.rechercherExperts(new RechercheExpertRequest());
+
+        // Un statement_timeout par étape en transaction : recherche, compétences, comptage
+        verify(entityManager, times(3)).createNativeQuery(contains("statement_timeout"));
+    }
+
+    /**
+     * Requêtes lisant des données (hors réglage du statement_timeout)
+     */
+    private static String requeteDeDonnees() {
+        return argThat(sql -> !sql.contains("statement_timeout"));
+    }
+
+    @Test
+    void rechercherExperts_reponseDegradeeSiUnePartieOptionnelleEchoue() {
+        simulerBase(10, true);
+
+        RechercheExpertResponse response = service.rechercherExperts(new RechercheExpertRequest());
+
+        assertEquals(10, response.getResultats().size());
+        assertTrue(response.isDegrade());
+        assertEquals(List.of("comptage"), response.getPartiesIndisponibles());
+        assertEquals(-1, response.getTotalResultats());
+        assertTrue(response.getTempsEtapesMs().keySet()
+                .containsAll(List.of("recherche", "competences", "facettes", "total")));
+    }
+
+    @Test
+    void rechercherExperts_echecDeLaRequetePrincipale_rechercheIndisponible() {
+        when(entityManager.createNativeQuery(anyString())).thenAnswer(invocation -> {
+            Query query = mock(Query.class);
+            RuntimeException delaiDepasse = new RuntimeException("canceling statement due to statement timeout");
+            when(query.getResultList()).thenThrow(delaiDepasse);
+            when(query.getSingleResult()).thenThrow(delaiDepasse);
+            return query;
+        });
+
+        assertThrows(RechercheIndisponibleException.class,
+                () -> service.rechercherExperts(new RechercheExpertRequest()));
+    }
+
+    private void simulerBase(int nombreExperts) {
+        simulerBase(nombreExperts, false);
+    }
+
+    /**
+     * Simule les réponses de la base selon la requête exécutée
+     */
+    private void simulerBase(int nombreExperts, boolean comptageEnErreur) {
+        when(entityManager.createNativeQuery(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            Query query = mock(Query.class);
+
+            if (sql.contains("ROW_NUMBER()")) {
+                List<Object[]> competences = new ArrayList<>();
+                for (int i = 0; i < nombreExperts; i++) {
+                    competences.add(new Object[]{"expert-" + i, "Java", 4, 5, 15000, "OR"});
+                }
+                when(query.getResultList()).thenReturn(competences);
+            } else if (sql.contains("as score_recherche")) {
+                List<Object[]> experts = new ArrayList<>();
+                for (int i = 0; i < nombreExperts; i++) {
+                    experts.add(ligneExpert("expert-" + i));
+                }
+                when(query.getResultList()).thenReturn(experts);
+            } else if (sql.startsWith("SELECT COUNT(*)")) {
+                if (comptageEnErreur) {
+                    when(query.getSingleResult()).thenThrow(new RuntimeException("canceling statement due to statement timeout"));
+                } else {
+                    when(query.getSingleResult()).thenReturn((long) nombreExperts);
+                }
+            } else if (sql.contains("as score_moyen")) {
+                when(query.getSingleResult()).thenReturn(new Object[]{0L, 0L, 0, 0, 0.0});
+            } else {
+                when(query.getResultList()).thenReturn(new ArrayList<>());
+            }
+            return query;
+        });
+    }
+
+    private Object[] ligneExpert(String utilisateurId) {
+        return new Object[]{
+                utilisateurId, "Titre", "Description", null, "50.00", true,
+                "Ouagadougou", "Burkina Faso", 1L, 1L,
+                1, 4, 5, 15000, 15000, 3, 1, "OR", 0, 0.0,
+                "50.00", utilisateurId
+        };
+    }
+}
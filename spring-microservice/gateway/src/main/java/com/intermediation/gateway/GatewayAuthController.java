@@ -149,8 +149,10 @@ public class GatewayAuthController {
                     // Créer le SecurityContext
                     SecurityContext securityContext = new SecurityContextImpl(authToken);
 
-                    // Sauvegarder dans la session
-                    return securityContextRepository.save(exchange, securityContext)
+                    // Sauvegarder dans la session, sans conserver le Keycloak ID d'une connexion précédente
+                    return exchange.getSession()
+                            .doOnNext(UserPropagationGatewayFilter::oublierKeycloakId)
+                            .then(securityContextRepository.save(exchange, securityContext))
                             .then(Mono.just(ResponseEntity.ok(authResponse)));
                 })
                 .onErrorResume(error -> {
@@ -77,7 +77,10 @@ public class GatewayAuthenticationSuccessHandler implements ServerAuthentication
             }
 
             // Appeler le service Auth pour traiter l'utilisateur
-            return webClient.post()
+            // (sans conserver le Keycloak ID d'une connexion Email/Password précédente sur la session)
+            return exchange.getSession()
+                .doOnNext(UserPropagationGatewayFilter::oublierKeycloakId)
+                .then(webClient.post()
                 .uri("/api/auth/oauth2/process")
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(userInfo)
@@ -153,7 +156,7 @@ public class GatewayAuthenticationSuccessHandler implements ServerAuthentication
                     exchange.getResponse().setStatusCode(HttpStatus.FOUND);
                     exchange.getResponse().getHeaders().setLocation(URI.create("/mon-compte"));
                     return exchange.getResponse().setComplete();
-                });
+                }));
         }
 
         // Si pas d'OidcUser, redirection par défaut
@@ -4,6 +4,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.context.ServerSecurityContextRepository;
 import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
@@ -20,14 +21,17 @@ public class GatewaySecurityConfig {
     private final GatewayAuthenticationSuccessHandler authenticationSuccessHandler;
     private final CustomOAuth2AuthorizationRequestResolver authorizationRequestResolver;
     private final SessionExpiredHandler sessionExpiredHandler;
+    private final KeycloakIdCache keycloakIdCache;
 
     public GatewaySecurityConfig(
             GatewayAuthenticationSuccessHandler authenticationSuccessHandler,
             CustomOAuth2AuthorizationRequestResolver authorizationRequestResolver,
-            SessionExpiredHandler sessionExpiredHandler) {
+            SessionExpiredHandler sessionExpiredHandler,
+            KeycloakIdCache keycloakIdCache) {
         this.authenticationSuccessHandler = authenticationSuccessHandler;
         this.authorizationRequestResolver = authorizationRequestResolver;
         this.sessionExpiredHandler = sessionExpiredHandler;
+        this.keycloakIdCache = keycloakIdCache;
     }
 
     @Bean
@@ -118,9 +122,15 @@ public class GatewaySecurityConfig {
                     System.out.println("🚪 [GATEWAY] Déconnexion demandée pour: " +
                         (authentication != null ? authentication.getName() : "anonyme"));
 
+                    // Retirer le Keycloak ID mis en cache pour cet utilisateur
+                    if (authentication != null && authentication.getPrincipal() instanceof OidcUser oidcUser) {
+                        keycloakIdCache.invalider(oidcUser.getEmail());
+                    }
+
                     // Invalider la session WebFlux et nettoyer les cookies
                     return exchange.getExchange().getSession()
                         .flatMap(session -> {
+                            UserPropagationGatewayFilter.oublierKeycloakId(session);
                             System.out.println("🗑️ [GATEWAY] Invalidation de la session: " + session.getId());
                             return session.invalidate();
                         })
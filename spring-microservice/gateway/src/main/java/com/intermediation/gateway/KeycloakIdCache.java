@@ -0,0 +1,55 @@
+package com.intermediation.gateway;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Cache borné des Keycloak ID des utilisateurs Email/Password, indexé par email.
+ * Évite un appel au service Auth (et une recherche admin Keycloak) à chaque requête :
+ * l'ID n'est résolu qu'une fois, puis servi localement jusqu'à expiration ou déconnexion.
+ */
+@Component
+public class KeycloakIdCache {
+
+    private final AsyncCache<String, String> cache;
+
+    public KeycloakIdCache(
+            @Value("${gateway.keycloak-id-cache.taille-max:10000}") long tailleMax,
+            @Value("${gateway.keycloak-id-cache.ttl:PT1H}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(tailleMax)
+            .expireAfterWrite(ttl)
+            .buildAsync();
+    }
+
+    /**
+     * Retourne le Keycloak ID associé à l'email, en le chargeant une seule fois
+     * si absent (les requêtes concurrentes pour le même email partagent le chargement).
+     * Un chargement vide ou en erreur n'est pas mis en cache.
+     */
+    public Mono<String> obtenir(String email, Function<String, Mono<String>> chargeur) {
+        if (email == null || email.isBlank()) {
+            return Mono.empty();
+        }
+        return Mono.fromFuture(() -> cache.get(cle(email), (cle, executor) -> chargeur.apply(email).toFuture()));
+    }
+
+    /**
+     * Retire l'entrée associée à l'email (déconnexion)
+     */
+    public void invalider(String email) {
+        if (email != null) {
+            cache.synchronous().invalidate(cle(email));
+        }
+    }
+
+    private String cle(String email) {
+        return email.trim().toLowerCase();
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebSession;
 import reactor.core.publisher.Mono;
 
 import java.util.Map;
@@ -28,11 +29,17 @@ public class UserPropagationGatewayFilter implements GlobalFilter, Ordered {
     private static final String HEADER_USER_PICTURE = "X-User-Picture";
     private static final String HEADER_USER_ROLES = "X-User-Roles";
 
+    // Attributs de session mémorisant le Keycloak ID résolu (Email/Password) et l'email auquel il appartient
+    static final String SESSION_KEYCLOAK_ID = "KEYCLOAK_ID";
+    static final String SESSION_KEYCLOAK_ID_EMAIL = "KEYCLOAK_ID_EMAIL";
+
     private final WebClient authWebClient;
+    private final KeycloakIdCache keycloakIdCache;
 
-    public UserPropagationGatewayFilter(WebClient.Builder webClientBuilder) {
+    public UserPropagationGatewayFilter(WebClient.Builder webClientBuilder, KeycloakIdCache keycloakIdCache) {
         // Utiliser lb://AUTH pour la découverte de service via Eureka
         this.authWebClient = webClientBuilder.baseUrl("lb://AUTH").build();
+        this.keycloakIdCache = keycloakIdCache;
     }
 
     @Override
@@ -122,61 +129,101 @@ public class UserPropagationGatewayFilter implements GlobalFilter, Ordered {
         final String userRoles = roles;
 
         if (isEmailPassword) {
-            // Pour Email/Password, récupérer le Keycloak ID via le service auth
-            System.out.println("📧 [GATEWAY FILTER] Email/Password détecté, récupération du Keycloak ID pour: " + email);
-
-            return authWebClient.get()
-                .uri(uriBuilder -> uriBuilder
-                    .path("/api/keycloak-id-by-email")
-                    .queryParam("email", email)
-                    .build())
-                .retrieve()
-                .bodyToMono(Map.class)
-                .flatMap(response -> {
-                    String keycloakId = (String) response.get("keycloakId");
-                    System.out.println("✅ [GATEWAY FILTER] Keycloak ID (Email/Password): " + keycloakId + " pour " + email);
-
-                    // Ajouter les headers avec le Keycloak ID
-                    ServerWebExchange mutatedExchange = cleanedExchange.mutate()
-                        .request(builder -> {
-                            if (email != null) builder.header(HEADER_USER_EMAIL, email);
-                            if (keycloakId != null) builder.header(HEADER_USER_ID, keycloakId);
-                            if (name != null) builder.header(HEADER_USER_NAME, name);
-                            if (givenName != null) builder.header(HEADER_USER_GIVEN_NAME, givenName);
-                            if (familyName != null) builder.header(HEADER_USER_FAMILY_NAME, familyName);
-                            if (picture != null) builder.header(HEADER_USER_PICTURE, picture);
-                            if (userRoles != null) builder.header(HEADER_USER_ROLES, userRoles);
-                        })
-                        .build();
-
-                    return chain.filter(mutatedExchange);
-                })
+            // Pour Email/Password, le Keycloak ID est résolu une seule fois (session puis cache local),
+            // le service auth n'est appelé qu'en cas d'absence
+            return resoudreKeycloakId(email, cleanedExchange)
+                .map(java.util.Optional::of)
                 .onErrorResume(error -> {
                     System.err.println("❌ [GATEWAY FILTER] Erreur récupération Keycloak ID: " + error.getMessage());
                     // En cas d'erreur, continuer sans l'ID
-                    return chain.filter(cleanedExchange);
-                });
+                    return Mono.just(java.util.Optional.empty());
+                })
+                .defaultIfEmpty(java.util.Optional.empty())
+                .flatMap(keycloakId -> chain.filter(ajouterHeaders(cleanedExchange, email, keycloakId.orElse(null),
+                    name, givenName, familyName, picture, userRoles)));
         } else {
             // Pour OAuth2, utiliser directement l'ID Keycloak du JWT
             String keycloakId = oidcUser.getSubject();
             System.out.println("✅ [GATEWAY FILTER] Keycloak ID (OAuth2): " + keycloakId + " pour " + email);
 
-            ServerWebExchange mutatedExchange = cleanedExchange.mutate()
-                .request(builder -> {
-                    if (email != null) builder.header(HEADER_USER_EMAIL, email);
-                    if (keycloakId != null) builder.header(HEADER_USER_ID, keycloakId);
-                    if (name != null) builder.header(HEADER_USER_NAME, name);
-                    if (givenName != null) builder.header(HEADER_USER_GIVEN_NAME, givenName);
-                    if (familyName != null) builder.header(HEADER_USER_FAMILY_NAME, familyName);
-                    if (picture != null) builder.header(HEADER_USER_PICTURE, picture);
-                    if (userRoles != null) builder.header(HEADER_USER_ROLES, userRoles);
-                })
-                .build();
-
-            return chain.filter(mutatedExchange);
+            return chain.filter(ajouterHeaders(cleanedExchange, email, keycloakId,
+                name, givenName, familyName, picture, userRoles));
         }
     }
 
+    /**
+     * Résout le Keycloak ID d'un utilisateur Email/Password : d'abord depuis la session,
+     * puis depuis le cache local, et en dernier recours via le service auth.
+     * L'ID obtenu est mémorisé dans la session avec l'email de l'utilisateur ; il n'est réutilisé
+     * que pour ce même email (une connexion sur une session existante ne doit pas hériter
+     * de l'ID de l'utilisateur précédent).
+     */
+    private Mono<String> resoudreKeycloakId(String email, ServerWebExchange exchange) {
+        return exchange.getSession().flatMap(session -> {
+            String keycloakIdSession = session.getAttribute(SESSION_KEYCLOAK_ID);
+            if (keycloakIdSession != null && email != null
+                    && email.equalsIgnoreCase(session.getAttribute(SESSION_KEYCLOAK_ID_EMAIL))) {
+                return Mono.just(keycloakIdSession);
+            }
+            oublierKeycloakId(session);
+            if (email == null) {
+                return Mono.empty();
+            }
+            return keycloakIdCache.obtenir(email, this::chargerKeycloakId)
+                .doOnNext(keycloakId -> {
+                    session.getAttributes().put(SESSION_KEYCLOAK_ID, keycloakId);
+                    session.getAttributes().put(SESSION_KEYCLOAK_ID_EMAIL, email);
+                });
+        });
+    }
+
+    /**
+     * Retire le Keycloak ID mémorisé dans la session (connexion, déconnexion)
+     */
+    static void oublierKeycloakId(WebSession session) {
+        session.getAttributes().remove(SESSION_KEYCLOAK_ID);
+        session.getAttributes().remove(SESSION_KEYCLOAK_ID_EMAIL);
+    }
+
+    /**
+     * Appel distant au service auth (uniquement en cas d'absence dans le cache)
+     */
+    private Mono<String> chargerKeycloakId(String email) {
+        System.out.println("📧 [GATEWAY FILTER] Email/Password détecté, récupération du Keycloak ID pour: " + email);
+
+        return authWebClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path("/api/keycloak-id-by-email")
+                .queryParam("email", email)
+                .build())
+            .retrieve()
+            .bodyToMono(Map.class)
+            .flatMap(response -> {
+                String keycloakId = (String) response.get("keycloakId");
+                System.out.println("✅ [GATEWAY FILTER] Keycloak ID (Email/Password): " + keycloakId + " pour " + email);
+                return Mono.justOrEmpty(keycloakId);
+            });
+    }
+
+    /**
+     * Ajoute les headers X-User-* à la requête transmise aux services backend
+     */
+    private ServerWebExchange ajouterHeaders(ServerWebExchange exchange, String email, String keycloakId,
+                                             String name, String givenName, String familyName,
+                                             String picture, String userRoles) {
+        return exchange.mutate()
+            .request(builder -> {
+                if (email != null) builder.header(HEADER_USER_EMAIL, email);
+                if (keycloakId != null) builder.header(HEADER_USER_ID, keycloakId);
+                if (name != null) builder.header(HEADER_USER_NAME, name);
+                if (givenName != null) builder.header(HEADER_USER_GIVEN_NAME, givenName);
+                if (familyName != null) builder.header(HEADER_USER_FAMILY_NAME, familyName);
+                if (picture != null) builder.header(HEADER_USER_PICTURE, picture);
+                if (userRoles != null) builder.header(HEADER_USER_ROLES, userRoles);
+            })
+            .build();
+    }
+
     @Override
     public int getOrder() {
         return -1; // Exécuter ce filtre en premier
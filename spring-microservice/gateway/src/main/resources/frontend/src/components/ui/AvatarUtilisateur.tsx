@@ -20,6 +20,15 @@ const SIZES = {
   xl: 'w-16 h-16 text-lg',
 };
 
+// Variante de photo demandée au serveur selon la taille affichée (écrans haute densité compris)
+const PHOTO_SIZES = {
+  xs: 64,
+  sm: 64,
+  md: 200,
+  lg: 200,
+  xl: 200,
+};
+
 const INDICATEUR_COLORS = {
   online: 'bg-success',
   offline: 'bg-gray-400',
@@ -80,7 +89,7 @@ export default function AvatarUtilisateur({
     if (hasPhoto === false) return null;
     if (photoUrl) return photoUrl;
     // Si hasPhoto est true ou undefined, essayer de charger
-    if (utilisateurId) return `/api/profil/public/${utilisateurId}/photo`;
+    if (utilisateurId) return `/api/profil/public/${utilisateurId}/photo?size=${PHOTO_SIZES[size]}`;
     return null;
   };
 
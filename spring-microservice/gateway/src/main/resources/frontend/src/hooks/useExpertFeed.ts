@@ -9,7 +9,9 @@ interface UseExpertFeedProps {
 
 export const useExpertFeed = ({ visiteurId, batchSize = 5 }: UseExpertFeedProps) => {
   const [experts, setExperts] = useState<Expert[]>([]);
-  const [nextCursor, setNextCursor] = useState<string>('0');
+  // Curseur opaque du service : null pour le premier lot, puis null en fin de catalogue
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [hasMore, setHasMore] = useState<boolean>(true);
   const [loading, setLoading] = useState<boolean>(true);
   const [isLoadingMore, setIsLoadingMore] = useState<boolean>(false);
 
@@ -20,9 +22,10 @@ export const useExpertFeed = ({ visiteurId, batchSize = 5 }: UseExpertFeedProps)
     const loadInitial = async () => {
       try {
         setLoading(true);
-        const data = await apiService.scrollNext(visiteurId, '0', batchSize);
+        const data = await apiService.scrollNext(visiteurId, null, batchSize);
         setExperts(data.pileContenu || []);
-        setNextCursor(data.nextCursor || '0');
+        setNextCursor(data.nextCursor);
+        setHasMore(data.nextCursor !== null);
       } catch (error) {
         console.error('Failed to load initial experts:', error);
       } finally {
@@ -35,24 +38,26 @@ export const useExpertFeed = ({ visiteurId, batchSize = 5 }: UseExpertFeedProps)
 
   // Charge plus d'experts
   const loadMore = useCallback(async () => {
-    if (!visiteurId || isLoadingMore) return;
+    if (!visiteurId || isLoadingMore || !hasMore) return;
 
     try {
       setIsLoadingMore(true);
       const data = await apiService.scrollNext(visiteurId, nextCursor, batchSize);
       setExperts((prev) => [...prev, ...(data.pileContenu || [])]);
-      setNextCursor(data.nextCursor || nextCursor);
+      setNextCursor(data.nextCursor);
+      setHasMore(data.nextCursor !== null);
     } catch (error) {
       console.error('Failed to load more experts:', error);
     } finally {
       setIsLoadingMore(false);
     }
-  }, [visiteurId, nextCursor, batchSize, isLoadingMore]);
+  }, [visiteurId, nextCursor, batchSize, isLoadingMore, hasMore]);
 
   return {
     experts,
     loading,
     isLoadingMore,
+    hasMore,
     loadMore,
   };
 };
@@ -344,7 +344,7 @@ export default function ExpertiseProfilPage() {
                   </div>
                 ) : (
                   <img
-                    src={`/api/profil/public/${id}/photo`}
+                    src={`/api/profil/public/${id}/photo?size=200`}
                     alt={expertise.titre}
                     onError={() => setPhotoError(true)}
                     className="rounded-full object-cover"
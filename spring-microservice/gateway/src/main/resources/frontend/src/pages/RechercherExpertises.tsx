@@ -128,7 +128,7 @@ const AvatarExpert: React.FC<AvatarExpertProps> = ({ utilisateurId, titre, taill
     lg: 'w-12 h-12 text-base'
   };
 
-  const photoUrl = `/api/profil/public/${utilisateurId}/photo`;
+  const photoUrl = `/api/profil/public/${utilisateurId}/photo?size=${taille === 'sm' ? 64 : 200}`;
 
   if (!photoError) {
     return (
@@ -23,7 +23,7 @@ export const apiService = {
    */
   scrollNext: async (
     visiteurId: string,
-    afterCursor: string,
+    afterCursor: string | null,
     batchSize: number = 5
   ): Promise<FeedResponse> => {
     return api<FeedResponse>('/api/acceuil/api/scroll-next', {
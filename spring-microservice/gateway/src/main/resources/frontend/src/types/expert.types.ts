@@ -27,7 +27,7 @@ export interface Expert {
 
 export interface FeedResponse {
   pileContenu: Expert[];
-  nextCursor: string;
+  nextCursor: string | null;
   contexteDerniereMAJ: string;
 }
 
@@ -0,0 +1,169 @@
+package com.intermediation.profils;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Cache local des profils publics (nom, prénom, type de personne, photo) du service Auth,
+ * commun aux services qui affichent des utilisateurs.
+ *
+ * - Taille bornée et expiration après écriture : une modification de profil dans Auth
+ *   est visible au plus tard après la durée de vie (les profils changent rarement)
+ * - Cache négatif : un ID inconnu d'Auth est mémorisé (durée plus courte) pour ne pas être redemandé
+ * - Chargement unique : des demandes simultanées pour un même ID attendent le même appel
+ * - Métriques hit/miss/éviction exposées sur actuator (cache "profils-publics")
+ *
+ * Les manquants sont chargés par lots via POST /api/profil/public/batch.
+ * Un lot en erreur n'est pas mis en cache : les utilisateurs concernés sont simplement absents du résultat.
+ *
+ * @param <T> DTO du profil public propre au service appelant
+ */
+public class CacheProfilsPublics<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheProfilsPublics.class);
+
+    // Nombre maximal d'identifiants par appel à /api/profil/public/batch
+    private static final int TAILLE_LOT_UTILISATEURS = 200;
+
+    private final RestTemplate restTemplate;
+    private final String urlLot;
+    private final ParameterizedTypeReference<Map<String, T>> typeReponse;
+    private final AsyncCache<String, Optional<T>> cache;
+
+    /**
+     * @param authServiceUrl URL de base du service Auth (ex: http://auth avec un RestTemplate load-balancé)
+     * @param typeProfil     classe du DTO désérialisé depuis la réponse d'Auth
+     */
+    public CacheProfilsPublics(RestTemplate restTemplate, String authServiceUrl, Class<T> typeProfil,
+                               MeterRegistry meterRegistry, long tailleMax, Duration ttl, Duration ttlNegatif) {
+        // Chargement sur le thread appelant, qui attend de toute façon le résultat
+        this(restTemplate, authServiceUrl, typeProfil, meterRegistry, tailleMax, ttl, ttlNegatif, Runnable::run);
+    }
+
+    CacheProfilsPublics(RestTemplate restTemplate, String authServiceUrl, Class<T> typeProfil,
+                        MeterRegistry meterRegistry, long tailleMax, Duration ttl, Duration ttlNegatif,
+                        Executor executor) {
+        this.restTemplate = restTemplate;
+        this.urlLot = authServiceUrl + "/api/profil/public/batch";
+        this.typeReponse = ParameterizedTypeReference.forType(
+                ResolvableType.forClassWithGenerics(Map.class, String.class, typeProfil).getType());
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tailleMax)
+                .expireAfter(new ExpirationProfil<T>(ttl, ttlNegatif))
+                .executor(executor)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "profils-publics");
+    }
+
+    /**
+     * Récupère les profils publics d'un ensemble d'utilisateurs (cache, puis service Auth pour les manquants).
+     *
+     * @return profils indexés par ID (les IDs inconnus ou indisponibles sont absents)
+     */
+    public Map<String, T> getProfils(Collection<String> utilisateurIds) {
+        return getProfilsAsync(utilisateurIds).join();
+    }
+
+    /**
+     * Comme {@link #getProfils(Collection)}, sans attendre la fin des chargements
+     */
+    CompletableFuture<Map<String, T>> getProfilsAsync(Collection<String> utilisateurIds) {
+        List<String> ids = utilisateurIds.stream()
+                .filter(id -> id != null && !id.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        Map<String, T> profils = new HashMap<>();
+        List<CompletableFuture<Void>> lots = new ArrayList<>();
+
+        for (int debut = 0; debut < ids.size(); debut += TAILLE_LOT_UTILISATEURS) {
+            List<String> lot = ids.subList(debut, Math.min(debut + TAILLE_LOT_UTILISATEURS, ids.size()));
+            // Seuls les IDs absents du cache (et non déjà en cours de chargement) sont demandés à Auth
+            lots.add(cache
+                    .getAll(lot, (manquants, executor) -> CompletableFuture.supplyAsync(() -> charger(manquants), executor))
+                    .thenAccept(resultat -> {
+                        synchronized (profils) {
+                            resultat.forEach((id, profil) -> profil.ifPresent(p -> profils.put(id, p)));
+                        }
+                    })
+                    .exceptionally(e -> {
+                        log.warn("Erreur lors de la récupération d'un lot de {} profils publics: {}",
+                                lot.size(), e.getMessage());
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(lots.toArray(new CompletableFuture[0])).thenApply(fin -> profils);
+    }
+
+    /**
+     * Charge un lot d'IDs depuis le service Auth. Les IDs absents de la réponse sont
+     * renvoyés vides pour être mis en cache négatif.
+     */
+    private Map<String, Optional<T>> charger(Set<? extends String> ids) {
+        ResponseEntity<Map<String, T>> response = restTemplate.exchange(
+            urlLot,
+            HttpMethod.POST,
+            new HttpEntity<>(new ArrayList<>(ids)),
+            typeReponse
+        );
+
+        Map<String, T> trouves = response.getBody() != null ? response.getBody() : Map.of();
+        Map<String, Optional<T>> resultat = new HashMap<>();
+        for (String id : ids) {
+            resultat.put(id, Optional.ofNullable(trouves.get(id)));
+        }
+        log.debug("Profils publics chargés depuis Auth: {} trouvé(s) sur {}", trouves.size(), ids.size());
+        return resultat;
+    }
+
+    /**
+     * Durée de vie d'une entrée : plus courte pour les IDs inconnus (cache négatif)
+     */
+    private static class ExpirationProfil<T> implements Expiry<String, Optional<T>> {
+        private final long ttlNanos;
+        private final long ttlNegatifNanos;
+
+        private ExpirationProfil(Duration ttl, Duration ttlNegatif) {
+            this.ttlNanos = ttl.toNanos();
+            this.ttlNegatifNanos = ttlNegatif.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String id, Optional<T> profil, long maintenant) {
+            return profil.isPresent() ? ttlNanos : ttlNegatifNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String id, Optional<T> profil, long maintenant, long dureeRestante) {
+            return expireAfterCreate(id, profil, maintenant);
+        }
+
+        @Override
+        public long expireAfterRead(String id, Optional<T> profil, long maintenant, long dureeRestante) {
+            return dureeRestante;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.intermediation.profils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Vérifie le cache local des profils publics : cache négatif et chargement unique par ID.
+ */
+class CacheProfilsPublicsTest {
+
+    private RestTemplate restTemplate;
+    // Chargements en attente, exécutés à la demande par le test
+    private Queue<Runnable> chargements;
+    private CacheProfilsPublics<Profil> cache;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = mock(RestTemplate.class);
+        chargements = new ArrayDeque<>();
+        cache = new CacheProfilsPublics<>(restTemplate, "http://auth", Profil.class, new SimpleMeterRegistry(),
+                100, Duration.ofMinutes(10), Duration.ofMinutes(1), chargements::add);
+    }
+
+    @Test
+    void getProfils_idInconnuMisEnCacheNegatif() {
+        simulerAuth(Map.of("u1", profil("u1")));
+
+        CompletableFuture<Map<String, Profil>> premier = cache.getProfilsAsync(List.of("u1", "inconnu"));
+        executerChargements();
+        Map<String, Profil> second = cache.getProfils(List.of("u1", "inconnu"));
+
+        assertEquals(1, premier.join().size());
+        assertEquals("Nom-u1", second.get("u1").getNom());
+        // Le second appel est servi entièrement par le cache, y compris l'ID inconnu
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class),
+                any(ParameterizedTypeReference.class));
+    }
+
+    @Test
+    void getProfils_demandesSimultaneesUnSeulAppel() {
+        simulerAuth(Map.of("u1", profil("u1")));
+
+        // Le second appel arrive pendant le chargement du premier, pas encore exécuté
+        CompletableFuture<Map<String, Profil>> premier = cache.getProfilsAsync(List.of("u1"));
+        CompletableFuture<Map<String, Profil>> second = cache.getProfilsAsync(List.of("u1"));
+        assertFalse(second.isDone());
+
+        executerChargements();
+
+        assertTrue(second.isDone());
+        assertEquals("Nom-u1", premier.join().get("u1").getNom());
+        assertEquals("Nom-u1", second.join().get("u1").getNom());
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class),
+                any(ParameterizedTypeReference.class));
+    }
+
+    private void executerChargements() {
+        Runnable chargement;
+        while ((chargement = chargements.poll()) != null) {
+            chargement.run();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void simulerAuth(Map<String, Profil> profils) {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class),
+                any(ParameterizedTypeReference.class))).thenAnswer(invocation -> {
+            HttpEntity<List<String>> requete = invocation.getArgument(2);
+            Map<String, Profil> trouves = new HashMap<>();
+            for (String id : requete.getBody()) {
+                if (profils.containsKey(id)) {
+                    trouves.put(id, profils.get(id));
+                }
+            }
+            return ResponseEntity.ok(trouves);
+        });
+    }
+
+    private Profil profil(String id) {
+        Profil profil = new Profil();
+        profil.setId(id);
+        profil.setNom("Nom-" + id);
+        return profil;
+    }
+
+    static class Profil {
+        private String id;
+        private String nom;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getNom() {
+            return nom;
+        }
+
+        public void setNom(String nom) {
+            this.nom = nom;
+        }
+    }
+}